@@ -1,21 +1,31 @@
 package com.minecraft.server;
 
 import com.minecraft.server.config.ServerConfig;
+import com.minecraft.server.network.EventLoops;
 import com.minecraft.server.network.NetworkManager;
 import com.minecraft.server.network.HttpServer;
+import com.minecraft.server.world.World;
 import com.minecraft.server.world.WorldManager;
 import com.minecraft.server.player.PlayerManager;
 import com.minecraft.server.plugin.PluginManager;
 import com.minecraft.server.command.CommandManager;
+import com.minecraft.server.command.ConsoleCommandSender;
 import com.minecraft.server.util.Logger;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Minecraftサーバーのメインクラス
@@ -34,8 +44,13 @@ public class MinecraftServer {
     private final CommandManager commandManager;
     private final Logger logger;
     private final ScheduledExecutorService scheduler;
+    private EventLoops eventLoops; // 設定の読み込み後に作成
+    
+    private static final int SPAWN_PREPARE_TIMEOUT_SECONDS = 60;
     
     private volatile boolean running = false;
+    private volatile boolean ready = false; // ゲームポートを開き、接続を受け付けられる状態
+    private final AtomicInteger startupThreadCounter = new AtomicInteger();
     private long startTime;
     
     public MinecraftServer() {
@@ -71,23 +86,47 @@ public class MinecraftServer {
             // 設定を読み込み
             config.load();
             
-            // ワールドマネージャーを初期化
-            worldManager.initialize();
+            // ゲームサーバーとHTTPサーバーで共有するイベントループを作成
+            eventLoops = new EventLoops(config);
             
-            // プラグインマネージャーを初期化
-            pluginManager.loadPlugins();
+            // HTTPサーバーを最初に起動し、読み込み中もプロセスが動いていることを知らせる（Render用）
+            httpServer.start();
             
-            // コマンドマネージャーを初期化
-            commandManager.registerDefaultCommands();
+            // ワールドとプラグインは互いに依存しないため並列に読み込む
+            ExecutorService startupPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "Startup-" + startupThreadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                CompletableFuture<World> worldsLoaded = worldManager.initialize(startupPool);
+                CompletableFuture<Void> pluginsLoaded = pluginManager.loadPlugins(startupPool);
+                
+                // スポーンチャンクはティック中に登録されるため、ワールドの読み込み後すぐにメインループを開始
+                World defaultWorld = worldsLoaded.join();
+                CompletableFuture<Void> spawnReady = defaultWorld.prepareSpawn();
+                startMainLoop();
+                
+                // コマンドマネージャーを初期化（事前生成の再開にワールドが必要）
+                commandManager.registerDefaultCommands();
+                
+                // プラグインはワールドの読み込み後に有効化
+                pluginsLoaded.join();
+                pluginManager.enableAllPlugins();
+                
+                // スポーンチャンクの準備ができてからゲームポートを開く
+                try {
+                    spawnReady.get(SPAWN_PREPARE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (TimeoutException e) {
+                    logger.warn("スポーンチャンクの準備が" + SPAWN_PREPARE_TIMEOUT_SECONDS + "秒以内に終わらなかったため、ポートを開きます");
+                }
+            } finally {
+                startupPool.shutdown();
+            }
             
             // ネットワークマネージャーを起動
             networkManager.start();
-            
-            // HTTPサーバーを起動（Render用）
-            httpServer.start();
-            
-            // メインループを開始
-            startMainLoop();
+            ready = true;
             
             logger.info("Minecraft Server " + VERSION + " が起動しました");
             logger.info("ポート: " + config.getServerPort());
@@ -109,8 +148,16 @@ public class MinecraftServer {
         
         logger.info("サーバーを停止中...");
         running = false;
+        ready = false;
         
         try {
+            // スケジューラーを停止し、実行中のティックが終わるのを待つ
+            // （以降はワールドのティックスレッドがチャンクやログを変更しない）
+            scheduler.shutdown();
+            if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+            
             // プレイヤーを切断
             playerManager.disconnectAllPlayers();
             
@@ -120,17 +167,16 @@ public class MinecraftServer {
             // HTTPサーバーを停止
             httpServer.stop();
             
-            // ワールドを保存
-            worldManager.saveAllWorlds();
+            // 両方のサーバーを停止してからイベントループを停止
+            if (eventLoops != null) {
+                eventLoops.shutdown();
+            }
             
-            // プラグインを無効化
+            // プラグインを無効化（無効化時の変更も保存されるようにワールドより先に行う）
             pluginManager.disableAllPlugins();
             
-            // スケジューラーを停止
-            scheduler.shutdown();
-            if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
+            // ワールドを保存してアンロード（書き込み待ちのチャンクとログを書き出し、ワーカープールを停止）
+            worldManager.unloadAllWorlds();
             
             long uptime = System.currentTimeMillis() - startTime;
             logger.info("サーバーが停止しました (稼働時間: " + formatUptime(uptime) + ")");
@@ -216,12 +262,14 @@ public class MinecraftServer {
     public ServerConfig getConfig() { return config; }
     public NetworkManager getNetworkManager() { return networkManager; }
     public HttpServer getHttpServer() { return httpServer; }
+    public EventLoops getEventLoops() { return eventLoops; }
     public WorldManager getWorldManager() { return worldManager; }
     public PlayerManager getPlayerManager() { return playerManager; }
     public PluginManager getPluginManager() { return pluginManager; }
     public CommandManager getCommandManager() { return commandManager; }
     public Logger getLogger() { return logger; }
     public boolean isRunning() { return running; }
+    public boolean isReady() { return ready; }
     public String getVersion() { return VERSION; }
     public String getProtocolVersion() { return PROTOCOL_VERSION; }
     
@@ -241,13 +289,13 @@ public class MinecraftServer {
         server.start();
         
         // コンソール入力の処理
-        try {
-            while (server.isRunning()) {
-                int input = System.in.read();
-                if (input == -1) {
-                    break;
+        ConsoleCommandSender console = new ConsoleCommandSender();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+            String line;
+            while (server.isRunning() && (line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    server.getCommandManager().executeCommand(line, console);
                 }
-                // コンソールコマンドの処理をここに追加
             }
         } catch (IOException e) {
             server.getLogger().error("コンソール入力の処理中にエラーが発生しました", e);
@@ -34,6 +34,11 @@ public class CommandManager {
         registerCommand(new TimeCommand());
         registerCommand(new WeatherCommand());
         
+        // 中断された事前生成があれば再開
+        PregenCommand pregenCommand = new PregenCommand(server);
+        registerCommand(pregenCommand);
+        pregenCommand.resumeFromCheckpoints();
+        
         logger.info("デフォルトコマンドの登録が完了しました");
     }
     
@@ -55,6 +60,9 @@ public class CommandManager {
         
         String[] parts = commandLine.trim().split("\\s+");
         String commandName = parts[0].toLowerCase();
+        if (commandName.startsWith("/")) {
+            commandName = commandName.substring(1);
+        }
         String[] args = new String[parts.length - 1];
         System.arraycopy(parts, 1, args, 0, args.length);
         
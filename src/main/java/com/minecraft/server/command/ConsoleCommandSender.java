@@ -0,0 +1,41 @@
+package com.minecraft.server.command;
+
+import com.minecraft.server.util.Logger;
+
+/**
+ * サーバーコンソールからのコマンド送信者
+ */
+public class ConsoleCommandSender implements CommandSender {
+    
+    private final Logger logger;
+    
+    public ConsoleCommandSender() {
+        this.logger = new Logger("Console");
+    }
+    
+    @Override
+    public String getName() {
+        return "CONSOLE";
+    }
+    
+    @Override
+    public void sendMessage(String message) {
+        // 色コードはコンソールでは表示しない
+        logger.info(message.replaceAll("§.", ""));
+    }
+    
+    @Override
+    public boolean isPlayer() {
+        return false;
+    }
+    
+    @Override
+    public boolean isConsole() {
+        return true;
+    }
+    
+    @Override
+    public boolean hasPermission(String permission) {
+        return true;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,125 @@
+package com.minecraft.server.command;
+
+import com.minecraft.server.MinecraftServer;
+import com.minecraft.server.world.ChunkPregenerator;
+import com.minecraft.server.world.World;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * チャンクの事前生成コマンド
+ */
+public class PregenCommand implements Command {
+    
+    private static final int MAX_RADIUS = 2000;
+    
+    private final MinecraftServer server;
+    private final Map<String, ChunkPregenerator> tasks = new ConcurrentHashMap<>();
+    
+    public PregenCommand(MinecraftServer server) {
+        this.server = server;
+    }
+    
+    @Override
+    public String getName() {
+        return "pregen";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "ワールドのチャンクを事前に生成します";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "/pregen <ワールド> <半径> | /pregen <ワールド> cancel | /pregen";
+    }
+    
+    @Override
+    public String getPermission() {
+        return "server.pregen";
+    }
+    
+    @Override
+    public boolean execute(CommandSender sender, String[] args) {
+        if (args.length == 0) {
+            showStatus(sender);
+            return true;
+        }
+        if (args.length != 2) {
+            return false;
+        }
+        
+        World world = server.getWorldManager().getWorld(args[0]);
+        if (world == null) {
+            sender.sendMessage("§cワールドが見つかりません: " + args[0]);
+            return true;
+        }
+        
+        if (args[1].equalsIgnoreCase("cancel")) {
+            ChunkPregenerator task = tasks.remove(world.getName());
+            if (task == null || !task.isRunning()) {
+                sender.sendMessage("§cこのワールドでは事前生成を実行していません: " + world.getName());
+            } else {
+                task.cancel();
+                sender.sendMessage("§a事前生成を中止しました: " + world.getName());
+            }
+            return true;
+        }
+        
+        int radius;
+        try {
+            radius = Integer.parseInt(args[1]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (radius < 0 || radius > MAX_RADIUS) {
+            sender.sendMessage("§c半径は0から" + MAX_RADIUS + "の範囲で指定してください");
+            return true;
+        }
+        
+        ChunkPregenerator current = tasks.get(world.getName());
+        if (current != null && current.isRunning()) {
+            sender.sendMessage("§cこのワールドでは既に事前生成を実行中です: " + current.getStatus());
+            return true;
+        }
+        
+        // 同じ半径のチェックポイントがあれば続きから再開
+        ChunkPregenerator task = ChunkPregenerator.fromCheckpoint(world);
+        if (task == null || task.getRadius() != radius) {
+            task = new ChunkPregenerator(world, 0, 0, radius);
+        }
+        tasks.put(world.getName(), task);
+        task.start();
+        sender.sendMessage("§a事前生成を開始しました: " + world.getName() + " 半径 " + radius + "チャンク");
+        return true;
+    }
+    
+    /**
+     * チェックポイントが残っているワールドの事前生成を再開します
+     */
+    public void resumeFromCheckpoints() {
+        for (String name : server.getWorldManager().getWorldNames()) {
+            World world = server.getWorldManager().getWorld(name);
+            ChunkPregenerator task = world != null ? ChunkPregenerator.fromCheckpoint(world) : null;
+            if (task != null) {
+                tasks.put(name, task);
+                task.start();
+            }
+        }
+    }
+    
+    private void showStatus(CommandSender sender) {
+        boolean any = false;
+        for (ChunkPregenerator task : tasks.values()) {
+            if (task.isRunning()) {
+                sender.sendMessage("§f" + task.getStatus());
+                any = true;
+            }
+        }
+        if (!any) {
+            sender.sendMessage("§f実行中の事前生成はありません");
+        }
+    }
+} 
\ No newline at end of file
@@ -45,6 +45,7 @@ public class ServerConfig {
     private String levelType = "default";
     private String generatorSettings = "";
     private String worldType = "default";
+    private String additionalWorlds = ""; // 起動時に読み込む追加ワールド（カンマ区切り）
     
     private boolean allowFlight = false;
     private boolean allowNether = true;
@@ -57,8 +58,15 @@ public class ServerConfig {
     private int viewDistance = 10;
     private int simulationDistance = 8;
     private int maxTickTime = 60000;
-    private int networkCompressionThreshold = 256;
+    private int networkCompressionThreshold = 256; // 0未満で圧縮しない
+    private int networkCompressionLevel = -1; // 0〜9（-1で既定値）
+    private boolean useNativeTransport = true; // Linuxでepollを使用する
+    private int networkBossThreads = 0; // 接続の受け付け（0で自動）
+    private int networkWorkerThreads = 0; // 接続の読み書き（0でCPUコア数）
+    private int httpThreads = 1; // HTTPサーバー専用（受け付けと読み書きを兼ねる）
     private int maxWorldSize = 29999984;
+    private boolean regionThreading = false;
+    private int worldHibernateDelay = 300; // 秒（0以下で無効）
     
     private boolean enableStatus = true;
     private boolean enableQuery = false;
@@ -140,6 +148,7 @@ public class ServerConfig {
         levelType = getStringProperty("level-type", levelType);
         generatorSettings = getStringProperty("generator-settings", generatorSettings);
         worldType = getStringProperty("world-type", worldType);
+        additionalWorlds = getStringProperty("additional-worlds", additionalWorlds);
         
         allowFlight = getBooleanProperty("allow-flight", allowFlight);
         allowNether = getBooleanProperty("allow-nether", allowNether);
@@ -153,7 +162,14 @@ public class ServerConfig {
         simulationDistance = getIntProperty("simulation-distance", simulationDistance);
         maxTickTime = getIntProperty("max-tick-time", maxTickTime);
         networkCompressionThreshold = getIntProperty("network-compression-threshold", networkCompressionThreshold);
+        networkCompressionLevel = getIntProperty("network-compression-level", networkCompressionLevel);
+        useNativeTransport = getBooleanProperty("use-native-transport", useNativeTransport);
+        networkBossThreads = getIntProperty("network-boss-threads", networkBossThreads);
+        networkWorkerThreads = getIntProperty("network-worker-threads", networkWorkerThreads);
+        httpThreads = getIntProperty("http-threads", httpThreads);
         maxWorldSize = getIntProperty("max-world-size", maxWorldSize);
+        regionThreading = getBooleanProperty("region-threading", regionThreading);
+        worldHibernateDelay = getIntProperty("world-hibernate-delay", worldHibernateDelay);
         
         enableStatus = getBooleanProperty("enable-status", enableStatus);
         enableQuery = getBooleanProperty("enable-query", enableQuery);
@@ -197,6 +213,7 @@ public class ServerConfig {
         properties.setProperty("level-type", levelType);
         properties.setProperty("generator-settings", generatorSettings);
         properties.setProperty("world-type", worldType);
+        properties.setProperty("additional-worlds", additionalWorlds);
         
         properties.setProperty("allow-flight", String.valueOf(allowFlight));
         properties.setProperty("allow-nether", String.valueOf(allowNether));
@@ -210,7 +227,14 @@ public class ServerConfig {
         properties.setProperty("simulation-distance", String.valueOf(simulationDistance));
         properties.setProperty("max-tick-time", String.valueOf(maxTickTime));
         properties.setProperty("network-compression-threshold", String.valueOf(networkCompressionThreshold));
+        properties.setProperty("network-compression-level", String.valueOf(networkCompressionLevel));
+        properties.setProperty("use-native-transport", String.valueOf(useNativeTransport));
+        properties.setProperty("network-boss-threads", String.valueOf(networkBossThreads));
+        properties.setProperty("network-worker-threads", String.valueOf(networkWorkerThreads));
+        properties.setProperty("http-threads", String.valueOf(httpThreads));
         properties.setProperty("max-world-size", String.valueOf(maxWorldSize));
+        properties.setProperty("region-threading", String.valueOf(regionThreading));
+        properties.setProperty("world-hibernate-delay", String.valueOf(worldHibernateDelay));
         
         properties.setProperty("enable-status", String.valueOf(enableStatus));
         properties.setProperty("enable-query", String.valueOf(enableQuery));
@@ -351,6 +375,7 @@ public class ServerConfig {
     public String getLevelType() { return levelType; }
     public String getGeneratorSettings() { return generatorSettings; }
     public String getWorldType() { return worldType; }
+    public String getAdditionalWorlds() { return additionalWorlds; }
     public boolean isAllowFlight() { return allowFlight; }
     public boolean isAllowNether() { return allowNether; }
     public boolean isEnableCommandBlock() { return enableCommandBlock; }
@@ -362,7 +387,14 @@ public class ServerConfig {
     public int getSimulationDistance() { return simulationDistance; }
     public int getMaxTickTime() { return maxTickTime; }
     public int getNetworkCompressionThreshold() { return networkCompressionThreshold; }
+    public int getNetworkCompressionLevel() { return networkCompressionLevel; }
+    public boolean isUseNativeTransport() { return useNativeTransport; }
+    public int getNetworkBossThreads() { return networkBossThreads; }
+    public int getNetworkWorkerThreads() { return networkWorkerThreads; }
+    public int getHttpThreads() { return httpThreads; }
     public int getMaxWorldSize() { return maxWorldSize; }
+    public boolean isRegionThreading() { return regionThreading; }
+    public int getWorldHibernateDelay() { return worldHibernateDelay; }
     public boolean isEnableStatus() { return enableStatus; }
     public boolean isEnableQuery() { return enableQuery; }
     public int getQueryPort() { return queryPort; }
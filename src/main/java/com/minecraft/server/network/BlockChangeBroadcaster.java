@@ -0,0 +1,56 @@
+package com.minecraft.server.network;
+
+import com.minecraft.server.player.Player;
+import com.minecraft.server.world.BlockChangeListener;
+import com.minecraft.server.world.Chunk;
+import com.minecraft.server.world.SpatialIndex;
+import com.minecraft.server.world.World;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * ブロックの変更を、そのチャンクを表示しているプレイヤーへ送信するリスナー
+ *
+ * 変更はセクションごとに1つのパケットへエンコードし、送信先のプレイヤー全員で
+ * 同じバッファを共有します。
+ */
+public class BlockChangeBroadcaster implements BlockChangeListener {
+    
+    private final World world;
+    private final ByteBufAllocator allocator;
+    
+    public BlockChangeBroadcaster(World world, ByteBufAllocator allocator) {
+        this.world = world;
+        this.allocator = allocator;
+    }
+    
+    @Override
+    public void onSectionChanged(Chunk chunk, int sectionY, short[] positions, int[] blockIds, int count) {
+        SpatialIndex<Player> players = world.getPlayerIndex();
+        if (players.size() == 0) {
+            return;
+        }
+        
+        // 表示距離内のチャンク列にいるプレイヤーへ送信
+        int viewDistance = world.getServer().getConfig().getViewDistance();
+        double minX = (chunk.getChunkX() - viewDistance) << 4;
+        double minZ = (chunk.getChunkZ() - viewDistance) << 4;
+        double maxX = ((chunk.getChunkX() + viewDistance + 1) << 4) - 0.000001;
+        double maxZ = ((chunk.getChunkZ() + viewDistance + 1) << 4) - 0.000001;
+        ByteBuf[] packet = new ByteBuf[1];
+        try {
+            players.forEachInBox(minX, Double.NEGATIVE_INFINITY, minZ, maxX, Double.POSITIVE_INFINITY, maxZ, player -> {
+                if (packet[0] == null) {
+                    packet[0] = allocator.buffer(16 + count * 4);
+                    SectionBlocksUpdatePacket.write(packet[0], chunk.getChunkX(), sectionY, chunk.getChunkZ(),
+                            positions, blockIds, count);
+                }
+                player.sendPacket(packet[0].retainedDuplicate());
+            });
+        } finally {
+            if (packet[0] != null) {
+                packet[0].release();
+            }
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,187 @@
+package com.minecraft.server.network;
+
+import com.minecraft.server.world.Chunk;
+import com.minecraft.server.world.ChunkSection;
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * チャンクデータパケット（Chunk Data and Update Light）を作成するクラス
+ *
+ * セクションのパレットとデータ配列は保存形式と同じ（エントリがlongをまたがない）ため、
+ * そのまま書き込みます。ブロックIDはサーバー内部のIDをそのまま送信します。
+ *
+ * 光源は空の光だけを送信し、列の高さ（{@link Chunk#getHeight(int, int)}）以上を15、
+ * 未満を0とします。ブロックの光源は送信しません。
+ */
+public final class ChunkDataPacket {
+    
+    public static final int PACKET_ID = 0x24;
+    
+    // NBTタグ
+    private static final byte TAG_END = 0;
+    private static final byte TAG_LONG_ARRAY = 12;
+    private static final byte TAG_COMPOUND = 10;
+    
+    // ハイトマップは高さ+1を表せるビット数で格納
+    private static final int HEIGHTMAP_BITS = 32 - Integer.numberOfLeadingZeros(Chunk.HEIGHT);
+    private static final int HEIGHTMAP_VALUES_PER_LONG = 64 / HEIGHTMAP_BITS;
+    private static final int HEIGHTMAP_LONGS = (256 + HEIGHTMAP_VALUES_PER_LONG - 1) / HEIGHTMAP_VALUES_PER_LONG;
+    
+    private static final byte[] MOTION_BLOCKING = "MOTION_BLOCKING".getBytes(StandardCharsets.UTF_8);
+    
+    // 光源のセクション数（ワールドの上下に1つずつ追加される）と、1セクション分の光源の配列の大きさ
+    private static final int LIGHT_SECTION_COUNT = Chunk.SECTION_COUNT + 2;
+    private static final int LIGHT_ARRAY_SIZE = ChunkSection.VOLUME / 2;
+    
+    private ChunkDataPacket() {
+    }
+    
+    /**
+     * パケットID以降の内容をバッファへ書き込みます（ティックスレッドから呼び出すこと）
+     */
+    public static void write(ByteBuf buf, Chunk chunk) {
+        ProtocolUtils.writeVarInt(buf, PACKET_ID);
+        buf.writeInt(chunk.getChunkX());
+        buf.writeInt(chunk.getChunkZ());
+        
+        int[] heights = new int[256];
+        for (int column = 0; column < 256; column++) {
+            heights[column] = chunk.getHeight(column & 15, column >> 4);
+        }
+        writeHeightmaps(buf, heights);
+        
+        // セクションデータ（長さを後から埋める）
+        int lengthIndex = buf.writerIndex();
+        buf.writeMedium(0);
+        int dataStart = buf.writerIndex();
+        for (int sectionY = 0; sectionY < Chunk.SECTION_COUNT; sectionY++) {
+            writeSection(buf, chunk.getSection(sectionY));
+        }
+        int dataLength = buf.writerIndex() - dataStart;
+        setFixedVarInt(buf, lengthIndex, dataLength);
+        
+        // ブロックエンティティ
+        ProtocolUtils.writeVarInt(buf, 0);
+        
+        writeLight(buf, heights);
+    }
+    
+    /**
+     * 光源データを書き込みます（すべて0のセクションは配列を省略して空のマスクに含める）
+     */
+    private static void writeLight(ByteBuf buf, int[] heights) {
+        int minHeight = Chunk.HEIGHT;
+        for (int height : heights) {
+            minHeight = Math.min(minHeight, height);
+        }
+        
+        long skyMask = 0;
+        long emptySkyMask = 0;
+        for (int lightY = 0; lightY < LIGHT_SECTION_COUNT; lightY++) {
+            // セクションの最上段まで列の高さより下であれば、空の光は届かない
+            int top = (lightY - 1) * ChunkSection.SIZE + ChunkSection.SIZE - 1;
+            if (top < minHeight) {
+                emptySkyMask |= 1L << lightY;
+            } else {
+                skyMask |= 1L << lightY;
+            }
+        }
+        
+        writeBitSet(buf, skyMask); // Sky Light Mask
+        writeBitSet(buf, 0); // Block Light Mask
+        writeBitSet(buf, emptySkyMask); // Empty Sky Light Mask
+        writeBitSet(buf, 0); // Empty Block Light Mask
+        
+        ProtocolUtils.writeVarInt(buf, Long.bitCount(skyMask)); // Sky Light arrays
+        for (int lightY = 0; lightY < LIGHT_SECTION_COUNT; lightY++) {
+            if ((skyMask & (1L << lightY)) == 0) {
+                continue;
+            }
+            int baseY = (lightY - 1) * ChunkSection.SIZE;
+            ProtocolUtils.writeVarInt(buf, LIGHT_ARRAY_SIZE);
+            for (int index = 0; index < ChunkSection.VOLUME; index += 2) {
+                // 1バイトに2ブロック分（下位4ビットが偶数番目）
+                int low = baseY + (index >> 8) >= heights[index & 255] ? 15 : 0;
+                int high = baseY + ((index + 1) >> 8) >= heights[(index + 1) & 255] ? 15 : 0;
+                buf.writeByte(low | high << 4);
+            }
+        }
+        ProtocolUtils.writeVarInt(buf, 0); // Block Light arrays
+    }
+    
+    private static void writeBitSet(ByteBuf buf, long bits) {
+        if (bits == 0) {
+            ProtocolUtils.writeVarInt(buf, 0);
+            return;
+        }
+        ProtocolUtils.writeVarInt(buf, 1);
+        buf.writeLong(bits);
+    }
+    
+    /**
+     * 3バイト固定長のVarIntを書き込みます（後から長さを埋めるため）
+     */
+    private static void setFixedVarInt(ByteBuf buf, int index, int value) {
+        if (value >= 1 << 21) {
+            throw new IllegalArgumentException("Chunk data is too large: " + value);
+        }
+        buf.setByte(index, (value & 0x7F) | 0x80);
+        buf.setByte(index + 1, ((value >>> 7) & 0x7F) | 0x80);
+        buf.setByte(index + 2, value >>> 14);
+    }
+    
+    private static void writeHeightmaps(ByteBuf buf, int[] columnHeights) {
+        long[] heights = new long[HEIGHTMAP_LONGS];
+        for (int column = 0; column < 256; column++) {
+            int shift = (column % HEIGHTMAP_VALUES_PER_LONG) * HEIGHTMAP_BITS;
+            heights[column / HEIGHTMAP_VALUES_PER_LONG] |= (long) columnHeights[column] << shift;
+        }
+        
+        buf.writeByte(TAG_COMPOUND);
+        buf.writeShort(0); // ルートの名前
+        buf.writeByte(TAG_LONG_ARRAY);
+        buf.writeShort(MOTION_BLOCKING.length);
+        buf.writeBytes(MOTION_BLOCKING);
+        buf.writeInt(heights.length);
+        for (long value : heights) {
+            buf.writeLong(value);
+        }
+        buf.writeByte(TAG_END);
+    }
+    
+    private static void writeSection(ByteBuf buf, ChunkSection section) {
+        if (section == null) {
+            buf.writeShort(0);
+            writeSingleValue(buf, ChunkSection.AIR);
+        } else {
+            buf.writeShort(section.getNonAirBlockCount());
+            if (section.isSingleValue()) {
+                writeSingleValue(buf, section.get(0));
+            } else {
+                buf.writeByte(section.getBitsPerEntry());
+                if (!section.isGlobalPalette()) {
+                    ProtocolUtils.writeVarInt(buf, section.getPaletteSize());
+                    for (int i = 0; i < section.getPaletteSize(); i++) {
+                        ProtocolUtils.writeVarInt(buf, section.getPaletteEntry(i));
+                    }
+                }
+                long[] data = section.getData();
+                ProtocolUtils.writeVarInt(buf, data.length);
+                for (long value : data) {
+                    buf.writeLong(value);
+                }
+            }
+        }
+        
+        // バイオーム（単一値）
+        writeSingleValue(buf, 0);
+    }
+    
+    private static void writeSingleValue(ByteBuf buf, int value) {
+        buf.writeByte(0);
+        ProtocolUtils.writeVarInt(buf, value);
+        ProtocolUtils.writeVarInt(buf, 0);
+    }
+} 
\ No newline at end of file
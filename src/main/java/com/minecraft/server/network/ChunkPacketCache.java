@@ -0,0 +1,117 @@
+package com.minecraft.server.network;
+
+import com.minecraft.server.world.Chunk;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * エンコード済みのチャンクデータパケットを共有するキャッシュ
+ *
+ * パケットはチャンクの版数とともに{@link SharedPacket}として保持し、版数が変わるまで
+ * 再エンコードしません。同じチャンクを見る複数のプレイヤーには同じパケットを共有し、
+ * フレーム長の付加と圧縮も版数ごとに1回だけ行うため、送信先ごとのコピーや再圧縮は発生しません
+ * （暗号化する接続では、暗号化のために送信先ごとにコピーします）。
+ */
+public class ChunkPacketCache {
+    
+    // アンロード済みチャンクの掃除を行うエントリ数の目安
+    private static final int SWEEP_THRESHOLD = 4096;
+    
+    private final ByteBufAllocator allocator;
+    private final Map<Chunk, CachedPacket> packets = new ConcurrentHashMap<>();
+    private volatile int sweepThreshold = SWEEP_THRESHOLD;
+    
+    public ChunkPacketCache(ByteBufAllocator allocator) {
+        this.allocator = allocator;
+    }
+    
+    /**
+     * チャンクデータパケットを取得します（チャンクを持つワールドのティックスレッドから呼び出すこと）
+     * 戻り値は呼び出し側が所有するため、送信するか{@link SharedPacket#release()}してください。
+     */
+    public SharedPacket get(Chunk chunk) {
+        long version = chunk.getVersion();
+        CachedPacket cached = packets.get(chunk);
+        if (cached != null && cached.version == version) {
+            return cached.packet.retain();
+        }
+        
+        ByteBuf encoded = VarIntFrameEncoder.reserveHeader(allocator.directBuffer());
+        try {
+            ChunkDataPacket.write(encoded, chunk);
+        } catch (RuntimeException e) {
+            encoded.release();
+            throw e;
+        }
+        SharedPacket packet = new SharedPacket(encoded);
+        
+        CachedPacket previous = packets.put(chunk, new CachedPacket(version, packet));
+        if (previous != null) {
+            previous.packet.release();
+        }
+        if (packets.size() > sweepThreshold) {
+            sweep();
+        }
+        return packet.retain();
+    }
+    
+    /**
+     * チャンクのパケットを破棄します
+     */
+    public void invalidate(Chunk chunk) {
+        CachedPacket removed = packets.remove(chunk);
+        if (removed != null) {
+            removed.packet.release();
+        }
+    }
+    
+    /**
+     * アンロードされたチャンクのパケットを破棄します
+     */
+    public void sweep() {
+        // 複数のワールドのティックスレッドから同時に呼ばれ得るため、削除できた場合だけ解放する
+        for (Map.Entry<Chunk, CachedPacket> entry : packets.entrySet()) {
+            if (!entry.getKey().isLoaded() && packets.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().packet.release();
+            }
+        }
+        // 読み込み済みチャンクが多い場合に毎回掃除しないよう閾値を調整
+        sweepThreshold = Math.max(SWEEP_THRESHOLD, packets.size() * 2);
+    }
+    
+    /**
+     * すべてのパケットを破棄します
+     */
+    public void clear() {
+        Iterator<CachedPacket> iterator = packets.values().iterator();
+        while (iterator.hasNext()) {
+            CachedPacket packet = iterator.next();
+            iterator.remove();
+            packet.packet.release();
+        }
+    }
+    
+    /**
+     * キャッシュしているパケット数を取得します
+     */
+    public int size() {
+        return packets.size();
+    }
+    
+    /**
+     * キャッシュしたパケットと、エンコード時のチャンクの版数
+     */
+    private static final class CachedPacket {
+        final long version;
+        final SharedPacket packet;
+        
+        CachedPacket(long version, SharedPacket packet) {
+            this.version = version;
+            this.packet = packet;
+        }
+    }
+} 
\ No newline at end of file
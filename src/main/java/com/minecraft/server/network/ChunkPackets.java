@@ -0,0 +1,35 @@
+package com.minecraft.server.network;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * チャンクの表示範囲に関するパケットを作成するクラス
+ *
+ * チャンクデータ本体は{@link ChunkDataPacket}で作成します。
+ */
+public final class ChunkPackets {
+    
+    public static final int UNLOAD_CHUNK = 0x1E;
+    public static final int SET_CENTER_CHUNK = 0x4E;
+    
+    private ChunkPackets() {
+    }
+    
+    /**
+     * チャンクのアンロードパケットを書き込みます
+     */
+    public static void writeUnloadChunk(ByteBuf buf, int chunkX, int chunkZ) {
+        ProtocolUtils.writeVarInt(buf, UNLOAD_CHUNK);
+        buf.writeInt(chunkX);
+        buf.writeInt(chunkZ);
+    }
+    
+    /**
+     * 表示範囲の中心チャンクの設定パケットを書き込みます
+     */
+    public static void writeSetCenterChunk(ByteBuf buf, int chunkX, int chunkZ) {
+        ProtocolUtils.writeVarInt(buf, SET_CENTER_CHUNK);
+        ProtocolUtils.writeVarInt(buf, chunkX);
+        ProtocolUtils.writeVarInt(buf, chunkZ);
+    }
+} 
\ No newline at end of file
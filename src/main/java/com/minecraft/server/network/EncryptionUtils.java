@@ -0,0 +1,71 @@
+package com.minecraft.server.network;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+/**
+ * オンラインモードのログインで使う暗号処理のユーティリティクラス
+ */
+public final class EncryptionUtils {
+    
+    private static final int RSA_KEY_SIZE = 1024;
+    
+    private EncryptionUtils() {
+    }
+    
+    /**
+     * 鍵交換用のRSA鍵ペアを生成します
+     */
+    public static KeyPair generateKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(RSA_KEY_SIZE);
+        return generator.generateKeyPair();
+    }
+    
+    /**
+     * クライアントがサーバーの公開鍵で暗号化したデータを復号します
+     */
+    public static byte[] decryptRsa(PrivateKey key, byte[] data) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
+        cipher.init(Cipher.DECRYPT_MODE, key);
+        return cipher.doFinal(data);
+    }
+    
+    /**
+     * 共有鍵からAESの鍵を作成します
+     */
+    public static SecretKey createSharedKey(byte[] sharedSecret) {
+        return new SecretKeySpec(sharedSecret, "AES");
+    }
+    
+    /**
+     * 通信用のAES/CFB8暗号を作成します（IVは共有鍵と同じ値）
+     */
+    public static Cipher createCipher(int mode, SecretKey key) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/CFB8/NoPadding");
+        cipher.init(mode, key, new IvParameterSpec(key.getEncoded()));
+        return cipher;
+    }
+    
+    /**
+     * セッションサーバーへ送るサーバーハッシュを計算します
+     * SHA-1ダイジェストを符号付きの整数として16進数で表した値です（負の場合は先頭に"-"が付きます）。
+     */
+    public static String serverHash(String serverId, PublicKey publicKey, SecretKey sharedKey) throws GeneralSecurityException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        digest.update(serverId.getBytes(StandardCharsets.ISO_8859_1));
+        digest.update(sharedKey.getEncoded());
+        digest.update(publicKey.getEncoded());
+        return new BigInteger(digest.digest()).toString(16);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.minecraft.server.network;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.UUID;
+
+/**
+ * エンティティの表示・移動に関するパケットを作成するクラス
+ *
+ * 位置の差分は1/4096ブロック単位のshortで送信するため、1回の移動が
+ * {@link #MAX_RELATIVE_MOVE}を超える場合はテレポートパケットを使用します。
+ */
+public final class EntityPackets {
+    
+    public static final int SPAWN_PLAYER = 0x03;
+    public static final int UPDATE_POSITION = 0x2B;
+    public static final int UPDATE_POSITION_ROTATION = 0x2C;
+    public static final int UPDATE_ROTATION = 0x2D;
+    public static final int REMOVE_ENTITIES = 0x3E;
+    public static final int HEAD_ROTATION = 0x42;
+    public static final int TELEPORT = 0x68;
+    
+    /** 差分パケットで送信できる1回の移動量（1/4096ブロック単位） */
+    public static final long MAX_RELATIVE_MOVE = Short.MAX_VALUE;
+    
+    private EntityPackets() {
+    }
+    
+    /**
+     * 座標を差分パケット用の固定小数点数（1/4096ブロック単位）に変換します
+     */
+    public static long encodePosition(double value) {
+        return Math.round(value * 4096.0);
+    }
+    
+    /**
+     * 角度を1/256回転単位のバイトに変換します
+     */
+    public static byte encodeAngle(float degrees) {
+        return (byte) Math.floor(degrees * 256.0f / 360.0f);
+    }
+    
+    /**
+     * プレイヤーの出現パケットを書き込みます
+     */
+    public static void writeSpawnPlayer(ByteBuf buf, int entityId, UUID uuid, double x, double y, double z,
+                                        byte yaw, byte pitch) {
+        ProtocolUtils.writeVarInt(buf, SPAWN_PLAYER);
+        ProtocolUtils.writeVarInt(buf, entityId);
+        writeUuid(buf, uuid);
+        buf.writeDouble(x);
+        buf.writeDouble(y);
+        buf.writeDouble(z);
+        buf.writeByte(yaw);
+        buf.writeByte(pitch);
+    }
+    
+    /**
+     * エンティティの削除パケットを書き込みます（先頭count個のID）
+     */
+    public static void writeRemoveEntities(ByteBuf buf, int[] entityIds, int count) {
+        ProtocolUtils.writeVarInt(buf, REMOVE_ENTITIES);
+        ProtocolUtils.writeVarInt(buf, count);
+        for (int i = 0; i < count; i++) {
+            ProtocolUtils.writeVarInt(buf, entityIds[i]);
+        }
+    }
+    
+    /**
+     * 位置の差分パケットを書き込みます
+     */
+    public static void writeUpdatePosition(ByteBuf buf, int entityId, int dx, int dy, int dz, boolean onGround) {
+        ProtocolUtils.writeVarInt(buf, UPDATE_POSITION);
+        ProtocolUtils.writeVarInt(buf, entityId);
+        buf.writeShort(dx);
+        buf.writeShort(dy);
+        buf.writeShort(dz);
+        buf.writeBoolean(onGround);
+    }
+    
+    /**
+     * 位置の差分と回転のパケットを書き込みます
+     */
+    public static void writeUpdatePositionRotation(ByteBuf buf, int entityId, int dx, int dy, int dz,
+                                                   byte yaw, byte pitch, boolean onGround) {
+        ProtocolUtils.writeVarInt(buf, UPDATE_POSITION_ROTATION);
+        ProtocolUtils.writeVarInt(buf, entityId);
+        buf.writeShort(dx);
+        buf.writeShort(dy);
+        buf.writeShort(dz);
+        buf.writeByte(yaw);
+        buf.writeByte(pitch);
+        buf.writeBoolean(onGround);
+    }
+    
+    /**
+     * 回転のパケットを書き込みます
+     */
+    public static void writeUpdateRotation(ByteBuf buf, int entityId, byte yaw, byte pitch, boolean onGround) {
+        ProtocolUtils.writeVarInt(buf, UPDATE_ROTATION);
+        ProtocolUtils.writeVarInt(buf, entityId);
+        buf.writeByte(yaw);
+        buf.writeByte(pitch);
+        buf.writeBoolean(onGround);
+    }
+    
+    /**
+     * 頭の向きのパケットを書き込みます
+     */
+    public static void writeHeadRotation(ByteBuf buf, int entityId, byte headYaw) {
+        ProtocolUtils.writeVarInt(buf, HEAD_ROTATION);
+        ProtocolUtils.writeVarInt(buf, entityId);
+        buf.writeByte(headYaw);
+    }
+    
+    /**
+     * テレポートパケット（絶対位置）を書き込みます
+     */
+    public static void writeTeleport(ByteBuf buf, int entityId, double x, double y, double z,
+                                     byte yaw, byte pitch, boolean onGround) {
+        ProtocolUtils.writeVarInt(buf, TELEPORT);
+        ProtocolUtils.writeVarInt(buf, entityId);
+        buf.writeDouble(x);
+        buf.writeDouble(y);
+        buf.writeDouble(z);
+        buf.writeByte(yaw);
+        buf.writeByte(pitch);
+        buf.writeBoolean(onGround);
+    }
+    
+    private static void writeUuid(ByteBuf buf, UUID uuid) {
+        buf.writeLong(uuid.getMostSignificantBits());
+        buf.writeLong(uuid.getLeastSignificantBits());
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,98 @@
+package com.minecraft.server.network;
+
+import com.minecraft.server.config.ServerConfig;
+import com.minecraft.server.util.Logger;
+import io.netty.channel.EventLoopGroup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ゲームサーバーとHTTPサーバーで共有するイベントループ
+ *
+ * {@link com.minecraft.server.MinecraftServer}が1つだけ作成して所有し、各サーバーは
+ * 停止時にもグループをシャットダウンしません。スレッド数は{@link ServerConfig}で設定でき、
+ * HTTPのヘルスチェックはゲームの通信と競合しないよう小さな専用グループで処理します。
+ */
+public final class EventLoops {
+    
+    private static final int MAX_ACCEPT_THREADS = 4;
+    
+    private final Logger logger;
+    private final NetworkTransport transport;
+    private final EventLoopGroup bossGroup;
+    private final EventLoopGroup workerGroup;
+    private final EventLoopGroup httpGroup;
+    private final int acceptThreads;
+    
+    public EventLoops(ServerConfig config) {
+        this.logger = new Logger("EventLoops");
+        this.transport = NetworkTransport.select(config.isUseNativeTransport(), logger);
+        int processors = Runtime.getRuntime().availableProcessors();
+        
+        // 複数のスレッドで受け付けられるのはSO_REUSEPORTで複数回バインドできる場合のみ
+        int bossThreads = config.getNetworkBossThreads();
+        if (!transport.supportsReusePort()) {
+            bossThreads = 1;
+        } else if (bossThreads <= 0) {
+            bossThreads = Math.max(1, Math.min(MAX_ACCEPT_THREADS, processors / 2));
+        }
+        int workerThreads = config.getNetworkWorkerThreads() > 0 ? config.getNetworkWorkerThreads() : processors;
+        int httpThreads = Math.max(1, config.getHttpThreads());
+        
+        this.acceptThreads = bossThreads;
+        this.bossGroup = transport.createEventLoopGroup(bossThreads, "Netty-Boss");
+        this.workerGroup = transport.createEventLoopGroup(workerThreads, "Netty-Worker");
+        this.httpGroup = transport.createEventLoopGroup(httpThreads, "Http");
+        
+        logger.info("イベントループを作成しました (" + transport + ", 受け付け: " + bossThreads
+                + ", 読み書き: " + workerThreads + ", HTTP: " + httpThreads + ")");
+    }
+    
+    public NetworkTransport getTransport() {
+        return transport;
+    }
+    
+    /**
+     * ゲームポートの接続を受け付けるグループを取得します
+     */
+    public EventLoopGroup getBossGroup() {
+        return bossGroup;
+    }
+    
+    /**
+     * ゲームの接続の読み書きを行うグループを取得します
+     */
+    public EventLoopGroup getWorkerGroup() {
+        return workerGroup;
+    }
+    
+    /**
+     * HTTPサーバー用のグループを取得します（受け付けと読み書きを兼ねる）
+     */
+    public EventLoopGroup getHttpGroup() {
+        return httpGroup;
+    }
+    
+    /**
+     * ゲームポートにバインドする回数（受け付けスレッド数）を取得します
+     */
+    public int getAcceptThreads() {
+        return acceptThreads;
+    }
+    
+    /**
+     * すべてのグループをシャットダウンし、完了を待機します（両方のサーバーを停止した後に呼び出します）
+     */
+    public void shutdown() {
+        bossGroup.shutdownGracefully();
+        workerGroup.shutdownGracefully();
+        httpGroup.shutdownGracefully();
+        try {
+            bossGroup.awaitTermination(5, TimeUnit.SECONDS);
+            workerGroup.awaitTermination(5, TimeUnit.SECONDS);
+            httpGroup.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+} 
\ No newline at end of file
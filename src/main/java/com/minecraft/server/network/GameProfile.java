@@ -0,0 +1,74 @@
+package com.minecraft.server.network;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 認証されたプレイヤーのプロフィール（UUID・名前・スキンなどのプロパティ）
+ */
+public class GameProfile {
+    
+    private final UUID uuid;
+    private final String name;
+    private final List<Property> properties;
+    
+    public GameProfile(UUID uuid, String name) {
+        this(uuid, name, Collections.emptyList());
+    }
+    
+    public GameProfile(UUID uuid, String name, List<Property> properties) {
+        this.uuid = uuid;
+        this.name = name;
+        this.properties = List.copyOf(properties);
+    }
+    
+    /**
+     * オフラインモードのプロフィールを作成します（UUIDは名前から決まります）
+     */
+    public static GameProfile offline(String name) {
+        UUID uuid = UUID.nameUUIDFromBytes(("OfflinePlayer:" + name).getBytes(StandardCharsets.UTF_8));
+        return new GameProfile(uuid, name);
+    }
+    
+    public UUID getUuid() {
+        return uuid;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public List<Property> getProperties() {
+        return properties;
+    }
+    
+    /**
+     * プロフィールのプロパティ（署名はない場合null）
+     */
+    public static class Property {
+        
+        private final String name;
+        private final String value;
+        private final String signature;
+        
+        public Property(String name, String value, String signature) {
+            this.name = name;
+            this.value = value;
+            this.signature = signature;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public String getValue() {
+            return value;
+        }
+        
+        public String getSignature() {
+            return signature;
+        }
+    }
+} 
\ No newline at end of file
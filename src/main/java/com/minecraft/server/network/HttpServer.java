@@ -4,9 +4,7 @@ import com.minecraft.server.MinecraftServer;
 import com.minecraft.server.util.Logger;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
@@ -20,16 +18,12 @@ public class HttpServer {
     
     private final MinecraftServer server;
     private final Logger logger;
-    private final EventLoopGroup bossGroup;
-    private final EventLoopGroup workerGroup;
     private Channel serverChannel;
     private volatile boolean running = false;
     
     public HttpServer(MinecraftServer server) {
         this.server = server;
         this.logger = new Logger("HttpServer");
-        this.bossGroup = new NioEventLoopGroup(1);
-        this.workerGroup = new NioEventLoopGroup();
     }
     
     /**
@@ -44,9 +38,13 @@ public class HttpServer {
         try {
             int port = 8080; // Render用のヘルスチェックポート
             
+            // ゲームの通信と競合しないよう、共有のイベントループのうちHTTP専用の小さなグループを使う
+            EventLoops eventLoops = server.getEventLoops();
+            NetworkTransport transport = eventLoops.getTransport();
+            
             ServerBootstrap bootstrap = new ServerBootstrap();
-            bootstrap.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
+            bootstrap.group(eventLoops.getHttpGroup())
+                    .channel(transport.getServerChannelClass())
                     .childHandler(new ChannelInitializer<SocketChannel>() {
                         @Override
                         protected void initChannel(SocketChannel ch) throws Exception {
@@ -62,6 +60,7 @@ public class HttpServer {
                     })
                     .option(ChannelOption.SO_BACKLOG, 128)
                     .childOption(ChannelOption.SO_KEEPALIVE, true);
+            transport.configure(bootstrap, 1);
             
             ChannelFuture future = bootstrap.bind(port);
             serverChannel = future.sync().channel();
@@ -91,14 +90,6 @@ public class HttpServer {
                 serverChannel.close().sync();
             }
             
-            // EventLoopGroupをシャットダウン
-            bossGroup.shutdownGracefully();
-            workerGroup.shutdownGracefully();
-            
-            // シャットダウンの完了を待機
-            bossGroup.awaitTermination(5, java.util.concurrent.TimeUnit.SECONDS);
-            workerGroup.awaitTermination(5, java.util.concurrent.TimeUnit.SECONDS);
-            
             logger.info("HTTPサーバーが停止しました");
             
         } catch (Exception e) {
@@ -120,6 +111,13 @@ public class HttpServer {
         try {
             // ダミーのMinecraftServerインスタンスを作成
             MinecraftServer dummyServer = new MinecraftServer() {
+                private final EventLoops eventLoops = new EventLoops(getConfig());
+                
+                @Override
+                public EventLoops getEventLoops() {
+                    return eventLoops;
+                }
+                
                 @Override
                 public String getVersion() {
                     return "1.0.0";
@@ -127,7 +125,7 @@ public class HttpServer {
                 
                 @Override
                 public com.minecraft.server.player.PlayerManager getPlayerManager() {
-                    return new com.minecraft.server.player.PlayerManager() {
+                    return new com.minecraft.server.player.PlayerManager(this) {
                         @Override
                         public int getOnlinePlayerCount() {
                             return 0;
@@ -194,8 +192,10 @@ public class HttpServer {
         }
         
         private io.netty.buffer.ByteBuf createResponseContent() {
+            // 起動中もプロセスは応答するため、ゲームポートを開くまでは"starting"を返す
             String json = String.format(
-                "{\"status\":\"online\",\"version\":\"%s\",\"players\":%d,\"max_players\":%d,\"motd\":\"%s\"}",
+                "{\"status\":\"%s\",\"version\":\"%s\",\"players\":%d,\"max_players\":%d,\"motd\":\"%s\"}",
+                server.isReady() ? "online" : "starting",
                 server.getVersion(),
                 server.getPlayerManager().getOnlinePlayerCount(),
                 server.getConfig().getMaxPlayers(),
@@ -1,24 +1,43 @@
 package com.minecraft.server.network;
 
 import com.minecraft.server.MinecraftServer;
+import com.minecraft.server.player.Player;
+import com.minecraft.server.player.PlayerManager;
 import com.minecraft.server.util.Logger;
+import com.google.gson.JsonObject;
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.DecoderException;
 import io.netty.handler.timeout.ReadTimeoutException;
 
+import javax.crypto.SecretKey;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
 
 /**
  * Minecraftプロトコルのパケットを処理するハンドラー
  */
 public class MinecraftPacketHandler extends SimpleChannelInboundHandler<ByteBuf> {
     
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int VERIFY_TOKEN_LENGTH = 4;
+    private static final int MAX_ENCRYPTED_LENGTH = 256; // 1024ビットRSAで暗号化したデータの長さの上限
+    
     private final MinecraftServer server;
     private final Logger logger;
     private final ConnectionState connectionState;
     private String clientAddress;
     
+    // ログイン中の状態（イベントループのスレッド専用）
+    private String username;
+    private byte[] verifyToken;
+    private Player player; // ログイン完了後のプレイヤー
+    
     public MinecraftPacketHandler(MinecraftServer server) {
         this.server = server;
         this.logger = new Logger("PacketHandler");
@@ -43,7 +62,10 @@ public class MinecraftPacketHandler extends SimpleChannelInboundHandler<ByteBuf>
         logger.info("クライアントが切断しました: " + clientAddress);
         
         // プレイヤーをサーバーから削除
-        // TODO: プレイヤーマネージャーでプレイヤーを削除
+        if (player != null) {
+            server.getPlayerManager().removePlayer(player.getUuid());
+            player = null;
+        }
         
         super.channelInactive(ctx);
     }
@@ -52,7 +74,7 @@ public class MinecraftPacketHandler extends SimpleChannelInboundHandler<ByteBuf>
     protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
         try {
             // パケットIDを読み取り
-            int packetId = readVarInt(msg);
+            int packetId = ProtocolUtils.readVarInt(msg);
             
             // 現在の状態に基づいてパケットを処理
             switch (connectionState.getState()) {
@@ -94,10 +116,10 @@ public class MinecraftPacketHandler extends SimpleChannelInboundHandler<ByteBuf>
      */
     private void handleHandshakePacket(ChannelHandlerContext ctx, int packetId, ByteBuf msg) {
         if (packetId == 0x00) { // Handshake packet
-            int protocolVersion = readVarInt(msg);
-            String serverAddress = readString(msg);
+            int protocolVersion = ProtocolUtils.readVarInt(msg);
+            String serverAddress = ProtocolUtils.readString(msg);
             int serverPort = msg.readUnsignedShort();
-            int nextState = readVarInt(msg);
+            int nextState = ProtocolUtils.readVarInt(msg);
             
             logger.debug("ハンドシェイク - プロトコル: " + protocolVersion + 
                         ", アドレス: " + serverAddress + ":" + serverPort + 
@@ -135,27 +157,91 @@ public class MinecraftPacketHandler extends SimpleChannelInboundHandler<ByteBuf>
     
     /**
      * ログインパケットを処理します
+     * オンラインモードでは暗号化要求を送り、暗号化応答で鍵を交換してセッションを検証してからログインを完了します。
      */
-    private void handleLoginPacket(ChannelHandlerContext ctx, int packetId, ByteBuf msg) {
-        if (packetId == 0x00) { // Login Start packet
-            String username = readString(msg);
+    private void handleLoginPacket(ChannelHandlerContext ctx, int packetId, ByteBuf msg) throws Exception {
+        if (packetId == 0x00 && username == null) { // Login Start packet
+            username = ProtocolUtils.readString(msg);
             logger.info("ログイン開始: " + username + " (" + clientAddress + ")");
             
-            // TODO: 認証処理
-            // 現在はオフラインモードで処理
+            KeyPair keyPair = server.getNetworkManager().getKeyPair();
+            if (server.getConfig().isOnlineMode() && keyPair != null) {
+                verifyToken = new byte[VERIFY_TOKEN_LENGTH];
+                RANDOM.nextBytes(verifyToken);
+                sendEncryptionRequest(ctx, keyPair.getPublic().getEncoded(), verifyToken);
+            } else {
+                finishLogin(ctx, GameProfile.offline(username));
+            }
             
-            // ログイン成功パケットを送信
-            sendLoginSuccess(ctx, username);
+        } else if (packetId == 0x01 && verifyToken != null) { // Encryption Response packet
+            byte[] encryptedSecret = readByteArray(msg);
+            byte[] encryptedToken = readByteArray(msg);
             
-            // プレイ状態に移行
-            connectionState.setState(ConnectionState.State.PLAY);
+            KeyPair keyPair = server.getNetworkManager().getKeyPair();
+            byte[] token = EncryptionUtils.decryptRsa(keyPair.getPrivate(), encryptedToken);
+            if (!MessageDigest.isEqual(token, verifyToken)) {
+                disconnect(ctx, "Invalid verify token");
+                return;
+            }
+            verifyToken = null;
+            SecretKey sharedKey = EncryptionUtils.createSharedKey(EncryptionUtils.decryptRsa(keyPair.getPrivate(), encryptedSecret));
             
-            // プレイヤーをサーバーに追加
-            // TODO: プレイヤーマネージャーでプレイヤーを追加
+            // 以降のパケットは送受信とも暗号化される
+            NetworkManager.enableEncryption(ctx.pipeline(), sharedKey);
             
-        } else if (packetId == 0x01) { // Encryption Response packet
-            // TODO: オンラインモードでの暗号化処理
+            String serverHash = EncryptionUtils.serverHash("", keyPair.getPublic(), sharedKey);
+            InetAddress address = ((InetSocketAddress) ctx.channel().remoteAddress()).getAddress();
+            String name = username;
+            server.getNetworkManager().getSessionAuthenticator().authenticate(name, serverHash, address)
+                    .whenComplete((profile, error) -> ctx.executor().execute(() -> {
+                        if (!ctx.channel().isActive()) {
+                            return;
+                        }
+                        if (error != null) {
+                            logger.error("セッションの検証に失敗しました: " + name, error);
+                            disconnect(ctx, "Authentication servers are down. Please try again later.");
+                        } else if (profile == null) {
+                            logger.warn("認証されていないプレイヤーのログインを拒否しました: " + name + " (" + clientAddress + ")");
+                            disconnect(ctx, "Failed to verify username!");
+                        } else {
+                            finishLogin(ctx, profile);
+                        }
+                    }));
+        }
+    }
+    
+    /**
+     * 圧縮を有効化してログイン成功を送信し、プレイヤーを追加してプレイ状態に移行します
+     */
+    private void finishLogin(ChannelHandlerContext ctx, GameProfile profile) {
+        PlayerManager playerManager = server.getPlayerManager();
+        if (playerManager.isPlayerOnline(profile.getUuid()) || playerManager.isPlayerOnline(profile.getName())) {
+            disconnect(ctx, "You are already logged in to this server");
+            return;
+        }
+        if (playerManager.isFull()) {
+            disconnect(ctx, "The server is full!");
+            return;
+        }
+        
+        // 圧縮を有効化（通知は圧縮せずに送り、以降のパケットから圧縮する）
+        int threshold = server.getConfig().getNetworkCompressionThreshold();
+        if (threshold >= 0) {
+            sendSetCompression(ctx, threshold);
+            NetworkManager.enableCompression(ctx.pipeline(), threshold, server.getConfig().getNetworkCompressionLevel());
         }
+        
+        // ログイン成功パケットを送信
+        sendLoginSuccess(ctx, profile);
+        logger.info("ログインしました: " + profile.getName() + " (" + profile.getUuid() + ")");
+        
+        // プレイ状態に移行
+        connectionState.setState(ConnectionState.State.PLAY);
+        
+        // プレイヤーをサーバーに追加
+        player = playerManager.addPlayer(profile.getName(), profile.getUuid());
+        player.setChannel(ctx.channel());
+        player.connect();
     }
     
     /**
@@ -183,9 +269,9 @@ public class MinecraftPacketHandler extends SimpleChannelInboundHandler<ByteBuf>
                          ",\"online\":0},\"description\":{\"text\":\"" + server.getConfig().getMotd() + "\"}}";
         
         // レスポンスパケットを送信
-        ByteBuf buffer = ctx.alloc().buffer();
-        writeVarInt(buffer, 0x00); // Response packet ID
-        writeString(buffer, response);
+        ByteBuf buffer = VarIntFrameEncoder.allocatePacket(ctx.alloc());
+        ProtocolUtils.writeVarInt(buffer, 0x00); // Response packet ID
+        ProtocolUtils.writeString(buffer, response);
         ctx.writeAndFlush(buffer);
     }
     
@@ -193,86 +279,80 @@ public class MinecraftPacketHandler extends SimpleChannelInboundHandler<ByteBuf>
      * Pongパケットを送信します
      */
     private void sendPong(ChannelHandlerContext ctx, long payload) {
-        ByteBuf buffer = ctx.alloc().buffer();
-        writeVarInt(buffer, 0x01); // Pong packet ID
+        ByteBuf buffer = VarIntFrameEncoder.allocatePacket(ctx.alloc());
+        ProtocolUtils.writeVarInt(buffer, 0x01); // Pong packet ID
         buffer.writeLong(payload);
         ctx.writeAndFlush(buffer);
     }
     
     /**
-     * ログイン成功パケットを送信します
+     * 圧縮の閾値を通知するパケットを送信します
      */
-    private void sendLoginSuccess(ChannelHandlerContext ctx, String username) {
-        ByteBuf buffer = ctx.alloc().buffer();
-        writeVarInt(buffer, 0x02); // Login Success packet ID
-        writeString(buffer, "00000000-0000-0000-0000-000000000000"); // UUID
-        writeString(buffer, username);
+    private void sendSetCompression(ChannelHandlerContext ctx, int threshold) {
+        ByteBuf buffer = VarIntFrameEncoder.allocatePacket(ctx.alloc());
+        ProtocolUtils.writeVarInt(buffer, 0x03); // Set Compression packet ID
+        ProtocolUtils.writeVarInt(buffer, threshold);
         ctx.writeAndFlush(buffer);
     }
     
-    // ユーティリティメソッド
-    
     /**
-     * VarIntを読み取ります
+     * 暗号化要求パケットを送信します
      */
-    private int readVarInt(ByteBuf buf) {
-        int value = 0;
-        int position = 0;
-        byte currentByte;
-        
-        while (true) {
-            currentByte = buf.readByte();
-            value |= (currentByte & 0x7F) << position;
-            
-            if ((currentByte & 0x80) == 0) {
-                break;
-            }
-            
-            position += 7;
-            if (position >= 32) {
-                throw new RuntimeException("VarInt is too big");
-            }
-        }
-        
-        return value;
+    private void sendEncryptionRequest(ChannelHandlerContext ctx, byte[] publicKey, byte[] token) {
+        ByteBuf buffer = VarIntFrameEncoder.allocatePacket(ctx.alloc());
+        ProtocolUtils.writeVarInt(buffer, 0x01); // Encryption Request packet ID
+        ProtocolUtils.writeString(buffer, ""); // Server ID
+        ProtocolUtils.writeVarInt(buffer, publicKey.length);
+        buffer.writeBytes(publicKey);
+        ProtocolUtils.writeVarInt(buffer, token.length);
+        buffer.writeBytes(token);
+        ctx.writeAndFlush(buffer);
     }
     
     /**
-     * VarIntを書き込みます
+     * ログイン成功パケットを送信します
      */
-    private void writeVarInt(ByteBuf buf, int value) {
-        while (true) {
-            if ((value & ~0x7F) == 0) {
-                buf.writeByte(value);
-                return;
+    private void sendLoginSuccess(ChannelHandlerContext ctx, GameProfile profile) {
+        ByteBuf buffer = VarIntFrameEncoder.allocatePacket(ctx.alloc());
+        ProtocolUtils.writeVarInt(buffer, 0x02); // Login Success packet ID
+        buffer.writeLong(profile.getUuid().getMostSignificantBits());
+        buffer.writeLong(profile.getUuid().getLeastSignificantBits());
+        ProtocolUtils.writeString(buffer, profile.getName());
+        ProtocolUtils.writeVarInt(buffer, profile.getProperties().size());
+        for (GameProfile.Property property : profile.getProperties()) {
+            ProtocolUtils.writeString(buffer, property.getName());
+            ProtocolUtils.writeString(buffer, property.getValue());
+            buffer.writeBoolean(property.getSignature() != null);
+            if (property.getSignature() != null) {
+                ProtocolUtils.writeString(buffer, property.getSignature());
             }
-            
-            buf.writeByte((value & 0x7F) | 0x80);
-            value >>>= 7;
         }
+        ctx.writeAndFlush(buffer);
     }
     
     /**
-     * 文字列を読み取ります
+     * ログイン中の切断パケットを送信して接続を閉じます
      */
-    private String readString(ByteBuf buf) {
-        int length = readVarInt(buf);
-        if (length > 32767) {
-            throw new RuntimeException("String is too long");
-        }
-        
-        byte[] bytes = new byte[length];
-        buf.readBytes(bytes);
-        return new String(bytes, java.nio.charset.StandardCharsets.UTF_8);
+    private void disconnect(ChannelHandlerContext ctx, String reason) {
+        ByteBuf buffer = VarIntFrameEncoder.allocatePacket(ctx.alloc());
+        ProtocolUtils.writeVarInt(buffer, 0x00); // Disconnect (login) packet ID
+        JsonObject message = new JsonObject();
+        message.addProperty("text", reason);
+        ProtocolUtils.writeString(buffer, message.toString());
+        ctx.writeAndFlush(buffer).addListener(ChannelFutureListener.CLOSE);
     }
     
     /**
-     * 文字列を書き込みます
+     * 長さ付きのバイト配列を読み取ります
      */
-    private void writeString(ByteBuf buf, String string) {
-        byte[] bytes = string.getBytes(java.nio.charset.StandardCharsets.UTF_8);
-        writeVarInt(buf, bytes.length);
-        buf.writeBytes(bytes);
+    private static byte[] readByteArray(ByteBuf msg) {
+        int length = ProtocolUtils.readVarInt(msg);
+        if (length < 0 || length > MAX_ENCRYPTED_LENGTH || length > msg.readableBytes()) {
+            throw new DecoderException("Invalid byte array length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        msg.readBytes(bytes);
+        return bytes;
     }
     
     /**
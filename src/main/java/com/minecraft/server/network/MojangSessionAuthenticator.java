@@ -0,0 +1,72 @@
+package com.minecraft.server.network;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Mojangのセッションサーバーでセッションを検証する認証
+ */
+public class MojangSessionAuthenticator implements SessionAuthenticator {
+    
+    private static final String HAS_JOINED_URL = "https://sessionserver.mojang.com/session/minecraft/hasJoined";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    
+    private final HttpClient client;
+    private final boolean sendAddress;
+    
+    /**
+     * @param sendAddress プレイヤーのIPアドレスも送り、セッションと同じアドレスからの接続か確認するかどうか
+     */
+    public MojangSessionAuthenticator(boolean sendAddress) {
+        this.client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+        this.sendAddress = sendAddress;
+    }
+    
+    @Override
+    public CompletableFuture<GameProfile> authenticate(String username, String serverHash, InetAddress address) {
+        String url = HAS_JOINED_URL
+                + "?username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)
+                + "&serverId=" + URLEncoder.encode(serverHash, StandardCharsets.UTF_8);
+        if (sendAddress && address != null) {
+            url += "&ip=" + URLEncoder.encode(address.getHostAddress(), StandardCharsets.UTF_8);
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(TIMEOUT).GET().build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            // 204（本文なし）は参加が登録されていない
+            if (response.statusCode() != 200 || response.body().isEmpty()) {
+                return null;
+            }
+            return parseProfile(JsonParser.parseString(response.body()).getAsJsonObject());
+        });
+    }
+    
+    private static GameProfile parseProfile(JsonObject json) {
+        String id = json.get("id").getAsString();
+        UUID uuid = new UUID(Long.parseUnsignedLong(id.substring(0, 16), 16), Long.parseUnsignedLong(id.substring(16, 32), 16));
+        
+        List<GameProfile.Property> properties = new ArrayList<>();
+        JsonArray array = json.has("properties") ? json.getAsJsonArray("properties") : new JsonArray();
+        for (JsonElement element : array) {
+            JsonObject property = element.getAsJsonObject();
+            JsonElement signature = property.get("signature");
+            properties.add(new GameProfile.Property(property.get("name").getAsString(),
+                    property.get("value").getAsString(), signature != null ? signature.getAsString() : null));
+        }
+        return new GameProfile(uuid, json.get("name").getAsString(), properties);
+    }
+} 
\ No newline at end of file
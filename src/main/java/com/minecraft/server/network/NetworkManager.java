@@ -3,16 +3,18 @@ package com.minecraft.server.network;
 import com.minecraft.server.MinecraftServer;
 import com.minecraft.server.util.Logger;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.codec.ByteToMessageCodec;
-import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
-import io.netty.handler.codec.LengthFieldPrepender;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
 
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -20,18 +22,32 @@ import java.util.concurrent.TimeUnit;
  */
 public class NetworkManager {
     
+    // パイプラインのハンドラー名（圧縮・暗号化はこれらの前後に追加する）
+    public static final String READ_TIMEOUT = "read_timeout";
+    public static final String WRITE_TIMEOUT = "write_timeout";
+    public static final String FRAME_DECODER = "splitter";
+    public static final String FRAME_ENCODER = "prepender";
+    public static final String DECOMPRESSOR = "decompress";
+    public static final String COMPRESSOR = "compress";
+    public static final String DECRYPTOR = "decrypt";
+    public static final String ENCRYPTOR = "encrypt";
+    
+    public static final String PACKET_HANDLER = "packet_handler";
+    
     private final MinecraftServer server;
     private final Logger logger;
-    private final EventLoopGroup bossGroup;
-    private final EventLoopGroup workerGroup;
-    private Channel serverChannel;
+    private final ChunkPacketCache chunkPacketCache;
+    private final List<Channel> serverChannels = new ArrayList<>();
     private volatile boolean running = false;
     
+    // オンラインモードの鍵交換に使う鍵ペアとセッションの検証
+    private KeyPair keyPair;
+    private volatile SessionAuthenticator sessionAuthenticator = new MojangSessionAuthenticator(false);
+    
     public NetworkManager(MinecraftServer server) {
         this.server = server;
         this.logger = new Logger("NetworkManager");
-        this.bossGroup = new NioEventLoopGroup(1);
-        this.workerGroup = new NioEventLoopGroup();
+        this.chunkPacketCache = new ChunkPacketCache(PooledByteBufAllocator.DEFAULT);
     }
     
     /**
@@ -44,44 +60,61 @@ public class NetworkManager {
         }
         
         try {
+            if (server.getConfig().isOnlineMode() && keyPair == null) {
+                try {
+                    keyPair = EncryptionUtils.generateKeyPair();
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("Failed to generate RSA key pair", e);
+                }
+            }
+            
             int port = server.getConfig().getServerPort();
             String bindAddress = server.getConfig().getServerIp();
             
+            // イベントループはHTTPサーバーと共有し、所有者のMinecraftServerが停止する
+            EventLoops eventLoops = server.getEventLoops();
+            NetworkTransport transport = eventLoops.getTransport();
+            int acceptThreads = eventLoops.getAcceptThreads();
+            
             ServerBootstrap bootstrap = new ServerBootstrap();
-            bootstrap.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
+            bootstrap.group(eventLoops.getBossGroup(), eventLoops.getWorkerGroup())
+                    .channel(transport.getServerChannelClass())
                     .childHandler(new ChannelInitializer<SocketChannel>() {
                         @Override
                         protected void initChannel(SocketChannel ch) throws Exception {
                             ChannelPipeline pipeline = ch.pipeline();
                             
                             // タイムアウトハンドラー
-                            pipeline.addLast(new ReadTimeoutHandler(30, TimeUnit.SECONDS));
-                            pipeline.addLast(new WriteTimeoutHandler(30, TimeUnit.SECONDS));
+                            pipeline.addLast(READ_TIMEOUT, new ReadTimeoutHandler(30, TimeUnit.SECONDS));
+                            pipeline.addLast(WRITE_TIMEOUT, new WriteTimeoutHandler(30, TimeUnit.SECONDS));
                             
-                            // Minecraftプロトコル用のフレームデコーダー
-                            pipeline.addLast(new LengthFieldBasedFrameDecoder(2097152, 0, 3, 0, 3));
-                            pipeline.addLast(new LengthFieldPrepender(3));
+                            // Minecraftプロトコル用のフレーム（VarIntの長さ）デコーダー・エンコーダー
+                            pipeline.addLast(FRAME_DECODER, new VarIntFrameDecoder());
+                            pipeline.addLast(FRAME_ENCODER, VarIntFrameEncoder.INSTANCE);
                             
                             // Minecraftパケットハンドラー
-                            pipeline.addLast(new MinecraftPacketHandler(server));
+                            pipeline.addLast(PACKET_HANDLER, new MinecraftPacketHandler(server));
                         }
                     })
                     .option(ChannelOption.SO_BACKLOG, 128)
                     .childOption(ChannelOption.SO_KEEPALIVE, true)
                     .childOption(ChannelOption.TCP_NODELAY, true);
+            transport.configure(bootstrap, acceptThreads);
             
-            ChannelFuture future;
-            if (bindAddress != null && !bindAddress.isEmpty()) {
-                future = bootstrap.bind(bindAddress, port);
-            } else {
-                future = bootstrap.bind(port);
+            // バインドごとにボスグループの別のスレッドが割り当てられる
+            for (int i = 0; i < acceptThreads; i++) {
+                ChannelFuture future;
+                if (bindAddress != null && !bindAddress.isEmpty()) {
+                    future = bootstrap.bind(bindAddress, port);
+                } else {
+                    future = bootstrap.bind(port);
+                }
+                serverChannels.add(future.sync().channel());
             }
-            
-            serverChannel = future.sync().channel();
             running = true;
             
-            logger.info("ネットワークサーバーが起動しました - ポート: " + port);
+            logger.info("ネットワークサーバーが起動しました - ポート: " + port
+                    + " (" + transport + ", 受け付けスレッド: " + acceptThreads + ")");
             if (bindAddress != null && !bindAddress.isEmpty()) {
                 logger.info("バインドアドレス: " + bindAddress);
             }
@@ -104,17 +137,12 @@ public class NetworkManager {
         running = false;
         
         try {
-            if (serverChannel != null) {
-                serverChannel.close().sync();
+            for (Channel channel : serverChannels) {
+                channel.close().sync();
             }
+            serverChannels.clear();
             
-            // EventLoopGroupをシャットダウン
-            bossGroup.shutdownGracefully();
-            workerGroup.shutdownGracefully();
-            
-            // シャットダウンの完了を待機
-            bossGroup.awaitTermination(5, TimeUnit.SECONDS);
-            workerGroup.awaitTermination(5, TimeUnit.SECONDS);
+            chunkPacketCache.clear();
             
             logger.info("ネットワークサーバーが停止しました");
             
@@ -123,6 +151,53 @@ public class NetworkManager {
         }
     }
     
+    /**
+     * 接続のパイプラインに圧縮・展開のハンドラーを追加します（イベントループのスレッドから呼び出します）
+     * 閾値が0未満の場合は何もしません。既に追加されている場合は閾値を置き換えます。
+     */
+    public static void enableCompression(ChannelPipeline pipeline, int threshold, int level) {
+        if (threshold < 0) {
+            return;
+        }
+        if (pipeline.get(DECOMPRESSOR) != null) {
+            pipeline.replace(DECOMPRESSOR, DECOMPRESSOR, new PacketDecompressor(threshold));
+            pipeline.replace(COMPRESSOR, COMPRESSOR, new PacketCompressor(threshold, level));
+            return;
+        }
+        pipeline.addAfter(FRAME_DECODER, DECOMPRESSOR, new PacketDecompressor(threshold));
+        pipeline.addAfter(FRAME_ENCODER, COMPRESSOR, new PacketCompressor(threshold, level));
+    }
+    
+    /**
+     * 接続のパイプラインに暗号化・復号のハンドラーを追加します（イベントループのスレッドから呼び出します）
+     * 復号はフレームの分割より前、暗号化はフレーム長の付加より後に行います。
+     */
+    public static void enableEncryption(ChannelPipeline pipeline, SecretKey key) throws GeneralSecurityException {
+        pipeline.addBefore(FRAME_DECODER, DECRYPTOR, new PacketDecryptor(EncryptionUtils.createCipher(Cipher.DECRYPT_MODE, key)));
+        pipeline.addBefore(FRAME_ENCODER, ENCRYPTOR, new PacketEncryptor(EncryptionUtils.createCipher(Cipher.ENCRYPT_MODE, key)));
+    }
+    
+    /**
+     * オンラインモードの鍵交換に使う鍵ペアを取得します（オフラインモードではnull）
+     */
+    public KeyPair getKeyPair() {
+        return keyPair;
+    }
+    
+    /**
+     * セッションの検証方法を取得します
+     */
+    public SessionAuthenticator getSessionAuthenticator() {
+        return sessionAuthenticator;
+    }
+    
+    /**
+     * セッションの検証方法を設定します（テスト用のローカル実装などに置き換える場合）
+     */
+    public void setSessionAuthenticator(SessionAuthenticator sessionAuthenticator) {
+        this.sessionAuthenticator = sessionAuthenticator;
+    }
+    
     /**
      * サーバーが実行中かどうかを確認します
      */
@@ -138,6 +213,13 @@ public class NetworkManager {
         return 0; // 仮の実装
     }
     
+    /**
+     * チャンクデータパケットのキャッシュを取得します
+     */
+    public ChunkPacketCache getChunkPacketCache() {
+        return chunkPacketCache;
+    }
+    
     /**
      * サーバーインスタンスを取得します
      */
@@ -0,0 +1,105 @@
+package com.minecraft.server.network;
+
+import com.minecraft.server.util.Logger;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * Nettyのトランスポート（イベントループとサーバーチャンネルの実装）
+ *
+ * Linuxでネイティブライブラリが使える場合はepollを使い、システムコールと
+ * ガベージの発生を抑えます。使えない場合や無効にした場合はNIOを使います。
+ */
+public enum NetworkTransport {
+    
+    NIO {
+        @Override
+        public EventLoopGroup createEventLoopGroup(int threads, String name) {
+            return new NioEventLoopGroup(threads, new DefaultThreadFactory(name, true));
+        }
+        
+        @Override
+        public Class<? extends ServerChannel> getServerChannelClass() {
+            return NioServerSocketChannel.class;
+        }
+        
+        @Override
+        public void configure(ServerBootstrap bootstrap, int acceptThreads) {
+        }
+    },
+    
+    EPOLL {
+        @Override
+        public EventLoopGroup createEventLoopGroup(int threads, String name) {
+            return new EpollEventLoopGroup(threads, new DefaultThreadFactory(name, true));
+        }
+        
+        @Override
+        public Class<? extends ServerChannel> getServerChannelClass() {
+            return EpollServerSocketChannel.class;
+        }
+        
+        @Override
+        public void configure(ServerBootstrap bootstrap, int acceptThreads) {
+            // 複数のスレッドで受け付ける場合は同じポートに複数回バインドする
+            if (acceptThreads > 1) {
+                bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+            }
+            bootstrap.option(ChannelOption.TCP_FASTOPEN, TCP_FASTOPEN_QUEUE_LENGTH)
+                    .childOption(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED)
+                    .childOption(EpollChannelOption.TCP_QUICKACK, true);
+        }
+        
+        @Override
+        public boolean supportsReusePort() {
+            return true;
+        }
+    };
+    
+    private static final int TCP_FASTOPEN_QUEUE_LENGTH = 256;
+    
+    /**
+     * 使用するトランスポートを選択します
+     */
+    public static NetworkTransport select(boolean preferNative, Logger logger) {
+        if (preferNative) {
+            if (Epoll.isAvailable()) {
+                return EPOLL;
+            }
+            logger.info("epollが利用できないためNIOを使用します: " + Epoll.unavailabilityCause());
+        }
+        return NIO;
+    }
+    
+    /**
+     * イベントループグループを作成します（スレッドはデーモン）
+     */
+    public abstract EventLoopGroup createEventLoopGroup(int threads, String name);
+    
+    /**
+     * サーバーチャンネルのクラスを取得します
+     */
+    public abstract Class<? extends ServerChannel> getServerChannelClass();
+    
+    /**
+     * トランスポート固有のオプションを設定します
+     */
+    public abstract void configure(ServerBootstrap bootstrap, int acceptThreads);
+    
+    /**
+     * 同じポートへの複数回のバインド（SO_REUSEPORT）に対応しているかどうかを確認します
+     */
+    public boolean supportsReusePort() {
+        return false;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.minecraft.server.network;
+
+import io.netty.buffer.ByteBuf;
+
+import javax.crypto.Cipher;
+import javax.crypto.ShortBufferException;
+
+/**
+ * 1つの接続・方向の暗号処理
+ *
+ * AES/CFB8は入力と同じ長さを出力するため、バッファの内容をその場で暗号化・復号します。
+ * 配列を持つバッファは配列を直接処理し、ダイレクトバッファは使い回す作業用配列を
+ * 経由して処理するため、パケットごとに配列を確保しません。
+ */
+final class PacketCipher {
+    
+    private static final int SCRATCH_SIZE = 8192;
+    
+    private final Cipher cipher;
+    private byte[] scratch;
+    
+    PacketCipher(Cipher cipher) {
+        this.cipher = cipher;
+    }
+    
+    /**
+     * バッファの読み取り可能な範囲をその場で暗号化・復号します
+     */
+    void process(ByteBuf buf) throws ShortBufferException {
+        int index = buf.readerIndex();
+        int length = buf.readableBytes();
+        if (buf.hasArray()) {
+            byte[] array = buf.array();
+            int offset = buf.arrayOffset() + index;
+            cipher.update(array, offset, length, array, offset);
+            return;
+        }
+        
+        if (scratch == null) {
+            scratch = new byte[SCRATCH_SIZE];
+        }
+        while (length > 0) {
+            int chunk = Math.min(length, scratch.length);
+            buf.getBytes(index, scratch, 0, chunk);
+            cipher.update(scratch, 0, chunk, scratch, 0);
+            buf.setBytes(index, scratch, 0, chunk);
+            index += chunk;
+            length -= chunk;
+        }
+    }
+} 
\ No newline at end of file
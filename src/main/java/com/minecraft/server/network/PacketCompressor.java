@@ -0,0 +1,128 @@
+package com.minecraft.server.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * 閾値以上の大きさのパケットを圧縮するエンコーダー
+ *
+ * 圧縮後の形式は[VarInt 展開後の長さ][zlibデータ]で、閾値未満のパケットは
+ * 長さ0を付けて圧縮せずに送信します。{@link Deflater}はイベントループのスレッドごとに
+ * 1つを使い回し、入出力ともダイレクトバッファのまま圧縮します。
+ * 出力バッファの先頭にはフレーム長を書き込む空きを確保します。
+ * {@link SharedPacket}は圧縮済みのフレームを共有して、再圧縮せずにそのまま送信します。
+ */
+public class PacketCompressor extends MessageToMessageEncoder<Object> {
+    
+    private static final FastThreadLocal<Deflater> DEFLATER = new FastThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater();
+        }
+        
+        @Override
+        protected void onRemoval(Deflater deflater) {
+            deflater.end();
+        }
+    };
+    
+    private final int threshold;
+    private final int level;
+    
+    public PacketCompressor(int threshold, int level) {
+        this.threshold = threshold;
+        this.level = level;
+    }
+    
+    /**
+     * 圧縮の閾値を取得します
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+    
+    @Override
+    public boolean acceptOutboundMessage(Object msg) {
+        return msg instanceof ByteBuf || msg instanceof SharedPacket;
+    }
+    
+    @Override
+    protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
+        if (msg instanceof SharedPacket) {
+            out.add(new VarIntFrameEncoder.Framed(((SharedPacket) msg).compressedFrame(this, ctx.alloc())));
+            return;
+        }
+        ByteBuf packet = (ByteBuf) msg;
+        if (packet.readableBytes() < threshold && packet.refCnt() == 1 && !packet.isReadOnly()
+                && packet.readerIndex() > VarIntFrameDecoder.MAX_HEADER_SIZE) {
+            // 確保済みの空きに非圧縮のマーカーを書き込む
+            packet.setByte(packet.readerIndex() - 1, 0);
+            packet.readerIndex(packet.readerIndex() - 1);
+            out.add(packet.retain());
+            return;
+        }
+        out.add(compress(ctx.alloc(), packet));
+    }
+    
+    /**
+     * 共有するパケットの本体を圧縮し、フレーム長まで付けたバッファを作成します
+     */
+    ByteBuf compressFrame(ByteBufAllocator allocator, ByteBuf body) {
+        ByteBuf frame = compress(allocator, body);
+        try {
+            VarIntFrameEncoder.prependLength(frame);
+        } catch (RuntimeException e) {
+            frame.release();
+            throw e;
+        }
+        return frame;
+    }
+    
+    /**
+     * パケットを圧縮した新しいバッファを作成します（閾値未満の場合は非圧縮のマーカーを付けてコピーします）
+     */
+    private ByteBuf compress(ByteBufAllocator allocator, ByteBuf msg) {
+        int length = msg.readableBytes();
+        if (length < threshold) {
+            ByteBuf uncompressed = VarIntFrameEncoder.reserveHeader(allocator.directBuffer(VarIntFrameEncoder.PACKET_HEADROOM + 1 + length));
+            uncompressed.writeByte(0);
+            uncompressed.writeBytes(msg, msg.readerIndex(), length);
+            return uncompressed;
+        }
+        
+        // 圧縮後の大きさは分からないため、元の大きさを目安に確保して足りなければ拡張する
+        ByteBuf compressed = VarIntFrameEncoder.reserveHeader(allocator.directBuffer(
+                VarIntFrameEncoder.PACKET_HEADROOM + ProtocolUtils.getVarIntSize(length) + length / 2 + 64));
+        try {
+            ProtocolUtils.writeVarInt(compressed, length);
+            Deflater deflater = DEFLATER.get();
+            deflater.setLevel(level);
+            if (msg.nioBufferCount() == 1) {
+                deflater.setInput(msg.nioBuffer());
+            } else {
+                byte[] input = new byte[length];
+                msg.getBytes(msg.readerIndex(), input);
+                deflater.setInput(input);
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                compressed.ensureWritable(Math.max(256, length >> 3));
+                ByteBuffer target = compressed.internalNioBuffer(compressed.writerIndex(), compressed.writableBytes());
+                compressed.writerIndex(compressed.writerIndex() + deflater.deflate(target));
+            }
+            deflater.reset();
+            return compressed;
+        } catch (Throwable e) {
+            compressed.release();
+            DEFLATER.get().reset();
+            throw e;
+        }
+    }
+} 
\ No newline at end of file
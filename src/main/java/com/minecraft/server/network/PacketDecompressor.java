@@ -0,0 +1,90 @@
+package com.minecraft.server.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 圧縮されたパケットを展開するデコーダー
+ *
+ * 非圧縮のパケット（長さ0）は受信バッファのスライスをそのまま渡します。
+ * 展開後の長さは展開前に検証し、ちょうどの大きさのダイレクトバッファへ展開します。
+ * {@link Inflater}はイベントループのスレッドごとに1つを使い回します。
+ */
+public class PacketDecompressor extends MessageToMessageDecoder<ByteBuf> {
+    
+    /** 展開後のパケットの最大長 */
+    public static final int MAX_UNCOMPRESSED_LENGTH = 8 * 1024 * 1024;
+    
+    private static final FastThreadLocal<Inflater> INFLATER = new FastThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater();
+        }
+        
+        @Override
+        protected void onRemoval(Inflater inflater) {
+            inflater.end();
+        }
+    };
+    
+    private final int threshold;
+    
+    public PacketDecompressor(int threshold) {
+        this.threshold = threshold;
+    }
+    
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        int length = ProtocolUtils.readVarInt(in);
+        if (length == 0) {
+            out.add(in.retainedSlice());
+            return;
+        }
+        if (length < threshold) {
+            throw new DecoderException("Badly compressed packet: size " + length + " is below threshold " + threshold);
+        }
+        if (length > MAX_UNCOMPRESSED_LENGTH) {
+            throw new DecoderException("Badly compressed packet: size " + length + " exceeds " + MAX_UNCOMPRESSED_LENGTH);
+        }
+        
+        ByteBuf uncompressed = ctx.alloc().directBuffer(length, length);
+        Inflater inflater = INFLATER.get();
+        try {
+            if (in.nioBufferCount() == 1) {
+                inflater.setInput(in.nioBuffer());
+            } else {
+                byte[] input = new byte[in.readableBytes()];
+                in.getBytes(in.readerIndex(), input);
+                inflater.setInput(input);
+            }
+            ByteBuffer target = uncompressed.internalNioBuffer(0, length);
+            while (target.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(target) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+            }
+            if (target.hasRemaining() || !inflater.finished()) {
+                throw new DecoderException("Badly compressed packet: size does not match " + length);
+            }
+            uncompressed.writerIndex(length);
+            in.skipBytes(in.readableBytes());
+            out.add(uncompressed);
+        } catch (DataFormatException e) {
+            uncompressed.release();
+            throw new DecoderException("Badly compressed packet", e);
+        } catch (Throwable e) {
+            uncompressed.release();
+            throw e;
+        } finally {
+            inflater.reset();
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.minecraft.server.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageDecoder;
+
+import javax.crypto.Cipher;
+import java.util.List;
+
+/**
+ * 受信したデータをAES/CFB8で復号するデコーダー
+ *
+ * ソケットから読み込んだバッファはこの接続専用のため、その場で復号して
+ * フレームデコーダーへ渡します。
+ */
+public class PacketDecryptor extends MessageToMessageDecoder<ByteBuf> {
+    
+    private final PacketCipher cipher;
+    
+    public PacketDecryptor(Cipher cipher) {
+        this.cipher = new PacketCipher(cipher);
+    }
+    
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        ByteBuf target;
+        if (in.refCnt() == 1 && !in.isReadOnly()) {
+            target = in.retain();
+        } else {
+            target = ctx.alloc().heapBuffer(in.readableBytes());
+            target.writeBytes(in);
+        }
+        try {
+            cipher.process(target);
+        } catch (Exception e) {
+            target.release();
+            throw e;
+        }
+        out.add(target);
+    }
+} 
\ No newline at end of file
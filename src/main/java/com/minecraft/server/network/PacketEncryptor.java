@@ -0,0 +1,42 @@
+package com.minecraft.server.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+import javax.crypto.Cipher;
+import java.util.List;
+
+/**
+ * 送信するフレームをAES/CFB8で暗号化するエンコーダー
+ *
+ * フレームエンコーダーの出力はこの接続専用のバッファのため、その場で暗号化します。
+ * 他から参照されているバッファ（キャッシュしたパケットなど）は新しいバッファに
+ * コピーしてから暗号化し、元の内容は変更しません。
+ */
+public class PacketEncryptor extends MessageToMessageEncoder<ByteBuf> {
+    
+    private final PacketCipher cipher;
+    
+    public PacketEncryptor(Cipher cipher) {
+        this.cipher = new PacketCipher(cipher);
+    }
+    
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+        ByteBuf target;
+        if (msg.refCnt() == 1 && !msg.isReadOnly()) {
+            target = msg.retain();
+        } else {
+            target = ctx.alloc().ioBuffer(msg.readableBytes());
+            target.writeBytes(msg, msg.readerIndex(), msg.readableBytes());
+        }
+        try {
+            cipher.process(target);
+        } catch (Exception e) {
+            target.release();
+            throw e;
+        }
+        out.add(target);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.minecraft.server.network;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minecraftプロトコルのデータ型を読み書きするユーティリティクラス
+ */
+public final class ProtocolUtils {
+    
+    private static final int MAX_STRING_LENGTH = 32767;
+    
+    private ProtocolUtils() {
+    }
+    
+    /**
+     * VarIntを読み取ります
+     */
+    public static int readVarInt(ByteBuf buf) {
+        int value = 0;
+        int position = 0;
+        byte currentByte;
+        
+        while (true) {
+            currentByte = buf.readByte();
+            value |= (currentByte & 0x7F) << position;
+            
+            if ((currentByte & 0x80) == 0) {
+                break;
+            }
+            
+            position += 7;
+            if (position >= 32) {
+                throw new RuntimeException("VarInt is too big");
+            }
+        }
+        
+        return value;
+    }
+    
+    /**
+     * VarIntを書き込みます
+     */
+    public static void writeVarInt(ByteBuf buf, int value) {
+        while (true) {
+            if ((value & ~0x7F) == 0) {
+                buf.writeByte(value);
+                return;
+            }
+            
+            buf.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+    }
+    
+    /**
+     * VarLongを書き込みます
+     */
+    public static void writeVarLong(ByteBuf buf, long value) {
+        while (true) {
+            if ((value & ~0x7FL) == 0) {
+                buf.writeByte((int) value);
+                return;
+            }
+            
+            buf.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+    }
+    
+    /**
+     * VarIntのバイト数を取得します
+     */
+    public static int getVarIntSize(int value) {
+        for (int size = 1; size < 5; size++) {
+            if ((value & (-1 << (size * 7))) == 0) {
+                return size;
+            }
+        }
+        return 5;
+    }
+    
+    /**
+     * 文字列を読み取ります
+     */
+    public static String readString(ByteBuf buf) {
+        int length = readVarInt(buf);
+        if (length > MAX_STRING_LENGTH) {
+            throw new RuntimeException("String is too long");
+        }
+        
+        byte[] bytes = new byte[length];
+        buf.readBytes(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * 文字列を書き込みます
+     */
+    public static void writeString(ByteBuf buf, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(buf, bytes.length);
+        buf.writeBytes(bytes);
+    }
+} 
\ No newline at end of file
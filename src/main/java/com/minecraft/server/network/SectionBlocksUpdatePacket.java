@@ -0,0 +1,35 @@
+package com.minecraft.server.network;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * セクション内の複数ブロック変更パケット（Update Section Blocks）を作成するクラス
+ *
+ * 1つのセクション内の変更を1パケットにまとめます。各ブロックは
+ * [ブロックID << 12 | x << 8 | z << 4 | y]のVarLongとして書き込みます。
+ */
+public final class SectionBlocksUpdatePacket {
+    
+    public static final int PACKET_ID = 0x43;
+    
+    private SectionBlocksUpdatePacket() {
+    }
+    
+    /**
+     * パケットID以降の内容をバッファへ書き込みます
+     * positionsはセクション内の位置（y << 8 | z << 4 | x）で、先頭count個を書き込みます。
+     */
+    public static void write(ByteBuf buf, int chunkX, int sectionY, int chunkZ,
+                             short[] positions, int[] blockIds, int count) {
+        ProtocolUtils.writeVarInt(buf, PACKET_ID);
+        buf.writeLong(((long) (chunkX & 0x3FFFFF) << 42) | ((long) (chunkZ & 0x3FFFFF) << 20) | (sectionY & 0xFFFFF));
+        ProtocolUtils.writeVarInt(buf, count);
+        for (int i = 0; i < count; i++) {
+            int index = positions[i];
+            int x = index & 15;
+            int z = (index >> 4) & 15;
+            int y = (index >> 8) & 15;
+            ProtocolUtils.writeVarLong(buf, ((long) blockIds[i] << 12) | (x << 8) | (z << 4) | y);
+        }
+    }
+} 
\ No newline at end of file
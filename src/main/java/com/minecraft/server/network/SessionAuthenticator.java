@@ -0,0 +1,21 @@
+package com.minecraft.server.network;
+
+import java.net.InetAddress;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * オンラインモードのログインでプレイヤーのセッションを検証するインターフェース
+ *
+ * 標準では{@link MojangSessionAuthenticator}を使用します。テストなどでは
+ * {@link NetworkManager#setSessionAuthenticator(SessionAuthenticator)}でローカルの実装に置き換えられます。
+ */
+@FunctionalInterface
+public interface SessionAuthenticator {
+    
+    /**
+     * クライアントがセッションサーバーに参加を登録したか確認します
+     * 認証に成功した場合はプロフィール、失敗した場合はnullでフューチャーを完了します。
+     * フューチャーはネットワークのイベントループ以外のスレッドで完了しても構いません。
+     */
+    CompletableFuture<GameProfile> authenticate(String username, String serverHash, InetAddress address);
+} 
\ No newline at end of file
@@ -0,0 +1,113 @@
+package com.minecraft.server.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.AbstractReferenceCounted;
+
+/**
+ * 複数の接続へ同じ内容を送信する、エンコード済みのパケット
+ *
+ * フレーム長を付けた非圧縮のフレームと、圧縮を有効にした接続向けの圧縮済みのフレームを保持し、
+ * 送信先ごとに圧縮やフレーム長の付加をやり直しません。圧縮済みのフレームは最初に必要になった
+ * イベントループのスレッドで作成して使い回します。
+ * {@link PacketCompressor}と{@link VarIntFrameEncoder}は接続の状態に合ったフレームを
+ * 書き換えずにそのまま送信するため、送信するたびに{@link #retain()}した参照を渡してください。
+ */
+public final class SharedPacket extends AbstractReferenceCounted {
+    
+    private final ByteBuf frame; // [VarInt 長さ][本体]（読み取り専用）
+    private final int headerSize;
+    private volatile CompressedFrame compressed;
+    
+    /**
+     * {@link VarIntFrameEncoder#allocatePacket(ByteBufAllocator)}で確保して本体を書き込んだバッファから作成します
+     * バッファの所有権はこのパケットに移ります。
+     */
+    public SharedPacket(ByteBuf packet) {
+        try {
+            this.headerSize = VarIntFrameEncoder.prependLength(packet);
+        } catch (RuntimeException e) {
+            packet.release();
+            throw e;
+        }
+        this.frame = packet.asReadOnly();
+    }
+    
+    /**
+     * 圧縮しない接続向けのフレームを取得します（呼び出し側が解放します）
+     */
+    ByteBuf frame() {
+        return frame.retainedDuplicate();
+    }
+    
+    /**
+     * 圧縮を有効にした接続向けのフレームを取得します（呼び出し側が解放します）
+     * 閾値の異なる接続（設定の再読み込みの前後など）には、キャッシュせずにその都度圧縮します。
+     */
+    ByteBuf compressedFrame(PacketCompressor compressor, ByteBufAllocator allocator) {
+        CompressedFrame current = compressed;
+        if (current == null) {
+            synchronized (this) {
+                current = compressed;
+                if (current == null) {
+                    current = new CompressedFrame(compressor.getThreshold(), compressor.compressFrame(allocator, body()).asReadOnly());
+                    compressed = current;
+                }
+            }
+        }
+        if (current.threshold != compressor.getThreshold()) {
+            return compressor.compressFrame(allocator, body());
+        }
+        return current.buffer.retainedDuplicate();
+    }
+    
+    private ByteBuf body() {
+        return frame.slice(frame.readerIndex() + headerSize, frame.readableBytes() - headerSize);
+    }
+    
+    @Override
+    public SharedPacket retain() {
+        super.retain();
+        return this;
+    }
+    
+    @Override
+    public SharedPacket retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+    
+    @Override
+    public SharedPacket touch() {
+        super.touch();
+        return this;
+    }
+    
+    @Override
+    public SharedPacket touch(Object hint) {
+        frame.touch(hint);
+        return this;
+    }
+    
+    @Override
+    protected void deallocate() {
+        frame.release();
+        CompressedFrame current = compressed;
+        if (current != null) {
+            current.buffer.release();
+        }
+    }
+    
+    /**
+     * 圧縮済みのフレームと、圧縮時の閾値
+     */
+    private static final class CompressedFrame {
+        final int threshold;
+        final ByteBuf buffer;
+        
+        CompressedFrame(int threshold, ByteBuf buffer) {
+            this.threshold = threshold;
+            this.buffer = buffer;
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.minecraft.server.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+
+import java.util.List;
+
+/**
+ * VarIntの長さで区切られたパケットを切り出すデコーダー
+ *
+ * 長さのVarIntは読み取り位置を進めずに解析するため、VarIntが複数回の受信に
+ * 分かれて届いても状態を持たずに次の受信で解析し直せます。
+ * フレームは受信バッファのスライスとして渡し、コピーしません。
+ * 長さが上限（3バイトのVarIntで表せる2MiB未満）を超える場合は、データを待たずに例外を投げます。
+ */
+public class VarIntFrameDecoder extends ByteToMessageDecoder {
+    
+    /** フレームの最大長（3バイトのVarIntの最大値） */
+    public static final int MAX_FRAME_LENGTH = (1 << 21) - 1;
+    
+    /** フレーム長のVarIntの最大バイト数 */
+    public static final int MAX_HEADER_SIZE = 3;
+    
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (!ctx.channel().isActive()) {
+            // 切断後に届いたデータは処理しない
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+        
+        while (in.isReadable()) {
+            int readerIndex = in.readerIndex();
+            int available = in.readableBytes();
+            int length = 0;
+            int headerSize = 0;
+            for (int i = 0; i < MAX_HEADER_SIZE; i++) {
+                if (i >= available) {
+                    return; // VarIntの続きを待つ
+                }
+                byte value = in.getByte(readerIndex + i);
+                length |= (value & 0x7F) << (i * 7);
+                if ((value & 0x80) == 0) {
+                    headerSize = i + 1;
+                    break;
+                }
+            }
+            if (headerSize == 0) {
+                throw new CorruptedFrameException("Frame length is wider than 21 bits");
+            }
+            if (length == 0) {
+                throw new CorruptedFrameException("Empty frame");
+            }
+            if (length > MAX_FRAME_LENGTH) {
+                throw new TooLongFrameException("Frame length " + length + " exceeds " + MAX_FRAME_LENGTH);
+            }
+            if (available - headerSize < length) {
+                return; // フレームの残りを待つ
+            }
+            
+            in.skipBytes(headerSize);
+            out.add(in.readRetainedSlice(length));
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.minecraft.server.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.EncoderException;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+import java.util.List;
+
+/**
+ * パケットの前にVarIntの長さを付けるエンコーダー
+ *
+ * {@link #allocatePacket(ByteBufAllocator)}で確保したバッファのように、読み取り位置の前に
+ * 空きがあり他から参照されていないバッファは、その空きに長さを書き込んでそのまま送信します。
+ * 複数の接続で共有しているバッファ（retainedDuplicateなど）や空きのないバッファは、
+ * 長さとデータをちょうどの大きさのバッファに1つにまとめるため、送信先ごとにパケット全体のコピーが発生します。
+ * 小さなパケットに限り、チャンクデータのような大きなパケットは{@link SharedPacket}で共有してください。
+ * {@link SharedPacket}と、圧縮時に作成した{@link Framed}はフレーム長まで付いているため、そのまま送信します。
+ */
+@ChannelHandler.Sharable
+public class VarIntFrameEncoder extends MessageToMessageEncoder<Object> {
+    
+    public static final VarIntFrameEncoder INSTANCE = new VarIntFrameEncoder();
+    
+    /** パケット用バッファの先頭に確保する空き（フレーム長と、圧縮時の非圧縮マーカー1バイト） */
+    public static final int PACKET_HEADROOM = VarIntFrameDecoder.MAX_HEADER_SIZE + 1;
+    
+    /**
+     * 先頭にフレーム長を書き込む空きを確保したパケット用のバッファを取得します
+     */
+    public static ByteBuf allocatePacket(ByteBufAllocator allocator) {
+        return reserveHeader(allocator.buffer());
+    }
+    
+    /**
+     * 初期容量を指定して、先頭にフレーム長を書き込む空きを確保したバッファを取得します
+     */
+    public static ByteBuf allocatePacket(ByteBufAllocator allocator, int initialCapacity) {
+        return reserveHeader(allocator.buffer(PACKET_HEADROOM + initialCapacity));
+    }
+    
+    /**
+     * バッファの先頭にフレーム長などを書き込む空きを確保します（空のバッファに対して呼び出します）
+     */
+    static ByteBuf reserveHeader(ByteBuf buffer) {
+        buffer.writerIndex(PACKET_HEADROOM);
+        buffer.readerIndex(PACKET_HEADROOM);
+        return buffer;
+    }
+    
+    /**
+     * 読み取り位置の前の空きにフレーム長を書き込み、読み取り位置をフレームの先頭へ戻します
+     * 書き込んだフレーム長のバイト数を返します。
+     */
+    static int prependLength(ByteBuf buffer) {
+        int length = checkLength(buffer.readableBytes());
+        int headerSize = ProtocolUtils.getVarIntSize(length);
+        int start = buffer.readerIndex() - headerSize;
+        setVarInt(buffer, start, length);
+        buffer.readerIndex(start);
+        return headerSize;
+    }
+    
+    private static int checkLength(int length) {
+        if (length > VarIntFrameDecoder.MAX_FRAME_LENGTH) {
+            throw new EncoderException("Packet length " + length + " exceeds " + VarIntFrameDecoder.MAX_FRAME_LENGTH);
+        }
+        return length;
+    }
+    
+    @Override
+    public boolean acceptOutboundMessage(Object msg) {
+        return msg instanceof ByteBuf || msg instanceof SharedPacket || msg instanceof Framed;
+    }
+    
+    @Override
+    protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
+        if (msg instanceof SharedPacket) {
+            out.add(((SharedPacket) msg).frame());
+            return;
+        }
+        if (msg instanceof Framed) {
+            out.add(((Framed) msg).content().retain());
+            return;
+        }
+        encodePacket(ctx, (ByteBuf) msg, out);
+    }
+    
+    private void encodePacket(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) {
+        int length = checkLength(msg.readableBytes());
+        int headerSize = ProtocolUtils.getVarIntSize(length);
+        
+        if (msg.refCnt() == 1 && !msg.isReadOnly() && msg.readerIndex() >= headerSize) {
+            // 確保済みの空きに長さを書き込む
+            prependLength(msg);
+            out.add(msg.retain());
+            return;
+        }
+        
+        ByteBuf frame = ctx.alloc().ioBuffer(headerSize + length);
+        ProtocolUtils.writeVarInt(frame, length);
+        frame.writeBytes(msg, msg.readerIndex(), length);
+        out.add(frame);
+    }
+    
+    private static void setVarInt(ByteBuf buf, int index, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.setByte(index++, (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.setByte(index, value);
+    }
+    
+    /**
+     * フレーム長まで付けた送信可能なバッファ（フレームエンコーダーは内容をそのまま送信します）
+     */
+    static final class Framed extends DefaultByteBufHolder {
+        
+        Framed(ByteBuf frame) {
+            super(frame);
+        }
+    }
+} 
\ No newline at end of file
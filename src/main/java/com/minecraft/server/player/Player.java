@@ -1,26 +1,40 @@
 package com.minecraft.server.player;
 
 import com.minecraft.server.MinecraftServer;
+import com.minecraft.server.network.SharedPacket;
 import com.minecraft.server.util.Logger;
+import com.minecraft.server.world.SpatialIndex;
+import com.minecraft.server.world.World;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.ReferenceCounted;
 
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 個別のプレイヤーを管理するクラス
  */
 public class Player {
     
+    // エンティティIDの採番（サーバー全体で一意）
+    private static final AtomicInteger ENTITY_IDS = new AtomicInteger();
+    
     private final MinecraftServer server;
     private final Logger logger;
     private final String username;
     private final UUID uuid;
+    private final int entityId = ENTITY_IDS.incrementAndGet();
     
     private volatile boolean connected = false;
     private volatile boolean online = false;
+    private volatile Channel channel; // ゲーム接続（未接続の場合はnull）
     private long lastActivity = System.currentTimeMillis();
     
     // プレイヤーの位置情報
-    private double x, y, z;
+    private volatile World world;
+    private volatile double x, y, z;
     private float yaw, pitch;
     private boolean onGround = true;
     
@@ -35,6 +49,11 @@ public class Player {
     // ゲームモード
     private GameMode gameMode = GameMode.SURVIVAL;
     
+    // プレイヤーインデックスへの登録状態（ワールドのティックの合間にのみ更新）
+    private SpatialIndex.Handle<Player> indexHandle;
+    private World indexWorld;
+    private final AtomicBoolean indexUpdateQueued = new AtomicBoolean();
+    
     public Player(MinecraftServer server, String username, UUID uuid) {
         this.server = server;
         this.username = username;
@@ -71,6 +90,7 @@ public class Player {
         
         connected = false;
         online = false;
+        requestIndexUpdate();
         
         // プレイヤーデータを保存
         savePlayerData();
@@ -105,6 +125,7 @@ public class Player {
         z = 0.0;
         yaw = 0.0f;
         pitch = 0.0f;
+        setWorld(server.getWorldManager().getDefaultWorld());
         
         logger.debug("プレイヤーがワールドにスポーンしました: " + username);
     }
@@ -117,6 +138,31 @@ public class Player {
         logger.debug("プレイヤーデータを保存しました: " + username);
     }
     
+    /**
+     * パケットを送信します（任意のスレッドから呼び出し可能）
+     * バッファの所有権は送信側へ移るため、送信できない場合はここで解放します。
+     */
+    public void sendPacket(ByteBuf packet) {
+        send(packet);
+    }
+    
+    /**
+     * 複数の接続で共有するパケットを送信します（任意のスレッドから呼び出し可能）
+     * 参照の所有権は送信側へ移るため、送信できない場合はここで解放します。
+     */
+    public void sendPacket(SharedPacket packet) {
+        send(packet);
+    }
+    
+    private void send(ReferenceCounted packet) {
+        Channel current = channel;
+        if (!connected || current == null || !current.isActive()) {
+            packet.release();
+            return;
+        }
+        current.writeAndFlush(packet, current.voidPromise());
+    }
+    
     /**
      * メッセージを送信します
      */
@@ -136,6 +182,70 @@ public class Player {
         this.x = x;
         this.y = y;
         this.z = z;
+        requestIndexUpdate();
+    }
+    
+    /**
+     * 指定したワールドの位置へテレポートします
+     * ワールドのティック処理は並列に実行されるため、別のワールドへの移動は
+     * すべてのワールドのティックが完了してから反映します。
+     */
+    public void teleport(World target, double x, double y, double z) {
+        if (target == world) {
+            setPosition(x, y, z);
+            return;
+        }
+        server.getWorldManager().runAfterWorldTick(() -> {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            setWorld(target);
+            logger.debug("プレイヤーがワールドを移動しました: " + username + " -> " + target.getName());
+        });
+    }
+    
+    /**
+     * 所属するワールドを変更します
+     * プレイヤーインデックスの移し替えはすべてのワールドのティックが完了してから反映します。
+     */
+    public void setWorld(World world) {
+        this.world = world;
+        if (world != null) {
+            world.wake();
+        }
+        requestIndexUpdate();
+    }
+    
+    /**
+     * プレイヤーインデックスの更新を予約します
+     * インデックスはワールドのティックスレッドから参照されるため、任意のスレッドからは直接変更せず、
+     * ワールドのティックの合間にまとめて反映します。
+     */
+    private void requestIndexUpdate() {
+        if (indexUpdateQueued.compareAndSet(false, true)) {
+            server.getWorldManager().runAfterWorldTick(this::updateIndex);
+        }
+    }
+    
+    /**
+     * プレイヤーインデックスを現在のワールドと位置に合わせます（ワールドのティックの合間に実行）
+     */
+    private void updateIndex() {
+        indexUpdateQueued.set(false);
+        World target = connected ? world : null;
+        if (indexHandle != null && indexWorld != target) {
+            indexWorld.getPlayerIndex().remove(indexHandle);
+            indexHandle = null;
+        }
+        indexWorld = target;
+        if (target == null) {
+            return;
+        }
+        if (indexHandle == null) {
+            indexHandle = target.getPlayerIndex().add(this, x, y, z);
+        } else {
+            target.getPlayerIndex().move(indexHandle, x, y, z);
+        }
     }
     
     /**
@@ -163,9 +273,13 @@ public class Player {
     // Getter methods
     public String getUsername() { return username; }
     public UUID getUuid() { return uuid; }
+    public int getEntityId() { return entityId; }
     public boolean isConnected() { return connected; }
     public boolean isOnline() { return online; }
     public long getLastActivity() { return lastActivity; }
+    public World getWorld() { return world; }
+    public Channel getChannel() { return channel; }
+    public void setChannel(Channel channel) { this.channel = channel; }
     public double getX() { return x; }
     public double getY() { return y; }
     public double getZ() { return z; }
@@ -3,14 +3,31 @@ package com.minecraft.server.plugin;
 import com.minecraft.server.MinecraftServer;
 import com.minecraft.server.util.Logger;
 
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 
 /**
  * プラグイン管理を担当するクラス
  */
 public class PluginManager {
     
+    private static final Path PLUGIN_DIRECTORY = Paths.get("plugins");
+    private static final String MAIN_CLASS_ATTRIBUTE = "Plugin-Main";
+    
     private final MinecraftServer server;
     private final Logger logger;
     private final Map<String, Plugin> plugins = new ConcurrentHashMap<>();
@@ -21,14 +38,80 @@ public class PluginManager {
     }
     
     /**
-     * プラグインを読み込みます
+     * プラグインディレクトリのJARを指定したエグゼキューターで並列に読み込みます
+     * 各JARはマニフェストの{@code Plugin-Main}属性でメインクラスを指定し、メインクラスは
+     * {@link MinecraftServer}を受け取るコンストラクターか引数なしのコンストラクターを持つ必要があります。
+     * 読み込んだプラグインは{@link #enableAllPlugins()}を呼ぶまで有効化しません。
+     * 読み込みに失敗したJARはエラーを記録してスキップします。
      */
-    public void loadPlugins() {
+    public CompletableFuture<Void> loadPlugins(Executor executor) {
         logger.info("プラグインを読み込み中...");
         
-        // TODO: プラグインディレクトリからプラグインをスキャンして読み込み
+        List<Path> jars = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(PLUGIN_DIRECTORY, "*.jar")) {
+            for (Path jar : stream) {
+                jars.add(jar);
+            }
+        } catch (NoSuchFileException e) {
+            // プラグインディレクトリがなければ読み込むものはない
+        } catch (IOException e) {
+            logger.error("プラグインディレクトリの読み込みに失敗しました", e);
+        }
+        
+        List<CompletableFuture<Void>> futures = new ArrayList<>(jars.size());
+        for (Path jar : jars) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    register(jar, loadPlugin(jar));
+                } catch (Exception e) {
+                    logger.error("プラグイン " + jar.getFileName() + " の読み込みに失敗しました", e);
+                }
+            }, executor));
+        }
+        
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenRun(() -> logger.info("プラグインの読み込みが完了しました (" + plugins.size() + "個)"));
+    }
+    
+    /**
+     * JARからプラグインのメインクラスを読み込み、インスタンスを作成します
+     */
+    private Plugin loadPlugin(Path jar) throws Exception {
+        String mainClass;
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            Manifest manifest = jarFile.getManifest();
+            mainClass = manifest != null ? manifest.getMainAttributes().getValue(MAIN_CLASS_ATTRIBUTE) : null;
+        }
+        if (mainClass == null) {
+            throw new IllegalArgumentException("Missing " + MAIN_CLASS_ATTRIBUTE + " in manifest: " + jar);
+        }
         
-        logger.info("プラグインの読み込みが完了しました");
+        // クラスローダーはプラグインが動作している間使い続けるため閉じない
+        URLClassLoader classLoader = new URLClassLoader(new URL[] { jar.toUri().toURL() }, getClass().getClassLoader());
+        Class<? extends Plugin> pluginClass = Class.forName(mainClass, true, classLoader).asSubclass(Plugin.class);
+        try {
+            return pluginClass.getConstructor(MinecraftServer.class).newInstance(server);
+        } catch (NoSuchMethodException e) {
+            return pluginClass.getConstructor().newInstance();
+        }
+    }
+    
+    private void register(Path jar, Plugin plugin) {
+        Plugin existing = plugins.putIfAbsent(plugin.getName(), plugin);
+        if (existing != null) {
+            logger.warn("プラグイン " + plugin.getName() + " は既に読み込まれているため " + jar.getFileName() + " をスキップしました");
+            return;
+        }
+        logger.info("プラグインを読み込みました: " + plugin.getName() + " v" + plugin.getVersion());
+    }
+    
+    /**
+     * 読み込み済みのすべてのプラグインを有効化します
+     */
+    public void enableAllPlugins() {
+        for (String name : plugins.keySet()) {
+            enablePlugin(name);
+        }
     }
     
     /**
@@ -54,6 +54,13 @@ public class Logger {
         log("WARN", message, null);
     }
     
+    /**
+     * 警告ログを出力します（例外付き）
+     */
+    public void warn(String message, Throwable throwable) {
+        log("WARN", message, throwable);
+    }
+    
     /**
      * エラーログを出力します
      */
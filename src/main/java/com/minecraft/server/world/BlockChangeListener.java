@@ -0,0 +1,18 @@
+package com.minecraft.server.world;
+
+/**
+ * ブロックの変更を受け取るリスナー
+ *
+ * 1ティックの間の変更はセクションごとにまとめられ、ティックの終わりに
+ * 1セクションにつき1回だけ通知されます。
+ */
+@FunctionalInterface
+public interface BlockChangeListener {
+    
+    /**
+     * セクション内のブロックが変更されたときに呼び出されます（ワールドのティックスレッド）
+     * positionsはセクション内の位置（y << 8 | z << 4 | x）、blockIdsは変更後のブロックIDで、
+     * どちらも先頭count個が有効です。配列は呼び出し後に再利用されるため保持しないでください。
+     */
+    void onSectionChanged(Chunk chunk, int sectionY, short[] positions, int[] blockIds, int count);
+} 
\ No newline at end of file
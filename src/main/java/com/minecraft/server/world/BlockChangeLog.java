@@ -0,0 +1,308 @@
+package com.minecraft.server.world;
+
+import com.minecraft.server.util.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * ブロック変更の先行書き込みログ（ワールドごと）
+ *
+ * ティック中の変更は{@link BlockChangeListener}としてセクション単位で受け取り、
+ * {@link #commit(long)}で1ティック分を1レコードとしてメモリマップしたセグメントファイルへ追記します。
+ * ディスクへの同期（fsync）はバックグラウンドスレッドで行うため、ティックスレッドは待ちません。
+ * 起動時は{@link #replay(ReplayHandler)}でリージョンファイルの内容に変更を適用し直します。
+ *
+ * セグメントは自動保存のたびに切り替え（{@link #roll()}）、保存したチャンクがディスクに
+ * 書き出された時点で古いセグメントを削除します（{@link #deleteSegmentsBefore(long)}）。
+ *
+ * セグメントの形式: [int マジック][int バージョン][レコード...]（長さ0で終端）
+ * レコードの形式: [int データ長][long ティック][int CRC32C][データ]
+ * データの形式: [int チャンクX][int チャンクZ][byte セクションY][short 数][(short 位置, int ブロックID) * 数]...
+ */
+public class BlockChangeLog implements BlockChangeListener, Closeable {
+    
+    private static final int MAGIC = 0x42574C47; // "BWLG"
+    private static final int VERSION = 1;
+    private static final int SEGMENT_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 16;
+    private static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final int MAX_SEGMENTS = 4; // これを超えたら自動保存を待たずに保存する
+    private static final String SEGMENT_SUFFIX = ".wal";
+    
+    private final Path directory;
+    private final Logger logger;
+    private final ExecutorService syncExecutor;
+    
+    // 削除されていないセグメント（古い順）
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private Segment current;
+    private long nextSequence = 1;
+    
+    // 書き込み待ちの1ティック分の変更（ティックスレッド専用）
+    private ByteBuffer pending = ByteBuffer.allocate(4096);
+    private final CRC32C crc = new CRC32C();
+    
+    public BlockChangeLog(Path directory, String worldName) {
+        this.directory = directory;
+        this.logger = new Logger("BlockChangeLog-" + worldName);
+        this.syncExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "BlockLogSync-" + worldName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * 残っているセグメントの変更を古い順に渡し、適用したレコード数を返します
+     * 途中で書き込みが中断されたレコード（長さやCRCが不正）以降はそのセグメントでは読み飛ばします。
+     * 読み込んだセグメントは{@link #deleteSegmentsBefore(long)}で削除されるまで残します。
+     */
+    public synchronized int replay(ReplayHandler handler) throws IOException {
+        List<Segment> found = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String fileName = path.getFileName().toString();
+                try {
+                    long sequence = Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()), 16);
+                    found.add(new Segment(sequence, path, null));
+                } catch (NumberFormatException e) {
+                    logger.warn("不明なファイルを無視します: " + fileName);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+        found.sort((a, b) -> Long.compare(a.sequence, b.sequence));
+        
+        short[] positions = new short[ChunkSection.VOLUME];
+        int[] blockIds = new int[ChunkSection.VOLUME];
+        int records = 0;
+        for (Segment segment : found) {
+            records += replaySegment(segment.path, handler, positions, blockIds);
+            segments.add(segment);
+            nextSequence = Math.max(nextSequence, segment.sequence + 1);
+        }
+        return records;
+    }
+    
+    private int replaySegment(Path path, ReplayHandler handler, short[] positions, int[] blockIds) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < SEGMENT_HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            logger.warn("ヘッダーが不正なセグメントを無視します: " + path.getFileName());
+            return 0;
+        }
+        
+        int records = 0;
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int length = buffer.getInt();
+            if (length == 0) {
+                break; // 終端
+            }
+            buffer.getLong(); // ティック
+            int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                logger.warn("書き込みが中断されたレコードを検出しました: " + path.getFileName());
+                break;
+            }
+            ByteBuffer data = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            crc.reset();
+            crc.update(data.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                logger.warn("CRCが一致しないレコードを検出しました: " + path.getFileName());
+                break;
+            }
+            
+            while (data.hasRemaining()) {
+                int chunkX = data.getInt();
+                int chunkZ = data.getInt();
+                int sectionY = data.get();
+                int count = data.getShort();
+                for (int i = 0; i < count; i++) {
+                    positions[i] = data.getShort();
+                    blockIds[i] = data.getInt();
+                }
+                handler.apply(chunkX, chunkZ, sectionY, positions, blockIds, count);
+            }
+            records++;
+        }
+        return records;
+    }
+    
+    @Override
+    public void onSectionChanged(Chunk chunk, int sectionY, short[] positions, int[] blockIds, int count) {
+        ensurePending(11 + count * 6);
+        pending.putInt(chunk.getChunkX());
+        pending.putInt(chunk.getChunkZ());
+        pending.put((byte) sectionY);
+        pending.putShort((short) count);
+        for (int i = 0; i < count; i++) {
+            pending.putShort(positions[i]);
+            pending.putInt(blockIds[i]);
+        }
+    }
+    
+    private void ensurePending(int bytes) {
+        if (pending.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+    }
+    
+    /**
+     * 1ティック分の変更をセグメントへ追記し、同期をバックグラウンドで要求します（ティックスレッド専用）
+     */
+    public synchronized void commit(long tick) {
+        int length = pending.position();
+        if (length == 0) {
+            return;
+        }
+        
+        int size = RECORD_HEADER_SIZE + length;
+        try {
+            if (current == null || current.buffer.remaining() < size + 4) {
+                openSegment(size + 4);
+            }
+        } catch (IOException e) {
+            // 次のティックで再試行する（保存されていない変更は失われ得る）
+            logger.error("ログセグメントを作成できませんでした", e);
+            current = null;
+            pending.clear();
+            return;
+        }
+        
+        crc.reset();
+        crc.update(pending.array(), 0, length);
+        MappedByteBuffer buffer = current.buffer;
+        int start = buffer.position();
+        buffer.putInt(length);
+        buffer.putLong(tick);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(pending.array(), 0, length);
+        pending.clear();
+        
+        if (!syncExecutor.isShutdown()) {
+            syncExecutor.execute(() -> buffer.force(start, size));
+        }
+    }
+    
+    private void openSegment(int minSize) throws IOException {
+        Files.createDirectories(directory);
+        long sequence = nextSequence++;
+        Path path = directory.resolve(String.format("%016x", sequence) + SEGMENT_SUFFIX);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // マッピングはチャネルを閉じても有効
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(SEGMENT_SIZE, SEGMENT_HEADER_SIZE + minSize));
+        }
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        current = new Segment(sequence, path, buffer);
+        segments.add(current);
+    }
+    
+    /**
+     * 以降の変更を新しいセグメントへ書き込むようにし、その番号を返します
+     * セグメントは次に変更が記録されたときに作成します。
+     */
+    public synchronized long roll() {
+        current = null;
+        return nextSequence;
+    }
+    
+    /**
+     * 指定した番号より前のセグメントを削除します（それらの変更がリージョンファイルに保存された後に呼び出します）
+     */
+    public synchronized void deleteSegmentsBefore(long sequence) {
+        Iterator<Segment> iterator = segments.iterator();
+        while (iterator.hasNext()) {
+            Segment segment = iterator.next();
+            if (segment.sequence >= sequence || segment == current) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(segment.path);
+                iterator.remove();
+            } catch (IOException e) {
+                logger.error("ログセグメントを削除できませんでした: " + segment.path.getFileName(), e);
+            }
+        }
+    }
+    
+    /**
+     * ログが大きくなったため、自動保存の間隔を待たずに保存すべきかどうかを確認します
+     */
+    public synchronized boolean needsCheckpoint() {
+        return segments.size() > MAX_SEGMENTS;
+    }
+    
+    /**
+     * 同期の完了を待ってログを閉じます
+     */
+    @Override
+    public synchronized void close() {
+        syncExecutor.shutdown();
+        try {
+            if (!syncExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("ログの同期が時間内に完了しませんでした");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (current != null) {
+            current.buffer.force();
+            current = null;
+        }
+    }
+    
+    /**
+     * 記録された変更を適用する処理
+     */
+    @FunctionalInterface
+    public interface ReplayHandler {
+        
+        /**
+         * 1セクション分の変更を適用します（位置はy << 8 | z << 4 | x、配列は呼び出し後に再利用されます）
+         */
+        void apply(int chunkX, int chunkZ, int sectionY, short[] positions, int[] blockIds, int count);
+    }
+    
+    /**
+     * 1つのセグメントファイル（読み込んだだけのセグメントはbufferがnull）
+     */
+    private static final class Segment {
+        
+        final long sequence;
+        final Path path;
+        final MappedByteBuffer buffer;
+        
+        Segment(long sequence, Path path, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,109 @@
+package com.minecraft.server.world;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * まとめて適用するブロック変更の集まり
+ *
+ * 変更はチャンク・セクションごとに振り分けて保持し、{@link World#applyEdit(BlockEditBatch)}で
+ * チャンクの検索を1チャンクにつき1回だけ行ってセクションへ直接書き込みます。
+ * 同じ位置への変更は後から追加したものが優先されます。
+ * 適用したバッチは再利用しないでください。
+ */
+public class BlockEditBatch {
+    
+    private final Map<Long, ChunkEdits> chunks = new LinkedHashMap<>();
+    private ChunkEdits lastChunk; // 同じチャンクへの連続した変更ではマップを引かない
+    private int size;
+    
+    /**
+     * ブロックの変更を追加します（高さの範囲外は無視します）
+     */
+    public BlockEditBatch set(int x, int y, int z, int blockId) {
+        if (y < 0 || y >= Chunk.HEIGHT) {
+            return this;
+        }
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+        ChunkEdits edits = lastChunk;
+        if (edits == null || edits.chunkX != chunkX || edits.chunkZ != chunkZ) {
+            edits = chunks.computeIfAbsent(ChunkMap.key(chunkX, chunkZ), key -> new ChunkEdits(chunkX, chunkZ));
+            lastChunk = edits;
+        }
+        edits.add(ChunkSection.index(x & 15, y & 15, z & 15), y >> 4, blockId);
+        size++;
+        return this;
+    }
+    
+    /**
+     * 追加された変更の数を取得します
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * 変更が追加されていないかどうかを確認します
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * 変更対象のチャンクの数を取得します
+     */
+    public int getChunkCount() {
+        return chunks.size();
+    }
+    
+    Collection<ChunkEdits> getChunkEdits() {
+        return chunks.values();
+    }
+    
+    /**
+     * 1つのチャンクへの変更
+     */
+    static final class ChunkEdits {
+        
+        final int chunkX;
+        final int chunkZ;
+        final SectionEdits[] sections = new SectionEdits[Chunk.SECTION_COUNT];
+        
+        ChunkEdits(int chunkX, int chunkZ) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+        
+        void add(int index, int sectionY, int blockId) {
+            SectionEdits section = sections[sectionY];
+            if (section == null) {
+                section = new SectionEdits();
+                sections[sectionY] = section;
+            }
+            section.add(index, blockId);
+        }
+    }
+    
+    /**
+     * 1つのセクションへの変更（位置はy << 8 | z << 4 | x）
+     */
+    static final class SectionEdits {
+        
+        short[] positions = new short[16];
+        int[] blockIds = new int[16];
+        int size;
+        
+        void add(int index, int blockId) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                blockIds = Arrays.copyOf(blockIds, size * 2);
+            }
+            positions[size] = (short) index;
+            blockIds[size] = blockId;
+            size++;
+        }
+    }
+} 
\ No newline at end of file
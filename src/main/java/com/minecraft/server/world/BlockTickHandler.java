@@ -0,0 +1,13 @@
+package com.minecraft.server.world;
+
+/**
+ * 予約されたブロックの更新を処理するインターフェース
+ */
+@FunctionalInterface
+public interface BlockTickHandler {
+    
+    /**
+     * 予約した時点と同じブロックがまだその位置にある場合に呼び出されます
+     */
+    void onScheduledTick(World world, ScheduledTick tick);
+} 
\ No newline at end of file
@@ -0,0 +1,206 @@
+package com.minecraft.server.world;
+
+import com.minecraft.server.util.Logger;
+
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ブロックの更新予約（液体の流れ、作物の成長など）を管理するクラス
+ *
+ * 予約はチャンクごとの{@link ChunkTickList}に保持し、このクラスは
+ * 「チャンクと、そのチャンクで最も早い予定ティック」の組だけを優先度付きキューで
+ * 管理します。キューの大きさは予約の総数ではなく予約を持つチャンク数に比例し、
+ * 各ティックでは予定を過ぎたチャンクだけを処理するため、処理量は実行する予約数に比例します。
+ *
+ * キューにはチャンクの最も早い予定ティックが早まった時だけ要素を積み、既存の要素は
+ * 更新しないため、取り出した時点でチャンクの最も早い予定ティックと一致しない要素は
+ * 古いものとして読み飛ばします。
+ *
+ * 予約はチャンクと一緒に保存されるため、予約の追加・実行でチャンクを変更済みにします。
+ *
+ * リージョン単位のティックが有効な場合はキューを使わず、各リージョンのスレッドが
+ * 自分のチャンクの予約を{@link #runDue(Chunk, long, int)}で実行します。
+ */
+public class BlockTickScheduler {
+    
+    // 1ティックで実行する予約の上限（超えた分は次のティックへ）
+    static final int MAX_TICKS_PER_TICK = 65536;
+    
+    // ティック対象外のチャンクの予約を再確認する間隔
+    private static final long INACTIVE_RECHECK_TICKS = 20;
+    
+    private final World world;
+    private final Logger logger;
+    private final PriorityQueue<ChunkDue> queue = new PriorityQueue<>();
+    private final Map<Integer, BlockTickHandler> handlers = new ConcurrentHashMap<>();
+    private final AtomicLong order = new AtomicLong();
+    
+    public BlockTickScheduler(World world) {
+        this.world = world;
+        this.logger = new Logger("BlockTicks-" + world.getName());
+    }
+    
+    /**
+     * ブロックIDに対する処理を登録します
+     */
+    public void registerHandler(int blockId, BlockTickHandler handler) {
+        handlers.put(blockId, handler);
+    }
+    
+    /**
+     * ブロックの更新を予約します（ティックスレッド、またはチャンクを所有するリージョンのスレッド）
+     * チャンクが読み込まれていない場合、または同じ予約が既にある場合はfalseを返します。
+     * 他のリージョンのチャンクへの予約はリージョンのティック後に行い、trueを返します。
+     */
+    public boolean schedule(int x, int y, int z, int blockId, int delay, int priority) {
+        TickRegionScheduler regionScheduler = world.getChunkManager().getRegionScheduler();
+        if (regionScheduler != null
+                && regionScheduler.deferIfForeign(x >> 4, z >> 4, () -> schedule(x, y, z, blockId, delay, priority))) {
+            return true;
+        }
+        Chunk chunk = world.getChunkManager().getChunk(x >> 4, z >> 4);
+        if (chunk == null) {
+            return false;
+        }
+        long dueTick = world.getTickCount() + Math.max(1, delay);
+        ChunkTickList list = chunk.getScheduledTicks();
+        long previousDue = list.getNextDueTick();
+        if (!list.add(createTick(x, y, z, blockId, dueTick, priority))) {
+            return false;
+        }
+        chunk.setDirty(true);
+        // チャンクの最も早い予定が早まった場合のみキューに積む
+        if (regionScheduler == null && dueTick < previousDue) {
+            queue.add(new ChunkDue(chunk, dueTick));
+        }
+        return true;
+    }
+    
+    ScheduledTick createTick(int x, int y, int z, int blockId, long dueTick, int priority) {
+        return new ScheduledTick(x, y, z, blockId, dueTick, priority, order.getAndIncrement());
+    }
+    
+    /**
+     * 読み込まれたチャンクの予約を有効にします（ティックスレッド専用）
+     */
+    void onChunkLoaded(Chunk chunk) {
+        ChunkTickList list = chunk.getScheduledTicks();
+        list.resolve(world.getTickCount(), this);
+        long next = list.getNextDueTick();
+        if (next != Long.MAX_VALUE && world.getChunkManager().getRegionScheduler() == null) {
+            queue.add(new ChunkDue(chunk, next));
+        }
+    }
+    
+    /**
+     * キューを空にします（すべてのチャンクをアンロードした時、予約はチャンクに残ります）
+     */
+    void clear() {
+        queue.clear();
+    }
+    
+    /**
+     * 予定ティックを過ぎた予約を実行します（ティックスレッド専用）
+     */
+    public void tick(long currentTick) {
+        ChunkManager chunkManager = world.getChunkManager();
+        int executed = 0;
+        
+        while (!queue.isEmpty() && queue.peek().wakeTick <= currentTick) {
+            ChunkDue due = queue.poll();
+            Chunk chunk = due.chunk;
+            ChunkTickList list = chunk.getScheduledTicks();
+            
+            // アンロードされたチャンクや、既に処理した古い要素は読み飛ばす
+            if (!chunk.isLoaded() || list.getNextDueTick() != due.dueTick) {
+                continue;
+            }
+            
+            // ティック対象外のチャンクは予約を保持したまま後で確認する
+            if (!chunkManager.isChunkTicking(chunk.getChunkX(), chunk.getChunkZ())) {
+                queue.add(new ChunkDue(chunk, due.dueTick, currentTick + INACTIVE_RECHECK_TICKS));
+                continue;
+            }
+            
+            if (executed >= MAX_TICKS_PER_TICK) {
+                queue.add(due);
+                break;
+            }
+            
+            executed += runDue(chunk, currentTick, MAX_TICKS_PER_TICK - executed);
+            
+            long next = list.getNextDueTick();
+            if (next != Long.MAX_VALUE) {
+                queue.add(new ChunkDue(chunk, next));
+            }
+        }
+    }
+    
+    /**
+     * チャンクの予定ティックを過ぎた予約を最大limit個実行し、実行した数を返します
+     * ティックスレッド、またはチャンクを所有するリージョンのスレッドから呼び出してください。
+     */
+    int runDue(Chunk chunk, long currentTick, int limit) {
+        ChunkTickList list = chunk.getScheduledTicks();
+        int executed = 0;
+        ScheduledTick tick;
+        while (executed < limit && (tick = list.pollDue(currentTick)) != null) {
+            chunk.setDirty(true);
+            run(tick);
+            executed++;
+        }
+        return executed;
+    }
+    
+    private void run(ScheduledTick tick) {
+        // 予約後にブロックが変わっていれば実行しない
+        if (world.getBlock(tick.getX(), tick.getY(), tick.getZ()) != tick.getBlockId()) {
+            return;
+        }
+        BlockTickHandler handler = handlers.get(tick.getBlockId());
+        if (handler == null) {
+            return;
+        }
+        try {
+            handler.onScheduledTick(world, tick);
+        } catch (Exception e) {
+            logger.error("ブロックの更新でエラーが発生しました: " + tick.getX() + ", " + tick.getY() + ", " + tick.getZ(), e);
+        }
+    }
+    
+    /**
+     * 予約を持つチャンクの数（古い要素を含む）を取得します
+     */
+    public int getQueuedChunkCount() {
+        return queue.size();
+    }
+    
+    /**
+     * チャンクと、そのチャンクで最も早い予定ティック
+     */
+    private static final class ChunkDue implements Comparable<ChunkDue> {
+        final Chunk chunk;
+        // チャンクの予約の予定ティック（古い要素の判定に使用）
+        final long dueTick;
+        // キューから取り出すティック
+        final long wakeTick;
+        
+        ChunkDue(Chunk chunk, long dueTick) {
+            this(chunk, dueTick, dueTick);
+        }
+        
+        ChunkDue(Chunk chunk, long dueTick, long wakeTick) {
+            this.chunk = chunk;
+            this.dueTick = dueTick;
+            this.wakeTick = wakeTick;
+        }
+        
+        @Override
+        public int compareTo(ChunkDue other) {
+            return Long.compare(wakeTick, other.wakeTick);
+        }
+    }
+} 
\ No newline at end of file
@@ -1,14 +1,42 @@
 package com.minecraft.server.world;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
- * チャンクを表すクラス（スタブ）
+ * チャンクを表すクラス
+ *
+ * ブロックは高さ16ブロックごとのChunkSectionに分割して保持します。
+ * 空気のみのセクションはnullとして保持し、メモリを割り当てません。
+ *
+ * スナップショットと共有中のセクションは変更せず、書き込む時点でコピーに置き換えます。
  */
 public class Chunk {
     
+    public static final int HEIGHT = 256;
+    public static final int SECTION_COUNT = HEIGHT / ChunkSection.SIZE;
+    
     private final World world;
     private final int chunkX;
     private final int chunkZ;
-    private final int[][][] blocks = new int[16][256][16]; // x, y, z
+    private final ChunkSection[] sections = new ChunkSection[SECTION_COUNT];
+    private volatile boolean loaded = false;
+    
+    // 最後に保存してから変更されたかどうか（新しく生成したチャンクは未保存）
+    private volatile boolean dirty = true;
+    
+    // 内容が変わるたびに増える版数（ティックスレッドのみが更新、送信用パケットのキャッシュ判定に使用）
+    private volatile long version;
+    
+    // 列ごとの最も高い空気以外のブロックの1つ上の高さ（光源計算の段階で求め、ブロックが変わると破棄）
+    private int[] heightmap;
+    
+    // このチャンク内のブロックの更新予約
+    private final ChunkTickList scheduledTicks = new ChunkTickList();
+    
+    // 最後に通知してから変更されたブロック（セクションごとに4096ビット、リスナーがいる場合のみ記録）
+    private long[][] changedBlocks;
+    private int changedSectionMask;
     
     public Chunk(World world, int chunkX, int chunkZ) {
         this.world = world;
@@ -17,17 +45,316 @@ public class Chunk {
     }
     
     public int getBlock(int x, int y, int z) {
-        if (x < 0 || x >= 16 || y < 0 || y >= 256 || z < 0 || z >= 16) {
+        if (x < 0 || x >= 16 || y < 0 || y >= HEIGHT || z < 0 || z >= 16) {
             return 0; // 空気ブロック
         }
-        return blocks[x][y][z];
+        ChunkSection section = sections[y >> 4];
+        if (section == null) {
+            return ChunkSection.AIR;
+        }
+        return section.getBlock(x, y & 15, z);
     }
     
     public void setBlock(int x, int y, int z, int blockId) {
-        if (x < 0 || x >= 16 || y < 0 || y >= 256 || z < 0 || z >= 16) {
+        if (x < 0 || x >= 16 || y < 0 || y >= HEIGHT || z < 0 || z >= 16) {
+            return;
+        }
+        int sectionY = y >> 4;
+        ChunkSection section = sections[sectionY];
+        if (section == null) {
+            if (blockId == ChunkSection.AIR) {
+                return;
+            }
+            section = new ChunkSection();
+            sections[sectionY] = section;
+        }
+        int index = ChunkSection.index(x, y & 15, z);
+        if (section.get(index) == blockId) {
             return;
         }
-        blocks[x][y][z] = blockId;
+        if (section.isShared()) {
+            section = section.copy();
+            sections[sectionY] = section;
+        }
+        section.set(index, blockId);
+        markChanged();
+        recordChange(sectionY, index);
+        
+        // 空気のみになったセクションは解放
+        if (section.isEmpty()) {
+            sections[sectionY] = null;
+        }
+    }
+    
+    /**
+     * セクション全体を指定したブロックで埋めます
+     */
+    public void fillSection(int sectionY, int blockId) {
+        markChanged();
+        recordSectionChange(sectionY);
+        if (blockId == ChunkSection.AIR) {
+            sections[sectionY] = null;
+        } else if (sections[sectionY] == null || sections[sectionY].isShared()) {
+            sections[sectionY] = new ChunkSection(blockId);
+        } else {
+            sections[sectionY].fill(blockId);
+        }
+    }
+    
+    /**
+     * セクション内の複数のブロックをまとめて設定し、変更されたブロック数を返します
+     * positionsはセクション内の位置（y << 8 | z << 4 | x）で、先頭count個を順に適用します。
+     */
+    int setBlocks(int sectionY, short[] positions, int[] blockIds, int count) {
+        ChunkSection section = sections[sectionY];
+        if (section == null) {
+            section = new ChunkSection();
+        }
+        int changed = 0;
+        for (int i = 0; i < count; i++) {
+            int index = positions[i];
+            if (section.get(index) == blockIds[i]) {
+                continue;
+            }
+            if (section.isShared()) {
+                section = section.copy();
+            }
+            section.set(index, blockIds[i]);
+            recordChange(sectionY, index);
+            changed++;
+        }
+        if (changed > 0) {
+            sections[sectionY] = section.isEmpty() ? null : section;
+            markChanged();
+        }
+        return changed;
+    }
+    
+    /**
+     * 直方体の範囲を指定したブロックで埋め、書き込んだブロック数を返します
+     * 座標はチャンク内の座標で、最小値・最大値ともに範囲に含みます。
+     * 範囲がセクション全体を覆う場合はセクションを単一値に置き換えます。
+     */
+    int fill(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int blockId) {
+        int written = 0;
+        boolean changed = false;
+        for (int sectionY = minY >> 4; sectionY <= maxY >> 4; sectionY++) {
+            int fromY = Math.max(minY, sectionY << 4) & 15;
+            int toY = Math.min(maxY, (sectionY << 4) + 15) & 15;
+            written += (maxX - minX + 1) * (toY - fromY + 1) * (maxZ - minZ + 1);
+            
+            ChunkSection section = sections[sectionY];
+            if (minX == 0 && maxX == 15 && minZ == 0 && maxZ == 15 && fromY == 0 && toY == 15) {
+                // 既に同じブロックのみのセクションは変更しない
+                boolean unchanged = section == null ? blockId == ChunkSection.AIR
+                        : section.isSingleValue() && section.get(0) == blockId;
+                if (!unchanged) {
+                    sections[sectionY] = blockId == ChunkSection.AIR ? null : new ChunkSection(blockId);
+                    recordSectionChange(sectionY);
+                    changed = true;
+                }
+                continue;
+            }
+            
+            if (section == null) {
+                if (blockId == ChunkSection.AIR) {
+                    continue;
+                }
+                section = new ChunkSection();
+            }
+            boolean sectionChanged = false;
+            for (int y = fromY; y <= toY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    for (int x = minX; x <= maxX; x++) {
+                        int index = ChunkSection.index(x, y, z);
+                        if (section.get(index) == blockId) {
+                            continue;
+                        }
+                        if (section.isShared()) {
+                            section = section.copy();
+                        }
+                        section.set(index, blockId);
+                        recordChange(sectionY, index);
+                        sectionChanged = true;
+                    }
+                }
+            }
+            if (sectionChanged) {
+                sections[sectionY] = section.isEmpty() ? null : section;
+                changed = true;
+            }
+        }
+        if (changed) {
+            markChanged();
+        }
+        return written;
+    }
+    
+    /**
+     * 1ブロックの変更を通知用に記録します
+     */
+    private void recordChange(int sectionY, int index) {
+        long[] mask = changedBits(sectionY);
+        if (mask != null) {
+            mask[index >>> 6] |= 1L << index;
+        }
+    }
+    
+    /**
+     * セクション全体の変更を通知用に記録します
+     */
+    private void recordSectionChange(int sectionY) {
+        long[] mask = changedBits(sectionY);
+        if (mask != null) {
+            Arrays.fill(mask, -1L);
+        }
+    }
+    
+    /**
+     * 変更を記録するビットマスクを取得します（記録不要の場合はnull）
+     * 読み込み済みでないチャンク（生成中・復元中）の変更は通知しません。
+     */
+    private long[] changedBits(int sectionY) {
+        if (!loaded || !world.hasBlockChangeListeners()) {
+            return null;
+        }
+        if (changedBlocks == null) {
+            changedBlocks = new long[SECTION_COUNT][];
+        }
+        if (changedSectionMask == 0) {
+            world.queueBlockChanges(this);
+        }
+        if ((changedSectionMask & (1 << sectionY)) == 0) {
+            changedSectionMask |= 1 << sectionY;
+            if (changedBlocks[sectionY] == null) {
+                changedBlocks[sectionY] = new long[ChunkSection.VOLUME / 64];
+            }
+        }
+        return changedBlocks[sectionY];
+    }
+    
+    /**
+     * 記録した変更をセクションごとにリスナーへ通知し、記録を消去します（ワールドのティックスレッド専用）
+     */
+    void flushChanges(List<BlockChangeListener> listeners, short[] positions, int[] blockIds) {
+        int mask = changedSectionMask;
+        changedSectionMask = 0;
+        for (int sectionY = 0; sectionY < SECTION_COUNT; sectionY++) {
+            if ((mask & (1 << sectionY)) == 0) {
+                continue;
+            }
+            long[] bits = changedBlocks[sectionY];
+            ChunkSection section = sections[sectionY];
+            int count = 0;
+            for (int word = 0; word < bits.length; word++) {
+                long value = bits[word];
+                while (value != 0) {
+                    int index = (word << 6) | Long.numberOfTrailingZeros(value);
+                    positions[count] = (short) index;
+                    blockIds[count] = section == null ? ChunkSection.AIR : section.get(index);
+                    count++;
+                    value &= value - 1;
+                }
+                bits[word] = 0;
+            }
+            if (!loaded) {
+                continue; // 通知前にアンロードされたチャンクは記録の消去のみ
+            }
+            for (BlockChangeListener listener : listeners) {
+                listener.onSectionChanged(this, sectionY, positions, blockIds, count);
+            }
+        }
+    }
+    
+    /**
+     * 現在の内容の変更されないスナップショットを作成します（ティックスレッド専用）
+     * セクションはコピーせずに共有し、チャンク側が次に書き込むときにコピーします。
+     */
+    ChunkSnapshot snapshot() {
+        ChunkSection[] shared = new ChunkSection[SECTION_COUNT];
+        for (int sectionY = 0; sectionY < SECTION_COUNT; sectionY++) {
+            ChunkSection section = sections[sectionY];
+            if (section != null) {
+                section.markShared();
+                shared[sectionY] = section;
+            }
+        }
+        return new ChunkSnapshot(chunkX, chunkZ, version, shared);
+    }
+    
+    /**
+     * セクションを置き換えます（空気のみのセクションはnull）
+     */
+    void setSection(int sectionY, ChunkSection section) {
+        sections[sectionY] = section != null && section.isEmpty() ? null : section;
+        version++;
+        heightmap = null;
+    }
+    
+    /**
+     * セクションが空気のみかどうかを確認します
+     */
+    public boolean isSectionEmpty(int sectionY) {
+        return sections[sectionY] == null;
+    }
+    
+    /**
+     * 空気以外のブロックを含むセクションのビットマスクを取得します
+     * ティック処理・保存・ネットワーク送信では、このマスクに含まれないセクションを省略します
+     */
+    public int getNonEmptySectionMask() {
+        int mask = 0;
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            if (sections[i] != null) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+    
+    /**
+     * 列の高さ（最も高い空気以外のブロックの1つ上）を取得します
+     * 空の光はこの高さ以上にだけ届くものとして扱います。破棄されていれば求め直します。
+     */
+    public int getHeight(int x, int z) {
+        int[] heights = heightmap;
+        if (heights == null) {
+            heights = computeHeightmap();
+        }
+        return heights[(z << 4) | x];
+    }
+    
+    /**
+     * すべての列の高さを求めます（チャンクパイプラインの光源計算の段階、またはティックスレッド）
+     */
+    int[] computeHeightmap() {
+        int[] heights = new int[256];
+        for (int column = 0; column < 256; column++) {
+            int x = column & 15;
+            int z = column >> 4;
+            search:
+            for (int sectionY = SECTION_COUNT - 1; sectionY >= 0; sectionY--) {
+                ChunkSection section = sections[sectionY];
+                if (section == null) {
+                    continue;
+                }
+                for (int y = ChunkSection.SIZE - 1; y >= 0; y--) {
+                    if (section.getBlock(x, y, z) != ChunkSection.AIR) {
+                        heights[column] = sectionY * ChunkSection.SIZE + y + 1;
+                        break search;
+                    }
+                }
+            }
+        }
+        heightmap = heights;
+        return heights;
+    }
+    
+    /**
+     * セクションを取得します（空気のみのセクションはnull）
+     */
+    public ChunkSection getSection(int sectionY) {
+        return sections[sectionY];
     }
     
     public int getChunkX() {
@@ -41,4 +368,53 @@ public class Chunk {
     public World getWorld() {
         return world;
     }
+    
+    /**
+     * このチャンク内のブロックの更新予約を取得します
+     */
+    public ChunkTickList getScheduledTicks() {
+        return scheduledTicks;
+    }
+    
+    /**
+     * チャンクが読み込み済みチャンクとして登録されているかどうかを確認します
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+    
+    void setLoaded(boolean loaded) {
+        this.loaded = loaded;
+    }
+    
+    /**
+     * 内容の変更を記録します（保存対象にし、版数を進めます）
+     */
+    private void markChanged() {
+        dirty = true;
+        version++;
+        heightmap = null;
+    }
+    
+    /**
+     * チャンクの版数を取得します
+     * ブロックが変更されるたびに増えるため、値が同じであれば内容も同じです。
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * 最後に保存してから変更されているかどうかを確認します
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+    
+    /**
+     * 変更フラグを設定します
+     */
+    public void setDirty(boolean dirty) {
+        this.dirty = dirty;
+    }
 } 
\ No newline at end of file
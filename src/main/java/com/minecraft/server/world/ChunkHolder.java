@@ -0,0 +1,74 @@
+package com.minecraft.server.world;
+
+/**
+ * チャンクごとのチケットレベルと読み込み状態を保持するクラス
+ */
+public final class ChunkHolder {
+    
+    /**
+     * チャンクの読み込み状態
+     */
+    public enum State {
+        /** チケットがなく、アンロード対象 */
+        INACCESSIBLE,
+        /** 読み込まれているがティックされない */
+        BORDER,
+        /** 読み込まれてティックされる */
+        TICKING;
+        
+        /**
+         * チケットレベルから状態を求めます
+         */
+        public static State fromLevel(int level) {
+            if (level <= ChunkTicketManager.TICKING_LEVEL) {
+                return TICKING;
+            }
+            if (level <= ChunkTicketManager.BORDER_LEVEL) {
+                return BORDER;
+            }
+            return INACCESSIBLE;
+        }
+    }
+    
+    private final int chunkX;
+    private final int chunkZ;
+    private int level = ChunkTicketManager.UNLOADED_LEVEL;
+    private State state = State.INACCESSIBLE;
+    
+    // アンロード予定のティック（予定がない場合は-1）
+    private long unloadTick = -1;
+    
+    ChunkHolder(int chunkX, int chunkZ) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+    }
+    
+    public int getChunkX() {
+        return chunkX;
+    }
+    
+    public int getChunkZ() {
+        return chunkZ;
+    }
+    
+    public int getLevel() {
+        return level;
+    }
+    
+    public State getState() {
+        return state;
+    }
+    
+    void setLevel(int level) {
+        this.level = level;
+        this.state = State.fromLevel(level);
+    }
+    
+    long getUnloadTick() {
+        return unloadTick;
+    }
+    
+    void setUnloadTick(long unloadTick) {
+        this.unloadTick = unloadTick;
+    }
+} 
\ No newline at end of file
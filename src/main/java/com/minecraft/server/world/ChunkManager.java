@@ -1,43 +1,618 @@
 package com.minecraft.server.world;
 
+import com.minecraft.server.player.Player;
 import com.minecraft.server.util.Logger;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
 /**
- * チャンク管理を担当するクラス（スタブ）
+ * チャンク管理を担当するクラス
+ *
+ * 読み込み済みチャンクはティックスレッドのみが更新し、ネットワークスレッドなど
+ * 他のスレッドからはロックなしで参照できます。
+ * 読み込まれていないチャンクは{@link #getChunkAsync(int, int)}でワーカースレッド上に
+ * 読み込み・生成を要求し、ティックスレッドがディスクI/Oや地形生成を待つことはありません。
+ *
+ * 自動保存は変更されたチャンクだけを対象とし、ティックごとの時間予算内で
+ * スナップショット（シリアライズ）を作成して、書き込みはI/Oスレッドで行います。
+ *
+ * どのチャンクを読み込み・ティックするかは{@link ChunkTicketManager}のチケットで決まり、
+ * チケットがなくなったチャンクは猶予期間の後に保存してアンロードされます。
  */
 public class ChunkManager {
     
     private final World world;
     private final Logger logger;
+    private final ChunkMap<Chunk> loadedChunks = new ChunkMap<>();
+    private ChunkPipeline pipeline;
+    private RegionStorage storage;
+    private BlockChangeLog changeLog;
+    private ExecutorService ioExecutor;
+    private final ChunkTicketManager ticketManager;
+    private TickRegionScheduler regionScheduler;
+    
+    // I/Oスレッドへ投入済みで書き込みが完了していないチャンクデータ
+    // アンロード直後に再読み込みされた場合に古いデータを読まないようにする
+    private final Map<Long, byte[]> pendingWrites = new ConcurrentHashMap<>();
+    
+    // 自動保存待ちのチャンク（ティックスレッド専用）
+    private final ArrayDeque<Chunk> autosaveQueue = new ArrayDeque<>();
+    private int autosavedChunks;
+    private long autosaveCheckpoint;
+    
+    // 前回のリージョンファイルの書き出し以降にチャンクの保存が失敗したか（失敗した場合はログを残す）
+    private volatile boolean saveFailed;
+    
+    // 最後にアクセスしたチャンク（同じチャンクへの連続アクセスを高速化）
+    private volatile Chunk lastChunk;
     
     public ChunkManager(World world) {
         this.world = world;
         this.logger = new Logger("ChunkManager-" + world.getName());
+        this.ticketManager = new ChunkTicketManager(this);
     }
     
     public void initialize() {
+        storage = new RegionStorage(world.getWorldPath().resolve("region"));
+        changeLog = new BlockChangeLog(world.getWorldPath().resolve("wal"), world.getName());
+        ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ChunkIO-" + world.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pipeline = new ChunkPipeline(world, this, world.getServer().getWorldManager().getChunkWorkerPool());
+        if (world.getServer().getConfig().isRegionThreading()) {
+            regionScheduler = new TickRegionScheduler(world, world.getServer().getWorldManager().getRegionTickPool());
+        }
         logger.info("チャンクマネージャーを初期化しました");
     }
     
     public void shutdown() {
+        autosaveQueue.clear();
+        if (ioExecutor != null) {
+            ioExecutor.shutdown();
+            try {
+                if (!ioExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    logger.warn("チャンクの書き込みが時間内に完了しませんでした");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        loadedChunks.forEach(chunk -> chunk.setLoaded(false));
+        loadedChunks.clear();
+        lastChunk = null;
+        
+        if (storage != null) {
+            try {
+                storage.close();
+            } catch (IOException e) {
+                logger.error("リージョンファイルのクローズに失敗しました", e);
+            }
+        }
+        if (changeLog != null) {
+            changeLog.close();
+        }
         logger.info("チャンクマネージャーをシャットダウンしました");
     }
     
     public void tick() {
-        // TODO: チャンクのティック処理
+        // 非同期で読み込みが完了したチャンクを登録
+        if (pipeline != null) {
+            pipeline.drainCompleted();
+        }
+        
+        // チケットレベルの更新と期限が来たチャンクのアンロード
+        ticketManager.tick(world.getTickCount());
+        
+        // 予定ティックを過ぎたブロックの更新を実行（リージョン単位の場合は各リージョンのスレッドで実行）
+        if (regionScheduler != null) {
+            List<Chunk> tickingChunks = new ArrayList<>();
+            forEachTickingChunk(tickingChunks::add);
+            regionScheduler.tick(tickingChunks, world.getTickCount());
+        } else {
+            world.getBlockTickScheduler().tick(world.getTickCount());
+        }
+    }
+    
+    /**
+     * 読み込み済みのティック対象チャンクに対して処理を行います（ティックスレッド専用）
+     */
+    public void forEachTickingChunk(Consumer<Chunk> action) {
+        ticketManager.forEachTickingHolder(holder -> {
+            Chunk chunk = getChunk(holder.getChunkX(), holder.getChunkZ());
+            if (chunk != null) {
+                action.accept(chunk);
+            }
+        });
+    }
+    
+    /**
+     * リージョン単位のティック処理を取得します（無効な場合はnull）
+     */
+    public TickRegionScheduler getRegionScheduler() {
+        return regionScheduler;
+    }
+    
+    /**
+     * プレイヤーの位置に合わせてチケットを更新します（ティックスレッド専用）
+     */
+    public void updatePlayerTickets(List<Player> players, int viewDistance, int simulationDistance) {
+        ticketManager.updatePlayers(players, viewDistance, simulationDistance);
+    }
+    
+    /**
+     * チケットを追加します（ティックスレッド専用）
+     */
+    public ChunkTicket addTicket(TicketType type, int chunkX, int chunkZ, int level) {
+        world.wake();
+        return ticketManager.addTicket(type, chunkX, chunkZ, level);
+    }
+    
+    /**
+     * チケットを削除します（ティックスレッド専用）
+     */
+    public boolean removeTicket(int chunkX, int chunkZ, ChunkTicket ticket) {
+        return ticketManager.removeTicket(chunkX, chunkZ, ticket);
+    }
+    
+    /**
+     * チケットマネージャーを取得します
+     */
+    public ChunkTicketManager getTicketManager() {
+        return ticketManager;
     }
     
+    /**
+     * 読み込み済みのチャンクを取得します（読み込まれていない場合はnull）
+     */
     public Chunk getChunk(int chunkX, int chunkZ) {
-        // TODO: チャンクの取得
-        return null;
+        Chunk last = lastChunk;
+        if (last != null && last.getChunkX() == chunkX && last.getChunkZ() == chunkZ && last.isLoaded()) {
+            return last;
+        }
+        
+        Chunk chunk = loadedChunks.get(ChunkMap.key(chunkX, chunkZ));
+        if (chunk != null) {
+            lastChunk = chunk;
+        }
+        return chunk;
     }
     
+    /**
+     * チャンクを非同期で取得します
+     * 読み込み済みであれば完了済みのFutureを返し、そうでなければディスク読み込みまたは
+     * 生成を要求します。Futureはティックスレッド上で完了します。
+     */
+    public CompletableFuture<Chunk> getChunkAsync(int chunkX, int chunkZ) {
+        Chunk chunk = getChunk(chunkX, chunkZ);
+        if (chunk != null) {
+            return CompletableFuture.completedFuture(chunk);
+        }
+        if (pipeline == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("ChunkManager is not initialized"));
+        }
+        return pipeline.submit(chunkX, chunkZ);
+    }
+    
+    /**
+     * チャンクを同期的に生成して読み込み済みチャンクに追加します（ティックスレッド専用）
+     * ティックを止めるため、通常は{@link #getChunkAsync(int, int)}を使用してください。
+     */
     public Chunk generateChunk(int chunkX, int chunkZ) {
-        // TODO: チャンクの生成
-        return new Chunk(world, chunkX, chunkZ);
+        Chunk chunk = getChunk(chunkX, chunkZ);
+        if (chunk != null) {
+            return chunk;
+        }
+        
+        chunk = ChunkPipeline.generateChunk(world, chunkX, chunkZ);
+        addChunk(chunk);
+        return chunk;
     }
     
+    /**
+     * ディスクからチャンクを読み込みます（ワーカースレッド）
+     * 保存されていない場合、またはデータが破損している場合はnullを返します。
+     */
+    Chunk loadChunkFromDisk(int chunkX, int chunkZ) {
+        if (storage == null) {
+            return null;
+        }
+        try {
+            // 書き込み待ちのデータがあればディスクより新しい
+            byte[] pendingData = pendingWrites.get(ChunkMap.key(chunkX, chunkZ));
+            if (pendingData != null) {
+                Chunk chunk = ChunkSerializer.deserialize(world, chunkX, chunkZ, ByteBuffer.wrap(pendingData));
+                // 書き込みが失敗した場合に備えて再度保存対象にする
+                chunk.setDirty(true);
+                return chunk;
+            }
+            return storage.read(world, chunkX, chunkZ);
+        } catch (IOException | RuntimeException e) {
+            // 破損したチャンクは再生成する（読み込めても内容が壊れていれば復元時に非検査例外となる）
+            logger.error("チャンクの読み込みに失敗したため再生成します: " + chunkX + ", " + chunkZ, e);
+            return null;
+        }
+    }
+    
+    /**
+     * チャンクを生成してディスクへ保存します（読み込み済みチャンクには追加しません）
+     * 新しく生成した場合はtrue、既に存在した場合はfalseでFutureが完了します。
+     */
+    public CompletableFuture<Boolean> pregenerateChunk(int chunkX, int chunkZ) {
+        if (pipeline == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("ChunkManager is not initialized"));
+        }
+        return pipeline.submitPregeneration(chunkX, chunkZ);
+    }
+    
+    /**
+     * チャンクがディスクに保存されているかどうかを確認します（ワーカースレッド）
+     */
+    boolean hasStoredChunk(int chunkX, int chunkZ) {
+        if (pendingWrites.containsKey(ChunkMap.key(chunkX, chunkZ))) {
+            return true;
+        }
+        try {
+            return storage != null && storage.hasChunk(chunkX, chunkZ);
+        } catch (IOException e) {
+            logger.error("リージョンファイルを開けませんでした: " + chunkX + ", " + chunkZ, e);
+            return false;
+        }
+    }
+    
+    /**
+     * 事前生成したチャンクをディスクへ書き込みます（ワーカースレッド）
+     * 生成中にプレイヤーが同じチャンクを読み込んだ場合は、そちらの保存に任せます。
+     */
+    void writePregeneratedChunk(Chunk chunk) throws IOException {
+        if (storage == null || isChunkLoaded(chunk.getChunkX(), chunk.getChunkZ())
+                || pipeline.isPending(chunk.getChunkX(), chunk.getChunkZ())) {
+            return;
+        }
+        storage.write(chunk);
+    }
+    
+    /**
+     * チャンク読み込みの優先度を計算します（値が小さいほど優先）
+     * このワールドにいる最寄りのプレイヤーまでのチャンク単位の距離の2乗を使用します。
+     * ワーカースレッドからも呼び出されるため、ティックごとに公開される位置を使います。
+     */
+    long getLoadPriority(int chunkX, int chunkZ) {
+        long best = Long.MAX_VALUE;
+        for (long key : world.getPlayerChunks()) {
+            long dx = chunkX - ChunkMap.keyX(key);
+            long dz = chunkZ - ChunkMap.keyZ(key);
+            best = Math.min(best, dx * dx + dz * dz);
+        }
+        return best;
+    }
+    
+    /**
+     * チャンクを読み込み済みチャンクに追加します（ティックスレッド専用）
+     */
+    void addChunk(Chunk chunk) {
+        chunk.setLoaded(true);
+        Chunk previous = loadedChunks.put(ChunkMap.key(chunk.getChunkX(), chunk.getChunkZ()), chunk);
+        if (previous != null && previous != chunk) {
+            previous.setLoaded(false);
+        }
+        ticketManager.onChunkLoaded(chunk.getChunkX(), chunk.getChunkZ());
+        world.getBlockTickScheduler().onChunkLoaded(chunk);
+    }
+    
+    /**
+     * チャンクを読み込み済みチャンクから削除します（ティックスレッド専用）
+     */
+    public Chunk unloadChunk(int chunkX, int chunkZ) {
+        Chunk chunk = loadedChunks.remove(ChunkMap.key(chunkX, chunkZ));
+        if (chunk != null) {
+            chunk.setLoaded(false);
+            if (lastChunk == chunk) {
+                lastChunk = null;
+            }
+        }
+        return chunk;
+    }
+    
+    /**
+     * 変更されていれば保存してからチャンクをアンロードします（ティックスレッド専用）
+     */
+    void saveAndUnloadChunk(int chunkX, int chunkZ) {
+        Chunk chunk = getChunk(chunkX, chunkZ);
+        if (chunk == null) {
+            return;
+        }
+        if (chunk.isDirty() && storage != null) {
+            saveChunkAsync(chunk);
+        }
+        unloadChunk(chunkX, chunkZ);
+    }
+    
+    /**
+     * ワールドの休止のため、変更されたチャンクと予約を持つチャンクを保存してすべてのチャンクをアンロードします（ティックスレッド専用）
+     * チケットは残し、{@link #wake()}で必要なチャンクを読み込み直します。アンロードしたチャンク数を返します。
+     */
+    int hibernate() {
+        autosaveQueue.clear();
+        long checkpoint = changeLog.roll();
+        int[] count = {0};
+        loadedChunks.forEach(chunk -> {
+            // 予約はチャンクと一緒にしか保存されないため、未変更でも予約があれば書き出す
+            if ((chunk.isDirty() || chunk.getScheduledTicks().size() > 0) && storage != null) {
+                saveChunkAsync(chunk);
+            }
+            chunk.setLoaded(false);
+            count[0]++;
+        });
+        loadedChunks.clear();
+        lastChunk = null;
+        ticketManager.clearHolders();
+        world.getBlockTickScheduler().clear();
+        
+        if (storage != null) {
+            ioExecutor.execute(() -> flushStorage(checkpoint));
+        }
+        return count[0];
+    }
+    
+    /**
+     * 休止から再開し、チケットに応じてチャンクを読み込み直します（ティックスレッド専用）
+     */
+    void wake() {
+        ticketManager.refreshAllTickets();
+    }
+    
+    /**
+     * チャンクがティック対象かどうかを確認します（ティックスレッド専用）
+     */
+    public boolean isChunkTicking(int chunkX, int chunkZ) {
+        ChunkHolder holder = ticketManager.getHolder(chunkX, chunkZ);
+        return holder != null && holder.getState() == ChunkHolder.State.TICKING;
+    }
+    
+    /**
+     * チャンクが読み込まれているかどうかを確認します
+     */
+    public boolean isChunkLoaded(int chunkX, int chunkZ) {
+        return loadedChunks.containsKey(ChunkMap.key(chunkX, chunkZ));
+    }
+    
+    /**
+     * 読み込み済みのすべてのチャンクに対して処理を行います
+     */
+    public void forEachLoadedChunk(Consumer<Chunk> action) {
+        loadedChunks.forEach(action);
+    }
+    
+    /**
+     * 読み込み中のチャンク数を取得します
+     */
+    public int getPendingChunkCount() {
+        return pipeline != null ? pipeline.getPendingCount() : 0;
+    }
+    
+    /**
+     * 読み込み済みチャンク数を取得します
+     */
+    public int getLoadedChunkCount() {
+        return loadedChunks.size();
+    }
+    
+    /**
+     * 変更されたすべてのチャンクを同期的に保存します（停止時などに使用）
+     */
     public void saveAllChunks() {
-        logger.debug("すべてのチャンクを保存しました");
+        if (storage == null) {
+            return;
+        }
+        
+        // 進行中の自動保存はこの保存に含める
+        autosaveQueue.clear();
+        long checkpoint = changeLog.roll();
+        awaitPendingWrites();
+        
+        int[] saved = {0};
+        loadedChunks.forEach(chunk -> {
+            if (!chunk.isDirty()) {
+                return;
+            }
+            try {
+                chunk.setDirty(false);
+                storage.write(chunk);
+                saved[0]++;
+            } catch (IOException e) {
+                chunk.setDirty(true);
+                saveFailed = true;
+                logger.error("チャンクの保存に失敗しました: " + chunk.getChunkX() + ", " + chunk.getChunkZ(), e);
+            }
+        });
+        
+        flushStorage(checkpoint);
+        logger.debug("すべてのチャンクを保存しました: " + saved[0] + "個");
+    }
+    
+    /**
+     * 自動保存を開始し、変更されたチャンクを保存待ちにします（ティックスレッド専用）
+     * 実際の保存は{@link #tickAutosave(long)}で複数ティックに分散して行います。
+     */
+    public boolean startAutosave() {
+        if (!autosaveQueue.isEmpty()) {
+            logger.debug("前回の自動保存が完了していないためスキップします");
+            return false;
+        }
+        
+        // これまでの変更は今回の保存に含まれるため、ログは新しいセグメントへ切り替える
+        autosaveCheckpoint = changeLog.roll();
+        loadedChunks.forEach(chunk -> {
+            if (chunk.isDirty()) {
+                autosaveQueue.add(chunk);
+            }
+        });
+        autosavedChunks = 0;
+        return true;
+    }
+    
+    /**
+     * 時間予算の範囲で自動保存を進めます（ティックスレッド専用）
+     */
+    public void tickAutosave(long budgetNanos) {
+        if (autosaveQueue.isEmpty()) {
+            return;
+        }
+        
+        long deadline = System.nanoTime() + budgetNanos;
+        do {
+            Chunk chunk = autosaveQueue.poll();
+            if (chunk.isLoaded() && chunk.isDirty()) {
+                saveChunkAsync(chunk);
+                autosavedChunks++;
+            }
+        } while (!autosaveQueue.isEmpty() && System.nanoTime() < deadline);
+        
+        if (autosaveQueue.isEmpty()) {
+            int count = autosavedChunks;
+            long checkpoint = autosaveCheckpoint;
+            ioExecutor.execute(() -> {
+                if (flushStorage(checkpoint)) {
+                    logger.debug("自動保存が完了しました: " + count + "個のチャンク");
+                }
+            });
+        }
+    }
+    
+    /**
+     * チャンクのスナップショットを作成し、I/Oスレッドで書き込みます（ティックスレッド専用）
+     */
+    public CompletableFuture<Void> saveChunkAsync(Chunk chunk) {
+        byte[] data = ChunkSerializer.serialize(chunk);
+        chunk.setDirty(false);
+        long key = ChunkMap.key(chunk.getChunkX(), chunk.getChunkZ());
+        pendingWrites.put(key, data);
+        
+        return CompletableFuture.runAsync(() -> {
+            try {
+                storage.write(chunk.getChunkX(), chunk.getChunkZ(), data);
+                // 後から投入された書き込みのデータは残す
+                pendingWrites.remove(key, data);
+            } catch (IOException e) {
+                // 次回の保存で再試行（アンロード済みの場合は再読み込み時に書き込み待ちのデータを使う）
+                chunk.setDirty(true);
+                saveFailed = true;
+                logger.error("チャンクの保存に失敗しました: " + chunk.getChunkX() + ", " + chunk.getChunkZ(), e);
+            }
+        }, ioExecutor);
+    }
+    
+    /**
+     * リージョンファイルを書き出し、成功すれば指定した番号より前のログセグメントを削除します
+     * 書き込みが失敗したチャンクは再び保存対象になるため、その場合はログを残します。
+     */
+    private boolean flushStorage(long checkpoint) {
+        try {
+            storage.flush();
+        } catch (IOException e) {
+            logger.error("リージョンファイルの書き出しに失敗しました", e);
+            return false;
+        }
+        if (!saveFailed) {
+            changeLog.deleteSegmentsBefore(checkpoint);
+        }
+        saveFailed = false;
+        return true;
+    }
+    
+    /**
+     * 前回のクラッシュで保存されなかったブロック変更をログから復元し、リージョンファイルへ保存します
+     * ワールドの読み込み時、ティックの開始前に呼び出します。復元したチャンク数を返します。
+     */
+    int recoverLoggedChanges() throws IOException {
+        ChunkMap<Chunk> recovered = new ChunkMap<>();
+        int records = changeLog.replay((chunkX, chunkZ, sectionY, positions, blockIds, count) -> {
+            long key = ChunkMap.key(chunkX, chunkZ);
+            Chunk chunk = recovered.get(key);
+            if (chunk == null) {
+                chunk = loadChunkFromDisk(chunkX, chunkZ);
+                if (chunk == null) {
+                    // 生成後に保存されていなかったチャンクは生成し直してから適用
+                    chunk = ChunkPipeline.generateChunk(world, chunkX, chunkZ);
+                }
+                recovered.put(key, chunk);
+            }
+            int baseY = sectionY << 4;
+            for (int i = 0; i < count; i++) {
+                int index = positions[i];
+                chunk.setBlock(index & 15, baseY | (index >> 8 & 15), index >> 4 & 15, blockIds[i]);
+            }
+        });
+        if (records == 0) {
+            changeLog.deleteSegmentsBefore(changeLog.roll());
+            return 0;
+        }
+        
+        // 失敗したチャンクがあればログを残して次回の起動で再度復元する
+        int[] failed = {0};
+        recovered.forEach(chunk -> {
+            try {
+                storage.write(chunk);
+            } catch (IOException e) {
+                failed[0]++;
+                logger.error("復元したチャンクの保存に失敗しました: " + chunk.getChunkX() + ", " + chunk.getChunkZ(), e);
+            }
+        });
+        long checkpoint = changeLog.roll();
+        storage.flush();
+        if (failed[0] == 0) {
+            changeLog.deleteSegmentsBefore(checkpoint);
+        }
+        logger.info("ログからブロックの変更を復元しました: " + records + "ティック分, " + recovered.size() + "個のチャンク");
+        return recovered.size();
+    }
+    
+    /**
+     * ブロック変更のログを取得します
+     */
+    public BlockChangeLog getChangeLog() {
+        return changeLog;
+    }
+    
+    /**
+     * I/Oスレッドに投入済みの書き込みの完了を待ちます
+     */
+    private void awaitPendingWrites() {
+        if (ioExecutor == null || ioExecutor.isShutdown()) {
+            return;
+        }
+        try {
+            ioExecutor.submit(() -> { }).get();
+        } catch (Exception e) {
+            logger.error("チャンク書き込みの完了待ちに失敗しました", e);
+        }
+    }
+    
+    /**
+     * 自動保存が進行中かどうかを確認します
+     */
+    public boolean isAutosaveInProgress() {
+        return !autosaveQueue.isEmpty();
+    }
+    
+    /**
+     * リージョンストレージを取得します
+     */
+    public RegionStorage getStorage() {
+        return storage;
     }
 } 
\ No newline at end of file
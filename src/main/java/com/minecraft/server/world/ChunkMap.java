@@ -0,0 +1,241 @@
+package com.minecraft.server.world;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Consumer;
+
+/**
+ * チャンク座標をキーとするオープンアドレス法のハッシュマップ
+ *
+ * キーは{@link #key(int, int)}でパックしたlong値で、検索時にボクシングや
+ * オブジェクト生成を行いません。書き込みは単一スレッド（ティックスレッド）から
+ * のみ行い、読み取りは任意のスレッドからロックなしで行えます。
+ *
+ * 削除したスロットには墓標を置き、同じキー以外には再利用しません。そのため
+ * 一度キーを書き込んだスロットのキーは変化せず、読み取り側は値を取得してから
+ * キーを比較するだけで整合性が保たれます。墓標が増えた場合は新しいテーブルを
+ * 作成してvolatile書き込みで公開します。
+ */
+public class ChunkMap<V> {
+    
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final Object TOMBSTONE = new Object();
+    
+    private static final int MIN_CAPACITY = 64;
+    private static final float LOAD_FACTOR = 0.5f;
+    
+    private volatile Table table;
+    private volatile int size;
+    private int usedSlots; // 生存エントリ + 墓標（書き込みスレッド専用）
+    
+    public ChunkMap() {
+        this.table = new Table(MIN_CAPACITY);
+    }
+    
+    /**
+     * チャンク座標をlongキーにパックします
+     */
+    public static long key(int chunkX, int chunkZ) {
+        return (chunkX & 0xFFFFFFFFL) | ((long) chunkZ << 32);
+    }
+    
+    /**
+     * キーからチャンクX座標を取り出します
+     */
+    public static int keyX(long key) {
+        return (int) key;
+    }
+    
+    /**
+     * キーからチャンクZ座標を取り出します
+     */
+    public static int keyZ(long key) {
+        return (int) (key >>> 32);
+    }
+    
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+    
+    /**
+     * 値を取得します（任意のスレッドから呼び出し可能）
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        Table t = table;
+        int mask = t.mask;
+        int index = hash(key) & mask;
+        
+        while (true) {
+            Object value = VALUES.getAcquire(t.values, index);
+            if (value == null) {
+                return null;
+            }
+            if (t.keys[index] == key) {
+                return value == TOMBSTONE ? null : (V) value;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+    
+    /**
+     * 値を取得します（任意のスレッドから呼び出し可能）
+     */
+    public V get(int chunkX, int chunkZ) {
+        return get(key(chunkX, chunkZ));
+    }
+    
+    /**
+     * キーが存在するかどうかを確認します
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+    
+    /**
+     * 値を設定し、以前の値を返します（書き込みスレッド専用）
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value must not be null");
+        }
+        
+        Table t = table;
+        int mask = t.mask;
+        int index = hash(key) & mask;
+        
+        while (true) {
+            Object current = t.values[index];
+            if (current == null) {
+                t.keys[index] = key;
+                VALUES.setRelease(t.values, index, value);
+                size++;
+                if (++usedSlots > t.threshold) {
+                    rehash();
+                }
+                return null;
+            }
+            if (t.keys[index] == key) {
+                VALUES.setRelease(t.values, index, value);
+                if (current == TOMBSTONE) {
+                    size++;
+                    return null;
+                }
+                return (V) current;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+    
+    /**
+     * 値を削除し、削除した値を返します（書き込みスレッド専用）
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        Table t = table;
+        int mask = t.mask;
+        int index = hash(key) & mask;
+        
+        while (true) {
+            Object current = t.values[index];
+            if (current == null) {
+                return null;
+            }
+            if (t.keys[index] == key) {
+                if (current == TOMBSTONE) {
+                    return null;
+                }
+                VALUES.setRelease(t.values, index, TOMBSTONE);
+                size--;
+                return (V) current;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+    
+    /**
+     * すべての値を削除します（書き込みスレッド専用）
+     */
+    public void clear() {
+        table = new Table(MIN_CAPACITY);
+        size = 0;
+        usedSlots = 0;
+    }
+    
+    /**
+     * すべての値に対して処理を行います（任意のスレッドから呼び出し可能、弱い一貫性）
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super V> action) {
+        Table t = table;
+        for (int i = 0; i < t.values.length; i++) {
+            Object value = VALUES.getAcquire(t.values, i);
+            if (value != null && value != TOMBSTONE) {
+                action.accept((V) value);
+            }
+        }
+    }
+    
+    /**
+     * エントリ数を取得します
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * 空かどうかを確認します
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * 生存エントリのみを新しいテーブルへ移し、墓標を取り除きます
+     */
+    private void rehash() {
+        Table old = table;
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR <= size * 2) {
+            capacity <<= 1;
+        }
+        
+        Table t = new Table(capacity);
+        int mask = t.mask;
+        for (int i = 0; i < old.values.length; i++) {
+            Object value = old.values[i];
+            if (value == null || value == TOMBSTONE) {
+                continue;
+            }
+            long key = old.keys[i];
+            int index = hash(key) & mask;
+            while (t.values[index] != null) {
+                index = (index + 1) & mask;
+            }
+            t.keys[index] = key;
+            t.values[index] = value;
+        }
+        
+        usedSlots = size;
+        table = t; // volatile書き込みで公開
+    }
+    
+    /**
+     * ハッシュテーブル本体
+     */
+    private static final class Table {
+        final long[] keys;
+        final Object[] values;
+        final int mask;
+        final int threshold;
+        
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+            this.threshold = (int) (capacity * LOAD_FACTOR);
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,283 @@
+package com.minecraft.server.world;
+
+import com.minecraft.server.util.Logger;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * チャンクの非同期読み込み・生成パイプライン
+ *
+ * チャンクはディスク読み込み → 地形生成 → 装飾 → 光源計算 → 完了 の各段階を
+ * ワーカースレッド上で順に進みます（ディスクから読み込んだチャンクは光源計算だけを行います）。
+ * 段階ごとにタスクをキューへ戻すため、最寄りのプレイヤーに近いチャンクが途中で追い越すことができます。
+ * 完了したチャンクはティックスレッドが{@link #drainCompleted()}で受け取って
+ * 読み込み済みチャンクへ登録するため、ティックスレッドが待機することはありません。
+ *
+ * 事前生成のタスクは生成したチャンクをワーカースレッド上でディスクへ書き込むだけで
+ * 読み込み済みチャンクには登録せず、プレイヤーの要求より常に後回しにされます。
+ */
+public class ChunkPipeline {
+    
+    /**
+     * パイプラインの段階
+     */
+    public enum Stage {
+        LOAD,
+        GENERATE,
+        POPULATE,
+        LIGHT,
+        READY
+    }
+    
+    private final World world;
+    private final ChunkManager chunkManager;
+    private final Logger logger;
+    private final ThreadPoolExecutor executor;
+    private final Map<Long, ChunkTask> pending = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<ChunkTask> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    
+    public ChunkPipeline(World world, ChunkManager chunkManager, ThreadPoolExecutor executor) {
+        this.world = world;
+        this.chunkManager = chunkManager;
+        this.executor = executor;
+        this.logger = new Logger("ChunkPipeline-" + world.getName());
+    }
+    
+    /**
+     * 優先度付きキューを持つチャンクワーカープールを作成します
+     */
+    public static ThreadPoolExecutor createWorkerPool(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ChunkWorker-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+    
+    /**
+     * チャンクの読み込みを要求します（同じチャンクへの重複要求は同じFutureを返します）
+     */
+    public CompletableFuture<Chunk> submit(int chunkX, int chunkZ) {
+        long key = ChunkMap.key(chunkX, chunkZ);
+        ChunkTask existing = pending.get(key);
+        if (existing != null) {
+            return existing.future;
+        }
+        
+        ChunkTask task = new ChunkTask(chunkX, chunkZ, false);
+        existing = pending.putIfAbsent(key, task);
+        if (existing != null) {
+            return existing.future;
+        }
+        
+        schedule(task);
+        return task.future;
+    }
+    
+    /**
+     * チャンクを生成してディスクへ保存するよう要求します（任意のスレッドから呼び出し可能）
+     * 保存済み・読み込み済みのチャンクは生成せず、Futureはfalseで完了します。
+     * Futureはワーカースレッド上で完了します。
+     */
+    public CompletableFuture<Boolean> submitPregeneration(int chunkX, int chunkZ) {
+        ChunkTask task = new ChunkTask(chunkX, chunkZ, true);
+        schedule(task);
+        return task.future.thenApply(chunk -> chunk != null);
+    }
+    
+    /**
+     * 完了したチャンクを読み込み済みチャンクへ登録します（ティックスレッド専用）
+     */
+    public int drainCompleted() {
+        int count = 0;
+        ChunkTask task;
+        while ((task = completed.poll()) != null) {
+            long key = ChunkMap.key(task.chunkX, task.chunkZ);
+            
+            if (task.error != null) {
+                pending.remove(key);
+                task.future.completeExceptionally(task.error);
+                continue;
+            }
+            
+            // 同期生成などで既に読み込まれている場合はそちらを優先
+            Chunk chunk = chunkManager.getChunk(task.chunkX, task.chunkZ);
+            if (chunk == null) {
+                chunk = task.chunk;
+                chunkManager.addChunk(chunk);
+            }
+            
+            pending.remove(key);
+            task.future.complete(chunk);
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * チャンクの読み込みが進行中かどうかを確認します
+     */
+    public boolean isPending(int chunkX, int chunkZ) {
+        return pending.containsKey(ChunkMap.key(chunkX, chunkZ));
+    }
+    
+    /**
+     * 進行中のタスク数を取得します
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+    
+    /**
+     * タスクを優先度付きでワーカープールへ投入します
+     */
+    private void schedule(ChunkTask task) {
+        task.priority = task.pregeneration ? Long.MAX_VALUE : chunkManager.getLoadPriority(task.chunkX, task.chunkZ);
+        task.order = sequence.incrementAndGet();
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.error = e;
+            task.finish();
+        }
+    }
+    
+    /**
+     * 1段階分の処理を実行します（ワーカースレッド）
+     */
+    private void runStage(ChunkTask task) throws IOException {
+        switch (task.stage) {
+            case LOAD:
+                if (task.pregeneration) {
+                    // 既にあるチャンクは生成しない
+                    if (!chunkManager.isChunkLoaded(task.chunkX, task.chunkZ)
+                            && !isPending(task.chunkX, task.chunkZ)
+                            && !chunkManager.hasStoredChunk(task.chunkX, task.chunkZ)) {
+                        task.stage = Stage.GENERATE;
+                    } else {
+                        task.stage = Stage.READY;
+                    }
+                    break;
+                }
+                Chunk stored = chunkManager.loadChunkFromDisk(task.chunkX, task.chunkZ);
+                if (stored != null) {
+                    task.chunk = stored;
+                    task.stage = Stage.LIGHT;
+                } else {
+                    task.stage = Stage.GENERATE;
+                }
+                break;
+            case GENERATE:
+                task.chunk = new Chunk(world, task.chunkX, task.chunkZ);
+                world.getWorldGenerator().generateChunk(task.chunk);
+                task.stage = Stage.POPULATE;
+                break;
+            case POPULATE:
+                world.getWorldGenerator().populateChunk(task.chunk);
+                task.stage = Stage.LIGHT;
+                break;
+            case LIGHT:
+                lightChunk(task.chunk);
+                if (task.pregeneration) {
+                    chunkManager.writePregeneratedChunk(task.chunk);
+                }
+                task.stage = Stage.READY;
+                break;
+            default:
+                break;
+        }
+    }
+    
+    /**
+     * チャンクの光源を計算します
+     * 列ごとの高さを求め、空の光はその高さ以上にだけ届くものとします（横方向への伝播とブロックの光源は扱いません）。
+     */
+    private static void lightChunk(Chunk chunk) {
+        chunk.computeHeightmap();
+    }
+    
+    /**
+     * パイプラインを通さずに、チャンクの生成・装飾・光源計算を呼び出し元のスレッドで続けて行います
+     * 各段階の処理はパイプラインと同じです。
+     */
+    static Chunk generateChunk(World world, int chunkX, int chunkZ) {
+        Chunk chunk = new Chunk(world, chunkX, chunkZ);
+        world.getWorldGenerator().generateChunk(chunk);
+        world.getWorldGenerator().populateChunk(chunk);
+        lightChunk(chunk);
+        return chunk;
+    }
+    
+    /**
+     * 1つのチャンクの読み込みタスク
+     */
+    private final class ChunkTask implements Runnable, Comparable<ChunkTask> {
+        
+        final int chunkX;
+        final int chunkZ;
+        final boolean pregeneration;
+        final CompletableFuture<Chunk> future = new CompletableFuture<>();
+        
+        volatile Stage stage = Stage.LOAD;
+        volatile Chunk chunk;
+        volatile Throwable error;
+        long priority;
+        long order;
+        
+        ChunkTask(int chunkX, int chunkZ, boolean pregeneration) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.pregeneration = pregeneration;
+        }
+        
+        @Override
+        public void run() {
+            try {
+                runStage(this);
+                if (stage != Stage.READY) {
+                    schedule(this);
+                    return;
+                }
+            } catch (Throwable t) {
+                // 次の段階の投入に失敗した場合も完了させ、進行中のまま残さない
+                logger.error("チャンクの読み込みに失敗しました: " + chunkX + ", " + chunkZ, t);
+                error = t;
+            }
+            finish();
+        }
+        
+        /**
+         * タスクを完了させます
+         * 通常のタスクはティックスレッドへ渡し、事前生成のタスクはその場で完了させます。
+         */
+        void finish() {
+            if (!pregeneration) {
+                completed.offer(this);
+            } else if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(chunk);
+            }
+        }
+        
+        @Override
+        public int compareTo(ChunkTask other) {
+            int result = Long.compare(priority, other.priority);
+            return result != 0 ? result : Long.compare(order, other.order);
+        }
+    }
+} 
\ No newline at end of file
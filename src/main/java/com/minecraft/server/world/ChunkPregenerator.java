@@ -0,0 +1,338 @@
+package com.minecraft.server.world;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.minecraft.server.util.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 指定した半径のチャンクを事前に生成・保存するクラス
+ *
+ * チャンクは中心から外側へ渦巻き状の順序で生成し、同時に処理するチャンク数を
+ * ワーカー数の数倍に制限してメモリ使用量を抑えます。生成したチャンクは
+ * 読み込み済みチャンクには追加せず、そのままリージョンファイルへ書き込みます。
+ *
+ * 進捗はワールドディレクトリにチェックポイントとして定期的に保存し、
+ * サーバーを再起動しても途中から再開できます。生成に失敗したチャンクがある場合は
+ * 最後まで処理してもチェックポイントを残し、再開時に失敗したチャンクから再試行します
+ * （生成済みのチャンクは読み飛ばされます）。
+ */
+public class ChunkPregenerator {
+    
+    private static final String CHECKPOINT_FILE = "pregen.json";
+    private static final long REPORT_INTERVAL_MILLIS = 5000;
+    private static final long CHECKPOINT_INTERVAL_MILLIS = 10000;
+    private static final int IN_FLIGHT_PER_WORKER = 4;
+    
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    
+    private final World world;
+    private final Logger logger;
+    private final int centerX;
+    private final int centerZ;
+    private final int radius;
+    private final long total;
+    private final long startIndex;
+    
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    // 処理中のチャンクの渦巻き上のインデックス
+    private final ConcurrentSkipListSet<Long> running = new ConcurrentSkipListSet<>();
+    // 生成に失敗したチャンクの渦巻き上のインデックス
+    private final ConcurrentSkipListSet<Long> failedIndices = new ConcurrentSkipListSet<>();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    
+    private volatile long nextIndex;
+    private volatile boolean cancelled;
+    private volatile boolean finished;
+    private Thread thread;
+    
+    public ChunkPregenerator(World world, int centerX, int centerZ, int radius) {
+        this(world, centerX, centerZ, radius, 0);
+    }
+    
+    private ChunkPregenerator(World world, int centerX, int centerZ, int radius, long startIndex) {
+        this.world = world;
+        this.logger = new Logger("Pregen-" + world.getName());
+        this.centerX = centerX;
+        this.centerZ = centerZ;
+        this.radius = radius;
+        this.total = (2L * radius + 1) * (2L * radius + 1);
+        this.startIndex = Math.min(startIndex, total);
+        this.nextIndex = this.startIndex;
+        this.maxInFlight = world.getServer().getWorldManager().getChunkWorkerPool().getMaximumPoolSize() * IN_FLIGHT_PER_WORKER;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+    
+    /**
+     * ワールドディレクトリのチェックポイントから事前生成を復元します（ない場合はnull）
+     */
+    public static ChunkPregenerator fromCheckpoint(World world) {
+        Path path = world.getWorldPath().resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            Checkpoint checkpoint = GSON.fromJson(Files.readString(path), Checkpoint.class);
+            if (checkpoint == null || checkpoint.radius < 0) {
+                return null;
+            }
+            return new ChunkPregenerator(world, checkpoint.centerX, checkpoint.centerZ, checkpoint.radius, checkpoint.nextIndex);
+        } catch (Exception e) {
+            world.getLogger().warn("事前生成のチェックポイントを読み込めませんでした: " + path, e);
+            return null;
+        }
+    }
+    
+    /**
+     * 事前生成を開始します
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(this::run, "Pregen-" + world.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * 事前生成を中止し、チェックポイントを削除します
+     */
+    public void cancel() {
+        cancelled = true;
+        Thread t = thread;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+    
+    private void run() {
+        logger.info("事前生成を開始します: 中心 " + centerX + ", " + centerZ + " 半径 " + radius
+                + " (" + total + "チャンク" + (startIndex > 0 ? ", " + startIndex + "から再開" : "") + ")");
+        
+        ChunkManager chunkManager = world.getChunkManager();
+        Spiral spiral = new Spiral();
+        spiral.skip(startIndex);
+        
+        long startTime = System.currentTimeMillis();
+        long lastReport = startTime;
+        long lastCheckpoint = startTime;
+        
+        try {
+            for (long index = startIndex; index < total; index++) {
+                if (cancelled || !isWorldAvailable()) {
+                    break;
+                }
+                inFlight.acquire();
+                
+                long taskIndex = index;
+                running.add(taskIndex);
+                chunkManager.pregenerateChunk(centerX + spiral.x, centerZ + spiral.z).whenComplete((created, error) -> {
+                    if (error != null) {
+                        failedIndices.add(taskIndex);
+                        failed.incrementAndGet();
+                    } else if (created) {
+                        generated.incrementAndGet();
+                    }
+                    completed.incrementAndGet();
+                    running.remove(taskIndex);
+                    inFlight.release();
+                });
+                spiral.next();
+                nextIndex = index + 1;
+                
+                long now = System.currentTimeMillis();
+                if (now - lastReport >= REPORT_INTERVAL_MILLIS) {
+                    report(now - startTime);
+                    lastReport = now;
+                }
+                if (now - lastCheckpoint >= CHECKPOINT_INTERVAL_MILLIS) {
+                    saveCheckpoint();
+                    lastCheckpoint = now;
+                }
+            }
+            
+            // 処理中のチャンクの完了を待つ
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+        } catch (InterruptedException e) {
+            // 中止
+        }
+        
+        finished = true;
+        if (cancelled) {
+            deleteCheckpoint();
+            logger.info("事前生成を中止しました: " + getProgressText(System.currentTimeMillis() - startTime));
+            return;
+        }
+        if (nextIndex < total || !running.isEmpty()) {
+            // サーバー停止などで中断した場合は次回再開する
+            saveCheckpoint();
+            logger.info("事前生成を中断しました（次回起動時に再開します）: " + getProgressText(System.currentTimeMillis() - startTime));
+            return;
+        }
+        
+        try {
+            chunkManager.getStorage().flush();
+        } catch (IOException e) {
+            logger.error("リージョンファイルの書き出しに失敗しました", e);
+        }
+        if (!failedIndices.isEmpty()) {
+            // 失敗したチャンクは次回の再開時に再試行する
+            saveCheckpoint();
+            logger.warn("事前生成で" + failed.get() + "チャンクの生成に失敗しました（チェックポイントを残し、次回起動時に再試行します）: 新規生成 "
+                    + generated.get() + "チャンク, 所要時間 " + formatDuration(System.currentTimeMillis() - startTime));
+            return;
+        }
+        deleteCheckpoint();
+        logger.info("事前生成が完了しました: 新規生成 " + generated.get() + "チャンク, 失敗 " + failed.get()
+                + "チャンク, 所要時間 " + formatDuration(System.currentTimeMillis() - startTime));
+    }
+    
+    private boolean isWorldAvailable() {
+        return world.isLoaded() && world.getServer().isRunning();
+    }
+    
+    /**
+     * 進捗を出力します
+     */
+    private void report(long elapsedMillis) {
+        logger.info("事前生成中: " + getProgressText(elapsedMillis));
+    }
+    
+    private String getProgressText(long elapsedMillis) {
+        long done = startIndex + completed.get();
+        double rate = elapsedMillis > 0 ? completed.get() * 1000.0 / elapsedMillis : 0.0;
+        String eta = rate > 0 ? formatDuration((long) ((total - done) / rate * 1000)) : "不明";
+        return String.format("%d/%d (%.1f%%), %.1fチャンク/秒, 残り約%s",
+                done, total, done * 100.0 / Math.max(1, total), rate, eta);
+    }
+    
+    /**
+     * 完了していない、または失敗した最初のチャンクから再開できるようにチェックポイントを保存します
+     */
+    private void saveCheckpoint() {
+        // 他のスレッドが要素を削除しても例外にならないよう、空の場合にnullを返すceilingで先頭を取得する
+        long resumeIndex = nextIndex;
+        Long firstRunning = running.ceiling(Long.MIN_VALUE);
+        if (firstRunning != null) {
+            resumeIndex = Math.min(resumeIndex, firstRunning);
+        }
+        Long firstFailed = failedIndices.ceiling(Long.MIN_VALUE);
+        if (firstFailed != null) {
+            resumeIndex = Math.min(resumeIndex, firstFailed);
+        }
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.centerX = centerX;
+        checkpoint.centerZ = centerZ;
+        checkpoint.radius = radius;
+        checkpoint.nextIndex = resumeIndex;
+        
+        Path path = world.getWorldPath().resolve(CHECKPOINT_FILE);
+        Path temp = world.getWorldPath().resolve(CHECKPOINT_FILE + ".tmp");
+        try {
+            Files.writeString(temp, GSON.toJson(checkpoint));
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("事前生成のチェックポイントを保存できませんでした", e);
+        }
+    }
+    
+    private void deleteCheckpoint() {
+        try {
+            Files.deleteIfExists(world.getWorldPath().resolve(CHECKPOINT_FILE));
+        } catch (IOException e) {
+            logger.warn("事前生成のチェックポイントを削除できませんでした", e);
+        }
+    }
+    
+    private static String formatDuration(long millis) {
+        long seconds = millis / 1000;
+        long minutes = seconds / 60;
+        long hours = minutes / 60;
+        if (hours > 0) {
+            return String.format("%d時間%d分", hours, minutes % 60);
+        } else if (minutes > 0) {
+            return String.format("%d分%d秒", minutes, seconds % 60);
+        } else {
+            return String.format("%d秒", seconds);
+        }
+    }
+    
+    /**
+     * 進捗の説明を取得します
+     */
+    public String getStatus() {
+        return world.getName() + ": " + (startIndex + completed.get()) + "/" + total
+                + (finished ? " (終了)" : "");
+    }
+    
+    /**
+     * 事前生成が実行中かどうかを確認します
+     */
+    public boolean isRunning() {
+        return thread != null && !finished;
+    }
+    
+    public World getWorld() {
+        return world;
+    }
+    
+    public int getRadius() {
+        return radius;
+    }
+    
+    /**
+     * 中心から外側へ進む渦巻き状のチャンク座標
+     */
+    private static final class Spiral {
+        int x;
+        int z;
+        private int dx = 1;
+        private int dz = 0;
+        private int legLength = 1;
+        private int legProgress;
+        private int legsCompleted;
+        
+        void next() {
+            x += dx;
+            z += dz;
+            if (++legProgress == legLength) {
+                legProgress = 0;
+                // 90度回転し、2辺ごとに辺の長さを伸ばす
+                int tmp = dx;
+                dx = -dz;
+                dz = tmp;
+                if (++legsCompleted % 2 == 0) {
+                    legLength++;
+                }
+            }
+        }
+        
+        void skip(long count) {
+            for (long i = 0; i < count; i++) {
+                next();
+            }
+        }
+    }
+    
+    /**
+     * チェックポイントファイルの内容
+     */
+    private static class Checkpoint {
+        int centerX;
+        int centerZ;
+        int radius = -1;
+        long nextIndex;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,341 @@
+package com.minecraft.server.world;
+
+/**
+ * 16x16x16ブロックを保持するチャンクセクション
+ *
+ * ブロックIDはセクションローカルのパレットに登録され、各ブロックはパレット上の
+ * インデックスとしてlong配列にビットパックされます。パレットが大きくなると
+ * エントリあたりのビット数を増やし、上限を超えるとブロックIDを直接格納する
+ * グローバルパレットへ切り替えます。
+ *
+ * 全ブロックが同じID（すべて空気、すべて石など）のセクションはデータ配列を
+ * 持たない単一値セクションとして保持し、異なるブロックが初めて設定された
+ * 時点で通常のパレット形式へ昇格します。
+ */
+public class ChunkSection {
+    
+    public static final int SIZE = 16;
+    public static final int VOLUME = SIZE * SIZE * SIZE;
+    
+    /** 空気ブロックのID */
+    public static final int AIR = 0;
+    
+    /** ローカルパレットで使用する最小ビット数 */
+    private static final int MIN_BITS_PER_ENTRY = 4;
+    
+    /** ローカルパレットで使用する最大ビット数（これを超えるとグローバルパレット） */
+    private static final int MAX_PALETTE_BITS_PER_ENTRY = 8;
+    
+    /** グローバルパレットで使用する最小ビット数 */
+    public static final int GLOBAL_BITS_PER_ENTRY = 15;
+    
+    private int bitsPerEntry;
+    private int valuesPerLong;
+    private long mask;
+    private long[] data; // 単一値セクションの場合はnull
+    
+    // ローカルパレット（グローバルパレット使用時はnull）
+    private int[] palette;
+    private int paletteSize;
+    
+    // 空気以外のブロック数
+    private int nonAirBlockCount;
+    
+    // スナップショットと共有中かどうか（共有中のセクションは二度と変更しない）
+    private boolean shared;
+    
+    public ChunkSection() {
+        this(AIR);
+    }
+    
+    /**
+     * 全ブロックが指定したIDの単一値セクションを作成します
+     */
+    public ChunkSection(int blockId) {
+        this.palette = new int[1 << MIN_BITS_PER_ENTRY];
+        fill(blockId);
+    }
+    
+    /**
+     * 保存されたデータからセクションを復元します（globalの場合paletteはnull）
+     */
+    static ChunkSection restore(int bitsPerEntry, int[] palette, int paletteSize, long[] data, int nonAirBlockCount) {
+        ChunkSection section = new ChunkSection();
+        section.setBitsPerEntry(bitsPerEntry);
+        section.palette = palette;
+        section.paletteSize = paletteSize;
+        section.data = data;
+        section.nonAirBlockCount = nonAirBlockCount;
+        return section;
+    }
+    
+    /**
+     * セクション全体を指定したブロックで埋め、単一値セクションに戻します
+     */
+    public void fill(int blockId) {
+        checkWritable();
+        if (palette == null) {
+            palette = new int[1 << MIN_BITS_PER_ENTRY];
+        }
+        palette[0] = blockId;
+        paletteSize = 1;
+        data = null;
+        bitsPerEntry = 0;
+        valuesPerLong = 0;
+        mask = 0L;
+        nonAirBlockCount = blockId == AIR ? 0 : VOLUME;
+    }
+    
+    /**
+     * 内容をコピーした変更可能なセクションを作成します
+     */
+    public ChunkSection copy() {
+        ChunkSection copy = new ChunkSection();
+        copy.bitsPerEntry = bitsPerEntry;
+        copy.valuesPerLong = valuesPerLong;
+        copy.mask = mask;
+        copy.data = data != null ? data.clone() : null;
+        copy.palette = palette != null ? palette.clone() : null;
+        copy.paletteSize = paletteSize;
+        copy.nonAirBlockCount = nonAirBlockCount;
+        return copy;
+    }
+    
+    /**
+     * スナップショットと共有し、以後変更できないセクションにします（ティックスレッド専用）
+     */
+    void markShared() {
+        shared = true;
+    }
+    
+    /**
+     * スナップショットと共有中かどうかを確認します
+     * 共有中のセクションに書き込む場合は{@link #copy()}したものに置き換えてください。
+     */
+    public boolean isShared() {
+        return shared;
+    }
+    
+    private void checkWritable() {
+        if (shared) {
+            throw new IllegalStateException("Section is shared with a snapshot");
+        }
+    }
+    
+    /**
+     * セクション内の座標からインデックスを計算します
+     */
+    public static int index(int x, int y, int z) {
+        return (y << 8) | (z << 4) | x;
+    }
+    
+    /**
+     * ブロックを取得します
+     */
+    public int getBlock(int x, int y, int z) {
+        return get(index(x, y, z));
+    }
+    
+    /**
+     * ブロックを設定します
+     */
+    public void setBlock(int x, int y, int z, int blockId) {
+        set(index(x, y, z), blockId);
+    }
+    
+    /**
+     * インデックスを指定してブロックを取得します
+     */
+    public int get(int index) {
+        if (data == null) {
+            return palette[0];
+        }
+        int raw = readRaw(data, index, bitsPerEntry, valuesPerLong, mask);
+        return palette != null ? palette[raw] : raw;
+    }
+    
+    /**
+     * インデックスを指定してブロックを設定し、以前のブロックIDを返します
+     */
+    public int set(int index, int blockId) {
+        int previous = get(index);
+        if (previous == blockId) {
+            return previous;
+        }
+        checkWritable();
+        
+        if (data == null) {
+            // 単一値セクションを通常のパレット形式に昇格（既存の値はパレットの0番）
+            setBitsPerEntry(MIN_BITS_PER_ENTRY);
+            data = new long[dataLength(bitsPerEntry)];
+        }
+        
+        int raw = toRaw(blockId);
+        writeRaw(data, index, raw, bitsPerEntry, valuesPerLong, mask);
+        
+        if (previous == AIR) {
+            nonAirBlockCount++;
+        } else if (blockId == AIR) {
+            nonAirBlockCount--;
+        }
+        return previous;
+    }
+    
+    /**
+     * ブロックIDを格納用の値に変換します（必要に応じてパレットを拡張）
+     */
+    private int toRaw(int blockId) {
+        if (palette == null) {
+            int required = bitsRequired(blockId);
+            if (required > bitsPerEntry) {
+                resize(required, false);
+            }
+            return blockId;
+        }
+        
+        for (int i = 0; i < paletteSize; i++) {
+            if (palette[i] == blockId) {
+                return i;
+            }
+        }
+        
+        if (paletteSize >= (1 << bitsPerEntry)) {
+            if (bitsPerEntry < MAX_PALETTE_BITS_PER_ENTRY) {
+                resize(bitsPerEntry + 1, true);
+            } else {
+                // ローカルパレットの上限を超えたのでグローバルパレットへ切り替え
+                resize(Math.max(GLOBAL_BITS_PER_ENTRY, Math.max(bitsRequired(blockId), bitsRequired(maxPaletteValue()))), false);
+                return blockId;
+            }
+        }
+        
+        if (paletteSize == palette.length) {
+            int[] grown = new int[1 << bitsPerEntry];
+            System.arraycopy(palette, 0, grown, 0, paletteSize);
+            palette = grown;
+        }
+        palette[paletteSize] = blockId;
+        return paletteSize++;
+    }
+    
+    /**
+     * エントリあたりのビット数を変更してデータを詰め直します
+     */
+    private void resize(int newBits, boolean keepPalette) {
+        int oldBits = bitsPerEntry;
+        int oldValuesPerLong = valuesPerLong;
+        long oldMask = mask;
+        long[] oldData = data;
+        int[] oldPalette = palette;
+        
+        setBitsPerEntry(newBits);
+        long[] newData = new long[dataLength(newBits)];
+        
+        for (int i = 0; i < VOLUME; i++) {
+            int raw = readRaw(oldData, i, oldBits, oldValuesPerLong, oldMask);
+            if (!keepPalette && oldPalette != null) {
+                raw = oldPalette[raw];
+            }
+            writeRaw(newData, i, raw, newBits, valuesPerLong, mask);
+        }
+        
+        data = newData;
+        if (!keepPalette) {
+            palette = null;
+            paletteSize = 0;
+        }
+    }
+    
+    private int maxPaletteValue() {
+        int max = 0;
+        for (int i = 0; i < paletteSize; i++) {
+            if (Integer.compareUnsigned(palette[i], max) > 0) {
+                max = palette[i];
+            }
+        }
+        return max;
+    }
+    
+    private void setBitsPerEntry(int bits) {
+        this.bitsPerEntry = bits;
+        this.valuesPerLong = 64 / bits;
+        this.mask = (1L << bits) - 1L;
+    }
+    
+    static int dataLength(int bits) {
+        int valuesPerLong = 64 / bits;
+        return (VOLUME + valuesPerLong - 1) / valuesPerLong;
+    }
+    
+    private static int bitsRequired(int value) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(value));
+    }
+    
+    private static int readRaw(long[] data, int index, int bits, int valuesPerLong, long mask) {
+        int longIndex = index / valuesPerLong;
+        int offset = (index - longIndex * valuesPerLong) * bits;
+        return (int) ((data[longIndex] >>> offset) & mask);
+    }
+    
+    private static void writeRaw(long[] data, int index, int value, int bits, int valuesPerLong, long mask) {
+        int longIndex = index / valuesPerLong;
+        int offset = (index - longIndex * valuesPerLong) * bits;
+        data[longIndex] = (data[longIndex] & ~(mask << offset)) | ((value & mask) << offset);
+    }
+    
+    /**
+     * 空気以外のブロック数を取得します
+     */
+    public int getNonAirBlockCount() {
+        return nonAirBlockCount;
+    }
+    
+    /**
+     * 空気のみのセクションかどうかを確認します
+     */
+    public boolean isEmpty() {
+        return nonAirBlockCount == 0;
+    }
+    
+    /**
+     * データ配列を持たない単一値セクションかどうかを確認します
+     */
+    public boolean isSingleValue() {
+        return data == null;
+    }
+    
+    /**
+     * エントリあたりのビット数を取得します（単一値セクションの場合は0）
+     */
+    public int getBitsPerEntry() {
+        return bitsPerEntry;
+    }
+    
+    /**
+     * グローバルパレットを使用しているかどうかを確認します
+     */
+    public boolean isGlobalPalette() {
+        return palette == null;
+    }
+    
+    /**
+     * パレットサイズを取得します（グローバルパレット使用時は0）
+     */
+    public int getPaletteSize() {
+        return paletteSize;
+    }
+    
+    /**
+     * パレットのエントリを取得します
+     */
+    public int getPaletteEntry(int paletteIndex) {
+        return palette[paletteIndex];
+    }
+    
+    /**
+     * ビットパックされたデータ配列を取得します（読み取り専用として扱うこと、単一値セクションの場合はnull）
+     */
+    public long[] getData() {
+        return data;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,185 @@
+package com.minecraft.server.world;
+
+import com.minecraft.server.network.ChunkPacketCache;
+import com.minecraft.server.network.ChunkPackets;
+import com.minecraft.server.network.VarIntFrameEncoder;
+import com.minecraft.server.player.Player;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * プレイヤーの表示距離内のチャンクを送信するクラス
+ *
+ * プレイヤーごとに送信済みのチャンクを記録し、未送信のチャンクを近い順に
+ * 1ティックあたり{@link #MAX_CHUNKS_PER_TICK}個まで送信します。表示距離から外れた
+ * チャンクにはアンロードのパケットを送ります。チャンクデータは{@link ChunkPacketCache}で
+ * チャンクの版数ごとに1回だけエンコードし、同じチャンクを見るプレイヤー全員で共有します。
+ *
+ * ワールドのティックスレッドから呼び出してください。
+ */
+public class ChunkSender {
+    
+    /** 1人のプレイヤーへ1ティックに送信するチャンク数の上限 */
+    public static final int MAX_CHUNKS_PER_TICK = 16;
+    
+    private final World world;
+    private final ByteBufAllocator allocator;
+    private final Map<Player, ViewState> views = new IdentityHashMap<>();
+    
+    // 中心からの相対位置（近い順、ChunkMapのキー形式）と、その作成に使った表示距離
+    private long[] offsets = new long[0];
+    private int offsetsViewDistance = -1;
+    
+    public ChunkSender(World world, ByteBufAllocator allocator) {
+        this.world = world;
+        this.allocator = allocator;
+    }
+    
+    /**
+     * プレイヤーの移動に合わせてチャンクを送信・アンロードします
+     */
+    public void tick() {
+        // ワールドを離れたプレイヤーの記録を破棄（移動先のワールドで送り直す）
+        Iterator<ViewState> iterator = views.values().iterator();
+        while (iterator.hasNext()) {
+            Player player = iterator.next().player;
+            if (player.getWorld() != world || !player.isOnline()) {
+                iterator.remove();
+            }
+        }
+        
+        SpatialIndex<Player> index = world.getPlayerIndex();
+        if (index.size() == 0) {
+            return;
+        }
+        int viewDistance = Math.max(0, world.getServer().getConfig().getViewDistance());
+        if (viewDistance != offsetsViewDistance) {
+            offsets = createOffsets(viewDistance);
+            offsetsViewDistance = viewDistance;
+        }
+        ChunkPacketCache cache = world.getServer().getNetworkManager().getChunkPacketCache();
+        index.forEach(player -> update(views.computeIfAbsent(player, ViewState::new), viewDistance, cache));
+    }
+    
+    private void update(ViewState view, int viewDistance, ChunkPacketCache cache) {
+        Player player = view.player;
+        int centerX = (int) Math.floor(player.getX()) >> 4;
+        int centerZ = (int) Math.floor(player.getZ()) >> 4;
+        
+        if (centerX != view.centerX || centerZ != view.centerZ || viewDistance != view.viewDistance) {
+            if (centerX != view.centerX || centerZ != view.centerZ) {
+                ByteBuf packet = VarIntFrameEncoder.allocatePacket(allocator, 16);
+                ChunkPackets.writeSetCenterChunk(packet, centerX, centerZ);
+                player.sendPacket(packet);
+            }
+            view.centerX = centerX;
+            view.centerZ = centerZ;
+            view.viewDistance = viewDistance;
+            unloadOutOfRange(view);
+            view.complete = false;
+        }
+        if (view.complete) {
+            return;
+        }
+        
+        ChunkManager chunkManager = world.getChunkManager();
+        boolean complete = true;
+        int sent = 0;
+        for (long offset : offsets) {
+            int chunkX = centerX + ChunkMap.keyX(offset);
+            int chunkZ = centerZ + ChunkMap.keyZ(offset);
+            long key = ChunkMap.key(chunkX, chunkZ);
+            if (view.sent.contains(key)) {
+                continue;
+            }
+            Chunk chunk = chunkManager.getChunk(chunkX, chunkZ);
+            if (chunk == null) {
+                complete = false; // 読み込みを待って次のティックで送る
+                continue;
+            }
+            if (sent == MAX_CHUNKS_PER_TICK) {
+                complete = false;
+                break;
+            }
+            player.sendPacket(cache.get(chunk));
+            view.sent.add(key);
+            sent++;
+        }
+        view.complete = complete;
+    }
+    
+    /**
+     * 表示距離から外れた送信済みのチャンクをアンロードさせます
+     */
+    private void unloadOutOfRange(ViewState view) {
+        Iterator<Long> iterator = view.sent.iterator();
+        while (iterator.hasNext()) {
+            long key = iterator.next();
+            int chunkX = ChunkMap.keyX(key);
+            int chunkZ = ChunkMap.keyZ(key);
+            if (Math.max(Math.abs(chunkX - view.centerX), Math.abs(chunkZ - view.centerZ)) <= view.viewDistance) {
+                continue;
+            }
+            iterator.remove();
+            ByteBuf packet = VarIntFrameEncoder.allocatePacket(allocator, 16);
+            ChunkPackets.writeUnloadChunk(packet, chunkX, chunkZ);
+            view.player.sendPacket(packet);
+        }
+    }
+    
+    /**
+     * 表示距離内の相対位置を中心から近い順に並べます
+     */
+    private static long[] createOffsets(int viewDistance) {
+        int width = viewDistance * 2 + 1;
+        long[] result = new long[width * width];
+        int i = 0;
+        for (int dx = -viewDistance; dx <= viewDistance; dx++) {
+            for (int dz = -viewDistance; dz <= viewDistance; dz++) {
+                result[i++] = ChunkMap.key(dx, dz);
+            }
+        }
+        return Arrays.stream(result)
+                .boxed()
+                .sorted((a, b) -> Integer.compare(distanceSquared(a), distanceSquared(b)))
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+    
+    private static int distanceSquared(long offset) {
+        int dx = ChunkMap.keyX(offset);
+        int dz = ChunkMap.keyZ(offset);
+        return dx * dx + dz * dz;
+    }
+    
+    /**
+     * 送信中のプレイヤー数を取得します
+     */
+    public int getViewerCount() {
+        return views.size();
+    }
+    
+    /**
+     * 1人のプレイヤーへの送信状態
+     */
+    private static final class ViewState {
+        
+        final Player player;
+        final Set<Long> sent = new HashSet<>();
+        int centerX = Integer.MIN_VALUE;
+        int centerZ = Integer.MIN_VALUE;
+        int viewDistance = -1;
+        boolean complete; // 表示距離内のチャンクをすべて送信済み
+        
+        ViewState(Player player) {
+            this.player = player;
+        }
+    }
+} 
\ No newline at end of file
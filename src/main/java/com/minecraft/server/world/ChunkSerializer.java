@@ -0,0 +1,186 @@
+package com.minecraft.server.world;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * チャンクをリージョンファイル用のバイト列に変換するクラス
+ *
+ * 形式:
+ * [byte バージョン][short 空でないセクションのマスク]
+ * 空でないセクションごとに:
+ * [short 空気以外のブロック数][byte 種別][種別ごとのデータ]
+ * - 単一値: [int ブロックID]
+ * - パレット: [byte ビット数][short パレットサイズ][int...パレット][long...データ]
+ * - グローバル: [byte ビット数][long...データ]
+ * [int 更新予約の数]
+ * 予約ごとに: [short 位置(y << 8 | z << 4 | x)][int ブロックID][int 残りティック数][byte 優先度]
+ *
+ * バージョン1は更新予約を含みません。
+ */
+public final class ChunkSerializer {
+    
+    private static final byte FORMAT_VERSION = 2;
+    private static final byte FORMAT_VERSION_NO_TICKS = 1;
+    
+    private static final byte SECTION_SINGLE_VALUE = 0;
+    private static final byte SECTION_PALETTE = 1;
+    private static final byte SECTION_GLOBAL = 2;
+    
+    private ChunkSerializer() {
+    }
+    
+    /**
+     * チャンクをバイト列に変換します（ティックスレッドから呼び出すこと）
+     */
+    public static byte[] serialize(Chunk chunk) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            int mask = chunk.getNonEmptySectionMask();
+            out.writeByte(FORMAT_VERSION);
+            out.writeShort(mask);
+            
+            for (int sectionY = 0; sectionY < Chunk.SECTION_COUNT; sectionY++) {
+                if ((mask & (1 << sectionY)) == 0) {
+                    continue;
+                }
+                writeSection(out, chunk.getSection(sectionY));
+            }
+            writeScheduledTicks(out, chunk);
+        } catch (IOException e) {
+            // ByteArrayOutputStreamへの書き込みでは発生しない
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    private static void writeScheduledTicks(DataOutputStream out, Chunk chunk) throws IOException {
+        ChunkTickList ticks = chunk.getScheduledTicks();
+        out.writeInt(ticks.size());
+        IOException[] error = new IOException[1];
+        ticks.forEach(chunk.getWorld().getTickCount(), (tick, delay) -> {
+            if (error[0] != null) {
+                return;
+            }
+            try {
+                out.writeShort((tick.getY() << 8) | ((tick.getZ() & 15) << 4) | (tick.getX() & 15));
+                out.writeInt(tick.getBlockId());
+                out.writeInt((int) Math.min(Integer.MAX_VALUE, delay));
+                out.writeByte(tick.getPriority());
+            } catch (IOException e) {
+                error[0] = e;
+            }
+        });
+        if (error[0] != null) {
+            throw error[0];
+        }
+    }
+    
+    private static void writeSection(DataOutputStream out, ChunkSection section) throws IOException {
+        out.writeShort(section.getNonAirBlockCount());
+        
+        if (section.isSingleValue()) {
+            out.writeByte(SECTION_SINGLE_VALUE);
+            out.writeInt(section.get(0));
+            return;
+        }
+        
+        if (section.isGlobalPalette()) {
+            out.writeByte(SECTION_GLOBAL);
+            out.writeByte(section.getBitsPerEntry());
+        } else {
+            out.writeByte(SECTION_PALETTE);
+            out.writeByte(section.getBitsPerEntry());
+            out.writeShort(section.getPaletteSize());
+            for (int i = 0; i < section.getPaletteSize(); i++) {
+                out.writeInt(section.getPaletteEntry(i));
+            }
+        }
+        
+        for (long value : section.getData()) {
+            out.writeLong(value);
+        }
+    }
+    
+    /**
+     * バイト列からチャンクを復元します
+     */
+    public static Chunk deserialize(World world, int chunkX, int chunkZ, ByteBuffer buffer) throws IOException {
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION && version != FORMAT_VERSION_NO_TICKS) {
+            throw new IOException("未対応のチャンク形式バージョン: " + version);
+        }
+        
+        Chunk chunk = new Chunk(world, chunkX, chunkZ);
+        int mask = buffer.getShort() & 0xFFFF;
+        for (int sectionY = 0; sectionY < Chunk.SECTION_COUNT; sectionY++) {
+            if ((mask & (1 << sectionY)) != 0) {
+                chunk.setSection(sectionY, readSection(buffer));
+            }
+        }
+        if (version != FORMAT_VERSION_NO_TICKS) {
+            readScheduledTicks(buffer, chunk);
+        }
+        chunk.setDirty(false);
+        return chunk;
+    }
+    
+    private static void readScheduledTicks(ByteBuffer buffer, Chunk chunk) throws IOException {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / 11) {
+            throw new IOException("不正な更新予約の数: " + count);
+        }
+        int baseX = chunk.getChunkX() << 4;
+        int baseZ = chunk.getChunkZ() << 4;
+        for (int i = 0; i < count; i++) {
+            int position = buffer.getShort() & 0xFFFF;
+            int blockId = buffer.getInt();
+            int delay = buffer.getInt();
+            int priority = buffer.get();
+            chunk.getScheduledTicks().addUnresolved(baseX + (position & 15), position >> 8, baseZ + ((position >> 4) & 15),
+                    blockId, delay, priority);
+        }
+    }
+    
+    private static ChunkSection readSection(ByteBuffer buffer) throws IOException {
+        int nonAirBlockCount = buffer.getShort() & 0xFFFF;
+        byte type = buffer.get();
+        
+        switch (type) {
+            case SECTION_SINGLE_VALUE:
+                return new ChunkSection(buffer.getInt());
+            case SECTION_PALETTE: {
+                int bits = buffer.get();
+                int paletteSize = buffer.getShort() & 0xFFFF;
+                if (bits <= 0 || bits > 8 || paletteSize > (1 << bits)) {
+                    throw new IOException("不正なパレット: " + bits + " bits, " + paletteSize + " entries");
+                }
+                int[] palette = new int[1 << bits];
+                for (int i = 0; i < paletteSize; i++) {
+                    palette[i] = buffer.getInt();
+                }
+                long[] data = readData(buffer, bits);
+                return ChunkSection.restore(bits, palette, paletteSize, data, nonAirBlockCount);
+            }
+            case SECTION_GLOBAL: {
+                int bits = buffer.get();
+                long[] data = readData(buffer, bits);
+                return ChunkSection.restore(bits, null, 0, data, nonAirBlockCount);
+            }
+            default:
+                throw new IOException("不明なセクション種別: " + type);
+        }
+    }
+    
+    private static long[] readData(ByteBuffer buffer, int bits) throws IOException {
+        if (bits <= 0 || bits > 32) {
+            throw new IOException("不正なビット数: " + bits);
+        }
+        long[] data = new long[ChunkSection.dataLength(bits)];
+        buffer.asLongBuffer().get(data);
+        buffer.position(buffer.position() + data.length * Long.BYTES);
+        return data;
+    }
+} 
\ No newline at end of file
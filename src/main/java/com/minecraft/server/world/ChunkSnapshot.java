@@ -0,0 +1,65 @@
+package com.minecraft.server.world;
+
+/**
+ * ある時点のチャンクの内容を保持する変更されないビュー
+ *
+ * セクションはチャンクと共有しており、チャンク側が書き込む時点でコピーするため
+ * スナップショットの内容は変化しません。任意のスレッドからロックなしで読み取れます。
+ */
+public final class ChunkSnapshot {
+    
+    private final int chunkX;
+    private final int chunkZ;
+    private final long version;
+    private final ChunkSection[] sections;
+    
+    ChunkSnapshot(int chunkX, int chunkZ, long version, ChunkSection[] sections) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.version = version;
+        this.sections = sections;
+    }
+    
+    /**
+     * ブロックを取得します（チャンク内の座標）
+     */
+    public int getBlock(int x, int y, int z) {
+        if (x < 0 || x >= 16 || y < 0 || y >= Chunk.HEIGHT || z < 0 || z >= 16) {
+            return ChunkSection.AIR;
+        }
+        ChunkSection section = sections[y >> 4];
+        if (section == null) {
+            return ChunkSection.AIR;
+        }
+        return section.getBlock(x, y & 15, z);
+    }
+    
+    /**
+     * セクションを取得します（空気のみのセクションはnull、変更不可）
+     */
+    public ChunkSection getSection(int sectionY) {
+        return sections[sectionY];
+    }
+    
+    /**
+     * セクションが空気のみかどうかを確認します
+     */
+    public boolean isSectionEmpty(int sectionY) {
+        return sections[sectionY] == null;
+    }
+    
+    public int getChunkX() {
+        return chunkX;
+    }
+    
+    public int getChunkZ() {
+        return chunkZ;
+    }
+    
+    /**
+     * スナップショット作成時のチャンクの版数を取得します
+     */
+    public long getVersion() {
+        return version;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.minecraft.server.world;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * 1つのチャンクに予約されたブロックの更新
+ *
+ * チャンクと一緒に保存・読み込みされるため、アンロードしたチャンクの予約は
+ * ディスク上に残り、再読み込み時に元の残りティック数で再開します。
+ * 同じ位置・同じブロックへの重複した予約は無視します。
+ */
+public final class ChunkTickList {
+    
+    private PriorityQueue<ScheduledTick> ticks;
+    private Set<Long> scheduled;
+    
+    // ディスクから読み込み、まだワールドのティックに対応付けていない予約（予定ティックは残りティック数）
+    private List<ScheduledTick> unresolved;
+    
+    private static long positionKey(int x, int y, int z, int blockId) {
+        return ((long) blockId << 32) | ((long) (y & 0xFFFF) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+    
+    /**
+     * 予約を追加します（既に同じ予約がある場合はfalse）
+     */
+    boolean add(ScheduledTick tick) {
+        if (ticks == null) {
+            ticks = new PriorityQueue<>();
+            scheduled = new HashSet<>();
+        }
+        if (!scheduled.add(positionKey(tick.getX(), tick.getY(), tick.getZ(), tick.getBlockId()))) {
+            return false;
+        }
+        ticks.add(tick);
+        return true;
+    }
+    
+    /**
+     * 最も早い予約の予定ティックを取得します（予約がない場合はLong.MAX_VALUE）
+     */
+    long getNextDueTick() {
+        ScheduledTick next = ticks != null ? ticks.peek() : null;
+        return next != null ? next.getDueTick() : Long.MAX_VALUE;
+    }
+    
+    /**
+     * 予定ティックを過ぎた最初の予約を取り出します（ない場合はnull）
+     */
+    ScheduledTick pollDue(long currentTick) {
+        ScheduledTick next = ticks != null ? ticks.peek() : null;
+        if (next == null || next.getDueTick() > currentTick) {
+            return null;
+        }
+        ticks.poll();
+        scheduled.remove(positionKey(next.getX(), next.getY(), next.getZ(), next.getBlockId()));
+        return next;
+    }
+    
+    /**
+     * ディスクから読み込んだ予約を追加します（予定ティックは残りティック数）
+     */
+    void addUnresolved(int x, int y, int z, int blockId, int delay, int priority) {
+        if (unresolved == null) {
+            unresolved = new ArrayList<>();
+        }
+        unresolved.add(new ScheduledTick(x, y, z, blockId, delay, priority, unresolved.size()));
+    }
+    
+    /**
+     * 読み込んだ予約を現在のティックを基準に有効にします（ティックスレッド専用）
+     */
+    void resolve(long currentTick, BlockTickScheduler scheduler) {
+        if (unresolved == null) {
+            return;
+        }
+        for (ScheduledTick tick : unresolved) {
+            add(scheduler.createTick(tick.getX(), tick.getY(), tick.getZ(), tick.getBlockId(),
+                    currentTick + tick.getDueTick(), tick.getPriority()));
+        }
+        unresolved = null;
+    }
+    
+    /**
+     * すべての予約を残りティック数とともに処理します（保存用、読み込み直後の予約を含む）
+     */
+    void forEach(long currentTick, ObjLongConsumer<ScheduledTick> action) {
+        if (ticks != null) {
+            // 再読み込み後も同じ順序で実行されるよう実行順に並べる
+            ScheduledTick[] sorted = ticks.toArray(new ScheduledTick[0]);
+            Arrays.sort(sorted);
+            for (ScheduledTick tick : sorted) {
+                action.accept(tick, Math.max(0, tick.getDueTick() - currentTick));
+            }
+        }
+        if (unresolved != null) {
+            for (ScheduledTick tick : unresolved) {
+                action.accept(tick, tick.getDueTick());
+            }
+        }
+    }
+    
+    /**
+     * 予約数を取得します
+     */
+    public int size() {
+        return (ticks != null ? ticks.size() : 0) + (unresolved != null ? unresolved.size() : 0);
+    }
+} 
\ No newline at end of file
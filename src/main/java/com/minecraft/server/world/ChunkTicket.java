@@ -0,0 +1,46 @@
+package com.minecraft.server.world;
+
+/**
+ * チャンクを読み込み状態に保つためのチケット
+ *
+ * レベルが低いほど強く、チケットを置いたチャンクから1チャンク離れるごとに
+ * レベルが1ずつ上がって周囲へ伝播します。
+ * レベルが{@link ChunkTicketManager#TICKING_LEVEL}以下のチャンクはティック対象、
+ * {@link ChunkTicketManager#BORDER_LEVEL}以下のチャンクは読み込み状態になります。
+ */
+public final class ChunkTicket {
+    
+    private final TicketType type;
+    private final int level;
+    
+    public ChunkTicket(TicketType type, int level) {
+        this.type = type;
+        this.level = Math.max(0, level);
+    }
+    
+    /**
+     * チケットの種類を取得します
+     */
+    public TicketType getType() {
+        return type;
+    }
+    
+    /**
+     * チケットのレベルを取得します
+     */
+    public int getLevel() {
+        return level;
+    }
+    
+    /**
+     * このチケットが読み込み状態にするチャンクの半径を取得します
+     */
+    public int getRadius() {
+        return ChunkTicketManager.BORDER_LEVEL - level;
+    }
+    
+    @Override
+    public String toString() {
+        return "ChunkTicket{" + type + ", level=" + level + "}";
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,359 @@
+package com.minecraft.server.world;
+
+import com.minecraft.server.player.Player;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * チャンクチケットを管理し、チャンクの読み込み状態を決定するクラス
+ *
+ * プレイヤー・スポーン地点・プラグインがチケットを追加し、各チャンクのレベルは
+ * 周囲のチケットのレベルに距離（チェビシェフ距離）を加えた値の最小値になります。
+ * 視界のチケット（{@link TicketType#isBorderOnly()}）はレベルによらず境界までしか上げないため、
+ * ティック対象の範囲はシミュレーション距離・スポーン・強制読み込みのチケットだけで決まります。
+ * チャンクは レベルに応じて 読み込み対象外 → 境界 → ティック対象 と遷移し、
+ * チケットがなくなったチャンクは猶予期間の後に保存してからアンロードします。
+ *
+ * すべての操作はティックスレッドから行います。
+ */
+public class ChunkTicketManager {
+    
+    /** このレベル以下のチャンクはティック対象 */
+    public static final int TICKING_LEVEL = 32;
+    
+    /** このレベル以下のチャンクは読み込み状態 */
+    public static final int BORDER_LEVEL = 33;
+    
+    /** チケットの影響がないチャンクのレベル */
+    public static final int UNLOADED_LEVEL = BORDER_LEVEL + 1;
+    
+    /** チケットがなくなってからアンロードするまでの猶予（ティック） */
+    public static final long UNLOAD_DELAY_TICKS = 300; // 15秒
+    
+    private final ChunkManager chunkManager;
+    
+    // チケットを置いたチャンクごとのチケット
+    private final Map<Long, List<ChunkTicket>> tickets = new HashMap<>();
+    
+    // チケットの影響下にあるチャンク、またはアンロード待ちのチャンク
+    private final ChunkMap<ChunkHolder> holders = new ChunkMap<>();
+    
+    // レベルの再計算が必要な範囲 {中心X, 中心Z, 半径}
+    private final ArrayDeque<int[]> dirtyAreas = new ArrayDeque<>();
+    
+    // アンロード待ちのチャンク（予定ティック順、取り消されたものは取り出し時に読み飛ばす）
+    private final ArrayDeque<UnloadEntry> unloadQueue = new ArrayDeque<>();
+    
+    // プレイヤーごとのチケット
+    private final Map<Player, PlayerTickets> playerTickets = new IdentityHashMap<>();
+    
+    private long currentTick;
+    
+    public ChunkTicketManager(ChunkManager chunkManager) {
+        this.chunkManager = chunkManager;
+    }
+    
+    /**
+     * チケットを追加します
+     */
+    public ChunkTicket addTicket(TicketType type, int chunkX, int chunkZ, int level) {
+        ChunkTicket ticket = new ChunkTicket(type, level);
+        addTicket(chunkX, chunkZ, ticket);
+        return ticket;
+    }
+    
+    /**
+     * チケットを追加します
+     */
+    public void addTicket(int chunkX, int chunkZ, ChunkTicket ticket) {
+        tickets.computeIfAbsent(ChunkMap.key(chunkX, chunkZ), key -> new ArrayList<>(2)).add(ticket);
+        markDirty(chunkX, chunkZ, ticket.getRadius());
+    }
+    
+    /**
+     * チケットを削除します
+     */
+    public boolean removeTicket(int chunkX, int chunkZ, ChunkTicket ticket) {
+        long key = ChunkMap.key(chunkX, chunkZ);
+        List<ChunkTicket> list = tickets.get(key);
+        if (list == null || !list.remove(ticket)) {
+            return false;
+        }
+        if (list.isEmpty()) {
+            tickets.remove(key);
+        }
+        markDirty(chunkX, chunkZ, ticket.getRadius());
+        return true;
+    }
+    
+    /**
+     * 指定した種類のチケットが存在するかどうかを確認します
+     */
+    public boolean hasTicket(TicketType type) {
+        for (List<ChunkTicket> list : tickets.values()) {
+            for (ChunkTicket ticket : list) {
+                if (ticket.getType() == type) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * プレイヤーの位置に合わせてチケットを更新します
+     */
+    public void updatePlayers(List<Player> players, int viewDistance, int simulationDistance) {
+        int viewLevel = BORDER_LEVEL - Math.max(0, viewDistance);
+        int simulationLevel = TICKING_LEVEL - Math.max(0, simulationDistance);
+        
+        // ワールドを離れたプレイヤーのチケットを削除
+        Iterator<Map.Entry<Player, PlayerTickets>> iterator = playerTickets.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Player, PlayerTickets> entry = iterator.next();
+            if (!players.contains(entry.getKey())) {
+                entry.getValue().remove(this);
+                iterator.remove();
+            }
+        }
+        
+        for (Player player : players) {
+            int chunkX = (int) Math.floor(player.getX()) >> 4;
+            int chunkZ = (int) Math.floor(player.getZ()) >> 4;
+            
+            PlayerTickets current = playerTickets.get(player);
+            if (current != null
+                    && current.chunkX == chunkX && current.chunkZ == chunkZ
+                    && current.view.getLevel() == viewLevel
+                    && current.simulation.getLevel() == simulationLevel) {
+                continue;
+            }
+            
+            if (current != null) {
+                current.remove(this);
+            }
+            PlayerTickets updated = new PlayerTickets(chunkX, chunkZ,
+                    new ChunkTicket(TicketType.PLAYER_VIEW, viewLevel),
+                    new ChunkTicket(TicketType.PLAYER_SIMULATION, simulationLevel));
+            addTicket(chunkX, chunkZ, updated.view);
+            addTicket(chunkX, chunkZ, updated.simulation);
+            playerTickets.put(player, updated);
+        }
+    }
+    
+    /**
+     * レベルの変更を反映し、期限が来たチャンクをアンロードします
+     */
+    public void tick(long currentTick) {
+        this.currentTick = currentTick;
+        
+        while (!dirtyAreas.isEmpty()) {
+            int[] area = dirtyAreas.poll();
+            recomputeLevels(area[0], area[1], area[2]);
+        }
+        
+        while (!unloadQueue.isEmpty()) {
+            UnloadEntry entry = unloadQueue.peek();
+            ChunkHolder holder = entry.holder;
+            if (holder.getUnloadTick() != entry.tick) {
+                // 取り消された、または再スケジュールされた
+                unloadQueue.poll();
+                continue;
+            }
+            if (entry.tick > currentTick) {
+                break;
+            }
+            unloadQueue.poll();
+            holder.setUnloadTick(-1);
+            holders.remove(ChunkMap.key(holder.getChunkX(), holder.getChunkZ()));
+            chunkManager.saveAndUnloadChunk(holder.getChunkX(), holder.getChunkZ());
+        }
+    }
+    
+    /**
+     * チャンクが読み込まれた時に呼び出されます
+     * チケットの影響下にないチャンクはアンロード待ちにします。
+     */
+    void onChunkLoaded(int chunkX, int chunkZ) {
+        long key = ChunkMap.key(chunkX, chunkZ);
+        ChunkHolder holder = holders.get(key);
+        if (holder == null) {
+            holder = new ChunkHolder(chunkX, chunkZ);
+            holders.put(key, holder);
+        }
+        if (holder.getState() == ChunkHolder.State.INACCESSIBLE) {
+            scheduleUnload(holder);
+        }
+    }
+    
+    /**
+     * すべてのチャンクの読み込み状態を破棄します（ワールドの休止時、チケットは残します）
+     */
+    void clearHolders() {
+        holders.clear();
+        unloadQueue.clear();
+        dirtyAreas.clear();
+    }
+    
+    /**
+     * すべてのチケットの範囲のレベルを計算し直し、必要なチャンクの読み込みを要求します（休止からの再開時）
+     */
+    void refreshAllTickets() {
+        for (Map.Entry<Long, List<ChunkTicket>> entry : tickets.entrySet()) {
+            int radius = -1;
+            for (ChunkTicket ticket : entry.getValue()) {
+                radius = Math.max(radius, ticket.getRadius());
+            }
+            markDirty(ChunkMap.keyX(entry.getKey()), ChunkMap.keyZ(entry.getKey()), radius);
+        }
+    }
+    
+    /**
+     * チャンクのホルダーを取得します（チケットの影響がない場合はnull）
+     */
+    public ChunkHolder getHolder(int chunkX, int chunkZ) {
+        return holders.get(ChunkMap.key(chunkX, chunkZ));
+    }
+    
+    /**
+     * ティック対象のチャンクに対して処理を行います
+     */
+    public void forEachTickingHolder(Consumer<ChunkHolder> action) {
+        holders.forEach(holder -> {
+            if (holder.getState() == ChunkHolder.State.TICKING) {
+                action.accept(holder);
+            }
+        });
+    }
+    
+    /**
+     * チケットの影響下にあるチャンク数を取得します
+     */
+    public int getHolderCount() {
+        return holders.size();
+    }
+    
+    private void markDirty(int chunkX, int chunkZ, int radius) {
+        if (radius >= 0) {
+            dirtyAreas.add(new int[] {chunkX, chunkZ, radius});
+        }
+    }
+    
+    /**
+     * 範囲内のチャンクのレベルを再計算します
+     */
+    private void recomputeLevels(int centerX, int centerZ, int radius) {
+        // 範囲に影響しうるチケットだけを候補にする {X, Z, レベル, 境界までのチケットのレベル}
+        List<int[]> sources = new ArrayList<>();
+        for (Map.Entry<Long, List<ChunkTicket>> entry : tickets.entrySet()) {
+            int level = UNLOADED_LEVEL;
+            int borderLevel = UNLOADED_LEVEL;
+            for (ChunkTicket ticket : entry.getValue()) {
+                if (ticket.getType().isBorderOnly()) {
+                    borderLevel = Math.min(borderLevel, ticket.getLevel());
+                } else {
+                    level = Math.min(level, ticket.getLevel());
+                }
+            }
+            int reach = BORDER_LEVEL - Math.min(level, borderLevel);
+            if (reach < 0) {
+                continue;
+            }
+            int sourceX = ChunkMap.keyX(entry.getKey());
+            int sourceZ = ChunkMap.keyZ(entry.getKey());
+            if (Math.abs(sourceX - centerX) <= radius + reach && Math.abs(sourceZ - centerZ) <= radius + reach) {
+                sources.add(new int[] {sourceX, sourceZ, level, borderLevel});
+            }
+        }
+        
+        for (int x = centerX - radius; x <= centerX + radius; x++) {
+            for (int z = centerZ - radius; z <= centerZ + radius; z++) {
+                int level = UNLOADED_LEVEL;
+                for (int[] source : sources) {
+                    int distance = Math.max(Math.abs(x - source[0]), Math.abs(z - source[1]));
+                    level = Math.min(level, source[2] + distance);
+                    level = Math.min(level, Math.max(BORDER_LEVEL, source[3] + distance));
+                }
+                updateLevel(x, z, Math.min(level, UNLOADED_LEVEL));
+            }
+        }
+    }
+    
+    private void updateLevel(int chunkX, int chunkZ, int level) {
+        long key = ChunkMap.key(chunkX, chunkZ);
+        ChunkHolder holder = holders.get(key);
+        if (holder == null) {
+            if (level > BORDER_LEVEL) {
+                return;
+            }
+            holder = new ChunkHolder(chunkX, chunkZ);
+            holders.put(key, holder);
+        }
+        
+        ChunkHolder.State oldState = holder.getState();
+        holder.setLevel(level);
+        ChunkHolder.State newState = holder.getState();
+        if (oldState == newState) {
+            return;
+        }
+        
+        if (newState == ChunkHolder.State.INACCESSIBLE) {
+            scheduleUnload(holder);
+        } else if (oldState == ChunkHolder.State.INACCESSIBLE) {
+            // アンロード予定を取り消して読み込みを要求
+            holder.setUnloadTick(-1);
+            chunkManager.getChunkAsync(chunkX, chunkZ);
+        }
+    }
+    
+    private void scheduleUnload(ChunkHolder holder) {
+        if (holder.getUnloadTick() >= 0) {
+            return;
+        }
+        long tick = currentTick + UNLOAD_DELAY_TICKS;
+        holder.setUnloadTick(tick);
+        unloadQueue.add(new UnloadEntry(holder, tick));
+    }
+    
+    /**
+     * アンロード待ちキューの要素
+     */
+    private static final class UnloadEntry {
+        final ChunkHolder holder;
+        final long tick;
+        
+        UnloadEntry(ChunkHolder holder, long tick) {
+            this.holder = holder;
+            this.tick = tick;
+        }
+    }
+    
+    /**
+     * プレイヤー1人分のチケット
+     */
+    private static final class PlayerTickets {
+        final int chunkX;
+        final int chunkZ;
+        final ChunkTicket view;
+        final ChunkTicket simulation;
+        
+        PlayerTickets(int chunkX, int chunkZ, ChunkTicket view, ChunkTicket simulation) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.view = view;
+            this.simulation = simulation;
+        }
+        
+        void remove(ChunkTicketManager manager) {
+            manager.removeTicket(chunkX, chunkZ, view);
+            manager.removeTicket(chunkX, chunkZ, simulation);
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,299 @@
+package com.minecraft.server.world;
+
+import com.minecraft.server.network.EntityPackets;
+import com.minecraft.server.network.VarIntFrameEncoder;
+import com.minecraft.server.player.Player;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * エンティティを表示しているプレイヤーを管理し、出現・削除・移動のパケットを送信するクラス
+ *
+ * 毎ティック、各エンティティの追跡範囲内にいるプレイヤーを空間インデックスから求め、
+ * 前回の表示先と比較して増えたプレイヤーへ出現、減ったプレイヤーへ削除パケットを送ります。
+ * 移動は追跡範囲に応じた間隔で差分パケットとして送り、エンコードしたパケットは
+ * 表示先のプレイヤー全員で共有します。送信量はプレイヤー数の2乗ではなく、
+ * 近くにいるプレイヤーの数に比例します。
+ *
+ * 追跡範囲は基本範囲に{@code entity-broadcast-range-percentage}（10〜1000%）を掛け、
+ * 表示距離で制限した値です。ワールドのティックスレッドから呼び出してください。
+ */
+public class EntityTracker {
+    
+    /** プレイヤーの基本追跡範囲（ブロック） */
+    public static final int PLAYER_TRACKING_RANGE = 128;
+    
+    private static final int MIN_RANGE_PERCENTAGE = 10;
+    private static final int MAX_RANGE_PERCENTAGE = 1000;
+    
+    private final World world;
+    private final ByteBufAllocator allocator;
+    private final Map<Player, TrackedEntity> entities = new IdentityHashMap<>();
+    
+    // 1ティック分の作業用（視点ごとにまとめる削除パケット）
+    private final Map<Player, RemovedIds> removals = new HashMap<>();
+    private long tickCount;
+    
+    public EntityTracker(World world, ByteBufAllocator allocator) {
+        this.world = world;
+        this.allocator = allocator;
+    }
+    
+    /**
+     * 追跡範囲から移動パケットの送信間隔（ティック）を求めます
+     * 範囲が広いエンティティほど遠くから見られるため、間隔を長くして送信量を抑えます。
+     */
+    static int updateInterval(int range) {
+        if (range <= 64) {
+            return 2;
+        }
+        if (range <= 160) {
+            return 3;
+        }
+        return 5;
+    }
+    
+    /**
+     * 表示先と位置の変化を反映します
+     */
+    public void tick() {
+        tickCount++;
+        SpatialIndex<Player> index = world.getPlayerIndex();
+        int percentage = Math.max(MIN_RANGE_PERCENTAGE,
+                Math.min(MAX_RANGE_PERCENTAGE, world.getServer().getConfig().getEntityBroadcastRangePercentage()));
+        int viewRange = world.getServer().getConfig().getViewDistance() * 16;
+        int range = Math.min(viewRange, PLAYER_TRACKING_RANGE * percentage / 100);
+        
+        // ワールドを離れたプレイヤーの追跡を終了
+        Iterator<TrackedEntity> iterator = entities.values().iterator();
+        while (iterator.hasNext()) {
+            TrackedEntity entity = iterator.next();
+            if (entity.player.getWorld() != world || !entity.player.isOnline()) {
+                for (Player viewer : entity.viewers) {
+                    queueRemoval(viewer, entity.player.getEntityId());
+                }
+                iterator.remove();
+            }
+        }
+        
+        // 新しく来たプレイヤーの追跡を開始
+        index.forEach(player -> {
+            if (!entities.containsKey(player)) {
+                entities.put(player, new TrackedEntity(player));
+            }
+        });
+        
+        for (TrackedEntity entity : entities.values()) {
+            entity.range = range;
+            updateViewers(entity, index);
+            if (!entity.viewers.isEmpty() && (tickCount + entity.player.getEntityId()) % updateInterval(range) == 0) {
+                sendMovement(entity);
+            }
+        }
+        
+        flushRemovals();
+    }
+    
+    /**
+     * 追跡範囲内のプレイヤーを求め、表示先の増減に応じて出現・削除を送信します
+     */
+    private void updateViewers(TrackedEntity entity, SpatialIndex<Player> index) {
+        Player player = entity.player;
+        Set<Player> current = entity.nextViewers;
+        int range = entity.range;
+        index.forEachInBox(player.getX() - range, Double.NEGATIVE_INFINITY, player.getZ() - range,
+                player.getX() + range, Double.POSITIVE_INFINITY, player.getZ() + range, viewer -> {
+                    if (viewer != player) {
+                        current.add(viewer);
+                    }
+                });
+        
+        ByteBuf spawn = null;
+        try {
+            for (Player viewer : current) {
+                if (entity.viewers.contains(viewer)) {
+                    continue;
+                }
+                if (spawn == null) {
+                    // 既存の表示先がいなければ送信済みの位置を現在位置に合わせる
+                    // （いる場合は差分の基準を揃えるため、送信済みの位置で出現させる）
+                    if (entity.viewers.isEmpty()) {
+                        entity.syncPosition();
+                    }
+                    spawn = VarIntFrameEncoder.allocatePacket(allocator, 64);
+                    EntityPackets.writeSpawnPlayer(spawn, player.getEntityId(), player.getUuid(),
+                            entity.lastX / 4096.0, entity.lastY / 4096.0, entity.lastZ / 4096.0,
+                            entity.lastYaw, entity.lastPitch);
+                }
+                viewer.sendPacket(spawn.retainedDuplicate());
+            }
+        } finally {
+            if (spawn != null) {
+                spawn.release();
+            }
+        }
+        for (Player viewer : entity.viewers) {
+            if (!current.contains(viewer)) {
+                queueRemoval(viewer, player.getEntityId());
+            }
+        }
+        
+        entity.nextViewers = entity.viewers;
+        entity.nextViewers.clear();
+        entity.viewers = current;
+    }
+    
+    /**
+     * 前回送信した位置・向きからの変化を表示先へ送信します
+     */
+    private void sendMovement(TrackedEntity entity) {
+        Player player = entity.player;
+        long x = EntityPackets.encodePosition(player.getX());
+        long y = EntityPackets.encodePosition(player.getY());
+        long z = EntityPackets.encodePosition(player.getZ());
+        byte yaw = EntityPackets.encodeAngle(player.getYaw());
+        byte pitch = EntityPackets.encodeAngle(player.getPitch());
+        long dx = x - entity.lastX;
+        long dy = y - entity.lastY;
+        long dz = z - entity.lastZ;
+        boolean moved = dx != 0 || dy != 0 || dz != 0;
+        boolean rotated = yaw != entity.lastYaw || pitch != entity.lastPitch;
+        if (!moved && !rotated) {
+            return;
+        }
+        
+        ByteBuf packet = VarIntFrameEncoder.allocatePacket(allocator, 48);
+        try {
+            int id = player.getEntityId();
+            boolean onGround = player.isOnGround();
+            if (Math.abs(dx) > EntityPackets.MAX_RELATIVE_MOVE || Math.abs(dy) > EntityPackets.MAX_RELATIVE_MOVE
+                    || Math.abs(dz) > EntityPackets.MAX_RELATIVE_MOVE) {
+                EntityPackets.writeTeleport(packet, id, player.getX(), player.getY(), player.getZ(), yaw, pitch, onGround);
+            } else if (moved && rotated) {
+                EntityPackets.writeUpdatePositionRotation(packet, id, (int) dx, (int) dy, (int) dz, yaw, pitch, onGround);
+            } else if (moved) {
+                EntityPackets.writeUpdatePosition(packet, id, (int) dx, (int) dy, (int) dz, onGround);
+            } else {
+                EntityPackets.writeUpdateRotation(packet, id, yaw, pitch, onGround);
+            }
+            for (Player viewer : entity.viewers) {
+                viewer.sendPacket(packet.retainedDuplicate());
+            }
+            
+            if (yaw != entity.lastYaw) {
+                ByteBuf head = VarIntFrameEncoder.allocatePacket(allocator, 16);
+                try {
+                    EntityPackets.writeHeadRotation(head, id, yaw);
+                    for (Player viewer : entity.viewers) {
+                        viewer.sendPacket(head.retainedDuplicate());
+                    }
+                } finally {
+                    head.release();
+                }
+            }
+        } finally {
+            packet.release();
+        }
+        
+        entity.lastX = x;
+        entity.lastY = y;
+        entity.lastZ = z;
+        entity.lastYaw = yaw;
+        entity.lastPitch = pitch;
+    }
+    
+    private void queueRemoval(Player viewer, int entityId) {
+        removals.computeIfAbsent(viewer, key -> new RemovedIds()).add(entityId);
+    }
+    
+    /**
+     * 視点ごとにまとめた削除パケットを送信します
+     */
+    private void flushRemovals() {
+        if (removals.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Player, RemovedIds> entry : removals.entrySet()) {
+            RemovedIds removed = entry.getValue();
+            ByteBuf packet = VarIntFrameEncoder.allocatePacket(allocator, 4 + removed.size * 5);
+            EntityPackets.writeRemoveEntities(packet, removed.ids, removed.size);
+            entry.getKey().sendPacket(packet);
+        }
+        removals.clear();
+    }
+    
+    /**
+     * 指定したプレイヤーを表示しているプレイヤーを取得します
+     */
+    public List<Player> getViewers(Player player) {
+        TrackedEntity entity = entities.get(player);
+        return entity != null ? new ArrayList<>(entity.viewers) : new ArrayList<>();
+    }
+    
+    /**
+     * 追跡中のエンティティ数を取得します
+     */
+    public int getTrackedCount() {
+        return entities.size();
+    }
+    
+    /**
+     * 1つのエンティティの追跡状態
+     */
+    private static final class TrackedEntity {
+        
+        final Player player;
+        Set<Player> viewers = new HashSet<>();
+        Set<Player> nextViewers = new HashSet<>();
+        int range;
+        
+        // 最後に送信した位置（1/4096ブロック単位）と向き
+        long lastX;
+        long lastY;
+        long lastZ;
+        byte lastYaw;
+        byte lastPitch;
+        
+        TrackedEntity(Player player) {
+            this.player = player;
+            syncPosition();
+        }
+        
+        /**
+         * 現在の位置を送信済みとして記録します（表示先がいない場合のみ）
+         */
+        void syncPosition() {
+            lastX = EntityPackets.encodePosition(player.getX());
+            lastY = EntityPackets.encodePosition(player.getY());
+            lastZ = EntityPackets.encodePosition(player.getZ());
+            lastYaw = EntityPackets.encodeAngle(player.getYaw());
+            lastPitch = EntityPackets.encodeAngle(player.getPitch());
+        }
+    }
+    
+    /**
+     * 1人の視点へ送る削除対象のエンティティID
+     */
+    private static final class RemovedIds {
+        
+        int[] ids = new int[8];
+        int size;
+        
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+} 
\ No newline at end of file
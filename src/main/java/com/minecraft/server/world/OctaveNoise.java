@@ -0,0 +1,48 @@
+package com.minecraft.server.world;
+
+import java.util.Random;
+
+/**
+ * 周波数の異なる複数のパーリンノイズを重ね合わせたノイズ
+ *
+ * オクターブごとに周波数を2倍、振幅を半分にして合成します。
+ */
+public final class OctaveNoise {
+    
+    private final PerlinNoise[] octaves;
+    private final double maxAmplitude;
+    
+    public OctaveNoise(Random random, int octaveCount) {
+        this.octaves = new PerlinNoise[octaveCount];
+        double amplitude = 1.0;
+        double total = 0.0;
+        for (int i = 0; i < octaveCount; i++) {
+            octaves[i] = new PerlinNoise(random);
+            total += amplitude;
+            amplitude *= 0.5;
+        }
+        this.maxAmplitude = total;
+    }
+    
+    /**
+     * 3次元のノイズ値を取得します（おおよそ-1.0〜1.0に正規化）
+     */
+    public double sample(double x, double y, double z) {
+        double value = 0.0;
+        double frequency = 1.0;
+        double amplitude = 1.0;
+        for (PerlinNoise octave : octaves) {
+            value += octave.sample(x * frequency, y * frequency, z * frequency) * amplitude;
+            frequency *= 2.0;
+            amplitude *= 0.5;
+        }
+        return value / maxAmplitude;
+    }
+    
+    /**
+     * 2次元のノイズ値を取得します（おおよそ-1.0〜1.0に正規化）
+     */
+    public double sample(double x, double z) {
+        return sample(x, 0.0, z);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.minecraft.server.world;
+
+import java.util.Random;
+
+/**
+ * シード付きの改良パーリンノイズ（3次元）
+ *
+ * 同じ乱数列から作成したインスタンスは常に同じ値を返すため、
+ * 同じシードのワールドでは同じ地形が生成されます。
+ */
+public final class PerlinNoise {
+    
+    private final int[] permutation = new int[512];
+    private final double offsetX;
+    private final double offsetY;
+    private final double offsetZ;
+    
+    public PerlinNoise(Random random) {
+        this.offsetX = random.nextDouble() * 256.0;
+        this.offsetY = random.nextDouble() * 256.0;
+        this.offsetZ = random.nextDouble() * 256.0;
+        
+        for (int i = 0; i < 256; i++) {
+            permutation[i] = i;
+        }
+        for (int i = 255; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = tmp;
+        }
+        System.arraycopy(permutation, 0, permutation, 256, 256);
+    }
+    
+    /**
+     * ノイズ値を取得します（おおよそ-1.0〜1.0）
+     */
+    public double sample(double x, double y, double z) {
+        x += offsetX;
+        y += offsetY;
+        z += offsetZ;
+        
+        double floorX = Math.floor(x);
+        double floorY = Math.floor(y);
+        double floorZ = Math.floor(z);
+        int cellX = (int) floorX & 255;
+        int cellY = (int) floorY & 255;
+        int cellZ = (int) floorZ & 255;
+        x -= floorX;
+        y -= floorY;
+        z -= floorZ;
+        
+        double u = fade(x);
+        double v = fade(y);
+        double w = fade(z);
+        
+        int[] p = permutation;
+        int a = p[cellX] + cellY;
+        int aa = p[a] + cellZ;
+        int ab = p[a + 1] + cellZ;
+        int b = p[cellX + 1] + cellY;
+        int ba = p[b] + cellZ;
+        int bb = p[b + 1] + cellZ;
+        
+        return lerp(w,
+                lerp(v,
+                        lerp(u, grad(p[aa], x, y, z), grad(p[ba], x - 1, y, z)),
+                        lerp(u, grad(p[ab], x, y - 1, z), grad(p[bb], x - 1, y - 1, z))),
+                lerp(v,
+                        lerp(u, grad(p[aa + 1], x, y, z - 1), grad(p[ba + 1], x - 1, y, z - 1)),
+                        lerp(u, grad(p[ab + 1], x, y - 1, z - 1), grad(p[bb + 1], x - 1, y - 1, z - 1))));
+    }
+    
+    private static double fade(double t) {
+        return t * t * t * (t * (t * 6 - 15) + 10);
+    }
+    
+    static double lerp(double t, double a, double b) {
+        return a + t * (b - a);
+    }
+    
+    private static double grad(int hash, double x, double y, double z) {
+        int h = hash & 15;
+        double u = h < 8 ? x : y;
+        double v = h < 4 ? y : (h == 12 || h == 14 ? x : z);
+        return ((h & 1) == 0 ? u : -u) + ((h & 2) == 0 ? v : -v);
+    }
+} 
\ No newline at end of file
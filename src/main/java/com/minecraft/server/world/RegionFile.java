@@ -0,0 +1,289 @@
+package com.minecraft.server.world;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 32x32チャンクをまとめて保存するリージョンファイル
+ *
+ * ファイルは4KiBのセクター単位で管理されます。先頭2セクターがヘッダーで、
+ * 1セクター目に各チャンクの位置（上位24ビットが開始セクター、下位8ビットが
+ * セクター数）、2セクター目に最終更新時刻を格納します。ヘッダーはメモリマップして
+ * 直接読み書きし、チャンクデータは1回の位置指定読み込みで取得します。
+ *
+ * チャンクデータの形式:
+ * [int データ長][byte 圧縮形式][int 展開後の長さ][データ]
+ */
+public class RegionFile implements Closeable {
+    
+    public static final int REGION_SIZE = 32;
+    public static final int SECTOR_SIZE = 4096;
+    
+    private static final int HEADER_SECTORS = 2;
+    private static final int HEADER_SIZE = HEADER_SECTORS * SECTOR_SIZE;
+    private static final int TIMESTAMP_OFFSET = SECTOR_SIZE;
+    private static final int MAX_SECTORS_PER_CHUNK = 255;
+    
+    // [int データ長][byte 圧縮形式][int 展開後の長さ]
+    private static final int CHUNK_HEADER_SIZE = 9;
+    
+    public static final byte COMPRESSION_ZLIB = 2;
+    public static final byte COMPRESSION_NONE = 3;
+    
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final BitSet usedSectors = new BitSet();
+    private final int compressionLevel;
+    
+    public RegionFile(Path path, int compressionLevel) throws IOException {
+        this.path = path;
+        this.compressionLevel = compressionLevel;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        
+        // 新規ファイルまたは破損したファイルはヘッダー分を確保
+        if (channel.size() < HEADER_SIZE) {
+            channel.write(ByteBuffer.allocate((int) (HEADER_SIZE - channel.size())), channel.size());
+        }
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        
+        usedSectors.set(0, HEADER_SECTORS);
+        long fileSectors = (channel.size() + SECTOR_SIZE - 1) / SECTOR_SIZE;
+        for (int i = 0; i < REGION_SIZE * REGION_SIZE; i++) {
+            int location = header.getInt(i * 4);
+            int offset = location >>> 8;
+            int count = location & 0xFF;
+            if (location == 0) {
+                continue;
+            }
+            if (offset < HEADER_SECTORS || offset + count > fileSectors) {
+                // 範囲外を指す位置情報は破棄
+                header.putInt(i * 4, 0);
+                continue;
+            }
+            usedSectors.set(offset, offset + count);
+        }
+    }
+    
+    private static int index(int localX, int localZ) {
+        return (localX & (REGION_SIZE - 1)) + (localZ & (REGION_SIZE - 1)) * REGION_SIZE;
+    }
+    
+    /**
+     * チャンクが保存されているかどうかを確認します
+     */
+    public synchronized boolean hasChunk(int localX, int localZ) {
+        return header.getInt(index(localX, localZ) * 4) != 0;
+    }
+    
+    /**
+     * チャンクデータを読み込みます（保存されていない場合はnull）
+     */
+    public ByteBuffer read(int localX, int localZ) throws IOException {
+        int location;
+        synchronized (this) {
+            location = header.getInt(index(localX, localZ) * 4);
+        }
+        if (location == 0) {
+            return null;
+        }
+        
+        long position = (long) (location >>> 8) * SECTOR_SIZE;
+        // 末尾のチャンクはセクター境界まで書き込まれていないことがある
+        int length = (int) Math.min((long) (location & 0xFF) * SECTOR_SIZE, channel.size() - position);
+        if (length < CHUNK_HEADER_SIZE) {
+            throw new EOFException("リージョンファイルが途中で終わっています: " + path);
+        }
+        
+        // セクター全体を1回の位置指定読み込みで取得
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("リージョンファイルが途中で終わっています: " + path);
+            }
+        }
+        buffer.flip();
+        
+        int dataLength = buffer.getInt();
+        byte compression = buffer.get();
+        int rawLength = buffer.getInt();
+        if (dataLength < 5 || dataLength - 5 > buffer.remaining()) {
+            throw new IOException("不正なチャンクデータ長: " + dataLength + " (" + path + ")");
+        }
+        buffer.limit(buffer.position() + dataLength - 5);
+        
+        switch (compression) {
+            case COMPRESSION_NONE:
+                return buffer.slice();
+            case COMPRESSION_ZLIB:
+                return inflate(buffer, rawLength);
+            default:
+                throw new IOException("不明な圧縮形式: " + compression + " (" + path + ")");
+        }
+    }
+    
+    /**
+     * チャンクデータを書き込みます
+     */
+    public void write(int localX, int localZ, byte[] raw, int rawLength) throws IOException {
+        ByteBuffer record = encode(raw, rawLength);
+        int sectorsNeeded = (record.remaining() + SECTOR_SIZE - 1) / SECTOR_SIZE;
+        if (sectorsNeeded > MAX_SECTORS_PER_CHUNK) {
+            throw new IOException("チャンクデータが大きすぎます: " + record.remaining() + " bytes");
+        }
+        
+        int index = index(localX, localZ);
+        synchronized (this) {
+            int location = header.getInt(index * 4);
+            int oldOffset = location >>> 8;
+            int oldCount = location & 0xFF;
+            
+            int offset;
+            if (location != 0 && sectorsNeeded <= oldCount) {
+                // 既存のセクターに収まる場合はそのまま上書き
+                offset = oldOffset;
+                usedSectors.clear(oldOffset + sectorsNeeded, oldOffset + oldCount);
+            } else {
+                if (location != 0) {
+                    usedSectors.clear(oldOffset, oldOffset + oldCount);
+                }
+                offset = allocate(sectorsNeeded);
+            }
+            
+            long position = (long) offset * SECTOR_SIZE;
+            while (record.hasRemaining()) {
+                channel.write(record, position + record.position());
+            }
+            
+            header.putInt(index * 4, (offset << 8) | sectorsNeeded);
+            header.putInt(TIMESTAMP_OFFSET + index * 4, (int) (System.currentTimeMillis() / 1000L));
+        }
+    }
+    
+    /**
+     * チャンクを削除します
+     */
+    public synchronized void delete(int localX, int localZ) {
+        int index = index(localX, localZ);
+        int location = header.getInt(index * 4);
+        if (location != 0) {
+            usedSectors.clear(location >>> 8, (location >>> 8) + (location & 0xFF));
+            header.putInt(index * 4, 0);
+            header.putInt(TIMESTAMP_OFFSET + index * 4, 0);
+        }
+    }
+    
+    /**
+     * チャンクの最終更新時刻（秒）を取得します
+     */
+    public synchronized int getTimestamp(int localX, int localZ) {
+        return header.getInt(TIMESTAMP_OFFSET + index(localX, localZ) * 4);
+    }
+    
+    /**
+     * 連続した空きセクターを確保します（見つからない場合はファイル末尾）
+     */
+    private int allocate(int count) {
+        int start = usedSectors.nextClearBit(HEADER_SECTORS);
+        while (true) {
+            int end = usedSectors.nextSetBit(start);
+            if (end < 0 || end - start >= count) {
+                break;
+            }
+            start = usedSectors.nextClearBit(end);
+        }
+        usedSectors.set(start, start + count);
+        return start;
+    }
+    
+    /**
+     * 書き込み用のレコードを作成します（圧縮して小さくならない場合は無圧縮）
+     */
+    private ByteBuffer encode(byte[] raw, int rawLength) {
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            deflater.setInput(raw, 0, rawLength);
+            deflater.finish();
+            
+            byte[] compressed = new byte[Math.max(64, rawLength / 2)];
+            int compressedLength = 0;
+            while (!deflater.finished()) {
+                if (compressedLength == compressed.length) {
+                    if (compressedLength >= rawLength) {
+                        break;
+                    }
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+            }
+            
+            boolean useCompression = deflater.finished() && compressedLength < rawLength;
+            byte[] data = useCompression ? compressed : raw;
+            int dataLength = useCompression ? compressedLength : rawLength;
+            
+            ByteBuffer record = ByteBuffer.allocate(CHUNK_HEADER_SIZE + dataLength);
+            record.putInt(dataLength + 5);
+            record.put(useCompression ? COMPRESSION_ZLIB : COMPRESSION_NONE);
+            record.putInt(rawLength);
+            record.put(data, 0, dataLength);
+            record.flip();
+            return record;
+        } finally {
+            deflater.end();
+        }
+    }
+    
+    private ByteBuffer inflate(ByteBuffer compressed, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteBuffer output = ByteBuffer.allocate(rawLength);
+            while (output.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(output) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+            }
+            if (output.hasRemaining()) {
+                throw new IOException("チャンクデータの展開に失敗しました: " + path);
+            }
+            output.flip();
+            return output;
+        } catch (DataFormatException e) {
+            throw new IOException("チャンクデータが破損しています: " + path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    /**
+     * ヘッダーとデータをディスクに書き出します
+     */
+    public synchronized void flush() throws IOException {
+        header.force();
+        channel.force(false);
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+    
+    /**
+     * ファイルパスを取得します
+     */
+    public Path getPath() {
+        return path;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,137 @@
+package com.minecraft.server.world;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+
+/**
+ * ワールドのリージョンファイル群を管理するクラス
+ *
+ * チャンク座標からリージョンファイルを特定し、開いたファイルはキャッシュして
+ * 再利用します。
+ */
+public class RegionStorage implements Closeable {
+    
+    private final Path directory;
+    private final Map<Long, RegionFile> regions = new ConcurrentHashMap<>();
+    private final int compressionLevel;
+    
+    public RegionStorage(Path directory) {
+        this(directory, Deflater.DEFAULT_COMPRESSION);
+    }
+    
+    public RegionStorage(Path directory, int compressionLevel) {
+        this.directory = directory;
+        this.compressionLevel = compressionLevel;
+    }
+    
+    /**
+     * チャンクを読み込みます（保存されていない場合はnull）
+     */
+    public Chunk read(World world, int chunkX, int chunkZ) throws IOException {
+        RegionFile region = getRegion(chunkX, chunkZ, false);
+        if (region == null) {
+            return null;
+        }
+        
+        ByteBuffer data = region.read(chunkX, chunkZ);
+        if (data == null) {
+            return null;
+        }
+        return ChunkSerializer.deserialize(world, chunkX, chunkZ, data);
+    }
+    
+    /**
+     * チャンクを書き込みます
+     */
+    public void write(Chunk chunk) throws IOException {
+        byte[] data = ChunkSerializer.serialize(chunk);
+        write(chunk.getChunkX(), chunk.getChunkZ(), data);
+    }
+    
+    /**
+     * シリアライズ済みのチャンクデータを書き込みます
+     */
+    public void write(int chunkX, int chunkZ, byte[] data) throws IOException {
+        getRegion(chunkX, chunkZ, true).write(chunkX, chunkZ, data, data.length);
+    }
+    
+    /**
+     * チャンクが保存されているかどうかを確認します
+     */
+    public boolean hasChunk(int chunkX, int chunkZ) throws IOException {
+        RegionFile region = getRegion(chunkX, chunkZ, false);
+        return region != null && region.hasChunk(chunkX, chunkZ);
+    }
+    
+    /**
+     * チャンク座標に対応するリージョンファイルを取得します
+     */
+    private RegionFile getRegion(int chunkX, int chunkZ, boolean create) throws IOException {
+        int regionX = chunkX >> 5;
+        int regionZ = chunkZ >> 5;
+        long key = ChunkMap.key(regionX, regionZ);
+        
+        RegionFile region = regions.get(key);
+        if (region != null) {
+            return region;
+        }
+        
+        Path path = directory.resolve("r." + regionX + "." + regionZ + ".region");
+        if (!create && !Files.exists(path)) {
+            return null;
+        }
+        
+        synchronized (regions) {
+            region = regions.get(key);
+            if (region == null) {
+                Files.createDirectories(directory);
+                region = new RegionFile(path, compressionLevel);
+                regions.put(key, region);
+            }
+            return region;
+        }
+    }
+    
+    /**
+     * 開いているすべてのリージョンファイルをディスクに書き出します
+     */
+    public void flush() throws IOException {
+        for (RegionFile region : regions.values()) {
+            region.flush();
+        }
+    }
+    
+    /**
+     * 開いているすべてのリージョンファイルを閉じます
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        synchronized (regions) {
+            for (RegionFile region : regions.values()) {
+                try {
+                    region.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            regions.clear();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    /**
+     * 保存先ディレクトリを取得します
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+} 
\ No newline at end of file
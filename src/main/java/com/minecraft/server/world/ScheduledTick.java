@@ -0,0 +1,70 @@
+package com.minecraft.server.world;
+
+/**
+ * 予約されたブロックの更新
+ *
+ * 実行順は 予定ティック → 優先度（小さいほど先） → 予約順 です。
+ */
+public final class ScheduledTick implements Comparable<ScheduledTick> {
+    
+    private final int x;
+    private final int y;
+    private final int z;
+    private final int blockId;
+    private final long dueTick;
+    private final int priority;
+    private final long order;
+    
+    ScheduledTick(int x, int y, int z, int blockId, long dueTick, int priority, long order) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.blockId = blockId;
+        this.dueTick = dueTick;
+        this.priority = priority;
+        this.order = order;
+    }
+    
+    public int getX() {
+        return x;
+    }
+    
+    public int getY() {
+        return y;
+    }
+    
+    public int getZ() {
+        return z;
+    }
+    
+    /**
+     * 予約したブロックのIDを取得します
+     */
+    public int getBlockId() {
+        return blockId;
+    }
+    
+    /**
+     * 実行予定のティックを取得します
+     */
+    public long getDueTick() {
+        return dueTick;
+    }
+    
+    /**
+     * 優先度を取得します（小さいほど先に実行）
+     */
+    public int getPriority() {
+        return priority;
+    }
+    
+    @Override
+    public int compareTo(ScheduledTick other) {
+        int result = Long.compare(dueTick, other.dueTick);
+        if (result != 0) {
+            return result;
+        }
+        result = Integer.compare(priority, other.priority);
+        return result != 0 ? result : Long.compare(order, other.order);
+    }
+} 
\ No newline at end of file
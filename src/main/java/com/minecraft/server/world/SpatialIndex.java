@@ -0,0 +1,295 @@
+package com.minecraft.server.world;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 位置を持つオブジェクトをチャンク単位の格子で管理する空間インデックス
+ *
+ * 格子の1セルはチャンク1列（16x16ブロック、高さ全体）に対応し、セルは
+ * {@link ChunkMap}で管理します。各要素は自分のセルと配列上の位置を
+ * {@link Handle}に保持するため、移動・削除は定数時間で行えます。
+ * 検索はコールバックで結果を渡し、イテレーターや結果リストを生成しません。
+ *
+ * 更新と検索はワールドのティックスレッド（またはワールドのティックの合間）から行ってください。
+ */
+public class SpatialIndex<T> {
+    
+    private static final int INITIAL_CELL_CAPACITY = 4;
+    
+    private final ChunkMap<Cell<T>> cells = new ChunkMap<>();
+    private int size;
+    
+    /**
+     * 要素を追加し、移動・削除に使うハンドルを返します
+     */
+    public Handle<T> add(T value, double x, double y, double z) {
+        Handle<T> handle = new Handle<>(value);
+        handle.x = x;
+        handle.y = y;
+        handle.z = z;
+        insert(handle, cellX(x), cellZ(z));
+        size++;
+        return handle;
+    }
+    
+    /**
+     * 要素の位置を更新します（同じセル内の移動では座標の書き換えのみ）
+     */
+    public void move(Handle<T> handle, double x, double y, double z) {
+        if (handle.cell == null) {
+            return; // 削除済み
+        }
+        handle.x = x;
+        handle.y = y;
+        handle.z = z;
+        int cellX = cellX(x);
+        int cellZ = cellZ(z);
+        if (handle.cell.cellX != cellX || handle.cell.cellZ != cellZ) {
+            detach(handle);
+            insert(handle, cellX, cellZ);
+        }
+    }
+    
+    /**
+     * 要素を削除します
+     */
+    public void remove(Handle<T> handle) {
+        if (handle.cell == null) {
+            return;
+        }
+        detach(handle);
+        size--;
+    }
+    
+    /**
+     * 中心から指定した半径以内の要素に対して処理を行い、該当した数を返します
+     */
+    public int forEachInRadius(double x, double y, double z, double radius, Consumer<? super T> action) {
+        double radiusSquared = radius * radius;
+        int count = 0;
+        for (int cellX = cellX(x - radius); cellX <= cellX(x + radius); cellX++) {
+            for (int cellZ = cellZ(z - radius); cellZ <= cellZ(z + radius); cellZ++) {
+                Cell<T> cell = cells.get(cellX, cellZ);
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size; i++) {
+                    Handle<T> handle = cell.handles[i];
+                    double dx = handle.x - x;
+                    double dy = handle.y - y;
+                    double dz = handle.z - z;
+                    if (dx * dx + dy * dy + dz * dz <= radiusSquared) {
+                        action.accept(handle.value);
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 直方体の範囲内（両端を含む）の要素に対して処理を行い、該当した数を返します
+     */
+    public int forEachInBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                            Consumer<? super T> action) {
+        int count = 0;
+        for (int cellX = cellX(minX); cellX <= cellX(maxX); cellX++) {
+            for (int cellZ = cellZ(minZ); cellZ <= cellZ(maxZ); cellZ++) {
+                Cell<T> cell = cells.get(cellX, cellZ);
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size; i++) {
+                    Handle<T> handle = cell.handles[i];
+                    if (handle.x >= minX && handle.x <= maxX
+                            && handle.y >= minY && handle.y <= maxY
+                            && handle.z >= minZ && handle.z <= maxZ) {
+                        action.accept(handle.value);
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 指定したチャンク列にいる要素に対して処理を行います
+     */
+    public void forEachInChunk(int chunkX, int chunkZ, Consumer<? super T> action) {
+        Cell<T> cell = cells.get(chunkX, chunkZ);
+        if (cell == null) {
+            return;
+        }
+        for (int i = 0; i < cell.size; i++) {
+            action.accept(cell.handles[i].value);
+        }
+    }
+    
+    /**
+     * 指定したチャンク列にいる要素の数を取得します
+     */
+    public int countInChunk(int chunkX, int chunkZ) {
+        Cell<T> cell = cells.get(chunkX, chunkZ);
+        return cell == null ? 0 : cell.size;
+    }
+    
+    /**
+     * 中心から指定した半径以内で、条件を満たす最も近い要素を取得します（見つからない場合はnull）
+     * 中心のセルから外側へ順に探索し、それ以上近い要素が存在し得なくなった時点で終了します。
+     */
+    public T findNearest(double x, double y, double z, double radius, Predicate<? super T> filter) {
+        int centerX = cellX(x);
+        int centerZ = cellZ(z);
+        int maxRing = Math.max(centerX - cellX(x - radius), cellX(x + radius) - centerX);
+        maxRing = Math.max(maxRing, Math.max(centerZ - cellZ(z - radius), cellZ(z + radius) - centerZ));
+        
+        Handle<T> nearest = null;
+        double nearestSquared = radius * radius;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // このリングより外側のセルの要素は少なくとも(ring - 1) * 16ブロック離れている
+            if (nearest != null) {
+                double minDistance = (ring - 1) * 16.0;
+                if (minDistance > 0 && minDistance * minDistance > nearestSquared) {
+                    break;
+                }
+            }
+            for (int cellX = centerX - ring; cellX <= centerX + ring; cellX++) {
+                for (int cellZ = centerZ - ring; cellZ <= centerZ + ring; cellZ++) {
+                    if (Math.max(Math.abs(cellX - centerX), Math.abs(cellZ - centerZ)) != ring) {
+                        continue; // リングの外周のみ
+                    }
+                    Cell<T> cell = cells.get(cellX, cellZ);
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < cell.size; i++) {
+                        Handle<T> handle = cell.handles[i];
+                        double dx = handle.x - x;
+                        double dy = handle.y - y;
+                        double dz = handle.z - z;
+                        double distanceSquared = dx * dx + dy * dy + dz * dz;
+                        if (distanceSquared <= nearestSquared && filter.test(handle.value)) {
+                            nearest = handle;
+                            nearestSquared = distanceSquared;
+                        }
+                    }
+                }
+            }
+        }
+        return nearest != null ? nearest.value : null;
+    }
+    
+    /**
+     * すべての要素に対して処理を行います
+     */
+    public void forEach(Consumer<? super T> action) {
+        cells.forEach(cell -> {
+            for (int i = 0; i < cell.size; i++) {
+                action.accept(cell.handles[i].value);
+            }
+        });
+    }
+    
+    /**
+     * 要素数を取得します
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * 要素を含むセルの数を取得します
+     */
+    public int getCellCount() {
+        return cells.size();
+    }
+    
+    private static int cellX(double x) {
+        return (int) Math.floor(x) >> 4;
+    }
+    
+    private static int cellZ(double z) {
+        return (int) Math.floor(z) >> 4;
+    }
+    
+    private void insert(Handle<T> handle, int cellX, int cellZ) {
+        long key = ChunkMap.key(cellX, cellZ);
+        Cell<T> cell = cells.get(key);
+        if (cell == null) {
+            cell = new Cell<>(cellX, cellZ);
+            cells.put(key, cell);
+        }
+        if (cell.size == cell.handles.length) {
+            cell.handles = Arrays.copyOf(cell.handles, cell.size * 2);
+        }
+        handle.cell = cell;
+        handle.slot = cell.size;
+        cell.handles[cell.size++] = handle;
+    }
+    
+    /**
+     * 要素をセルから外します（末尾の要素を空いた位置へ移動）
+     */
+    private void detach(Handle<T> handle) {
+        Cell<T> cell = handle.cell;
+        int last = --cell.size;
+        Handle<T> moved = cell.handles[last];
+        cell.handles[handle.slot] = moved;
+        moved.slot = handle.slot;
+        cell.handles[last] = null;
+        handle.cell = null;
+        
+        if (cell.size == 0) {
+            cells.remove(ChunkMap.key(cell.cellX, cell.cellZ));
+        }
+    }
+    
+    /**
+     * インデックス内の要素とその位置
+     */
+    public static final class Handle<T> {
+        
+        private final T value;
+        private double x;
+        private double y;
+        private double z;
+        private Cell<T> cell;
+        private int slot;
+        
+        private Handle(T value) {
+            this.value = value;
+        }
+        
+        public T getValue() {
+            return value;
+        }
+        
+        /**
+         * インデックスに含まれているかどうかを確認します
+         */
+        public boolean isIndexed() {
+            return cell != null;
+        }
+    }
+    
+    /**
+     * 1チャンク列分のセル
+     */
+    private static final class Cell<T> {
+        
+        final int cellX;
+        final int cellZ;
+        @SuppressWarnings("unchecked")
+        Handle<T>[] handles = new Handle[INITIAL_CELL_CAPACITY];
+        int size;
+        
+        Cell(int cellX, int cellZ) {
+            this.cellX = cellX;
+            this.cellZ = cellZ;
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.minecraft.server.world;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 同じスレッドでまとめてティックするチャンクのグループ
+ *
+ * 異なるリージョンのチャンクは{@link TickRegionScheduler#SECTION_SIZE}チャンク以上
+ * 離れているため、互いに影響せず別々のスレッドでティックできます。
+ */
+public final class TickRegion {
+    
+    private final TickRegionScheduler scheduler;
+    private final List<Chunk> chunks = new ArrayList<>();
+    
+    TickRegion(TickRegionScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+    
+    void add(Chunk chunk) {
+        chunks.add(chunk);
+    }
+    
+    /**
+     * リージョン内のチャンクの予約されたブロックの更新を行います（リージョンのワーカースレッド）
+     * 1ティックで実行する予約の上限はリージョンごとに数えます。
+     */
+    void tick(long currentTick) {
+        BlockTickScheduler blockTicks = scheduler.getWorld().getBlockTickScheduler();
+        int executed = 0;
+        for (Chunk chunk : chunks) {
+            if (executed >= BlockTickScheduler.MAX_TICKS_PER_TICK) {
+                break;
+            }
+            executed += blockTicks.runDue(chunk, currentTick, BlockTickScheduler.MAX_TICKS_PER_TICK - executed);
+        }
+    }
+    
+    /**
+     * リージョン内のチャンクを取得します
+     */
+    public List<Chunk> getChunks() {
+        return chunks;
+    }
+    
+    TickRegionScheduler getScheduler() {
+        return scheduler;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,221 @@
+package com.minecraft.server.world;
+
+import com.minecraft.server.util.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 1つのワールドのティック対象チャンクを独立したリージョンに分け、並列にティックするクラス
+ *
+ * チャンクを{@link #SECTION_SIZE}x{@link #SECTION_SIZE}チャンクの区画にまとめ、
+ * ティック対象のチャンクを含む区画のうち隣接するもの（斜めを含む）を
+ * Union-Findで同じリージョンに結合します。リージョンは毎ティック作り直すため、
+ * プレイヤーが近づけば結合し、離れれば分割されます。
+ *
+ * 各リージョンのスレッドは自分のチャンクの予約されたブロックの更新を行います。
+ * 他のリージョンのチャンクへの書き込み・予約は
+ * {@link #deferIfForeign(int, int, Runnable)}で遅延させ、すべてのリージョンの
+ * ティックが終わった後にワールドのティックスレッドで適用します。他のリージョンが
+ * 所有するチャンクはティック中に書き換わるため、{@link World#getBlock(int, int, int)}などの
+ * 読み取りでは読み込まれていないものとして扱います（{@link #isOwnedByOtherRegion(int, int)}）。
+ */
+public class TickRegionScheduler {
+    
+    /** 区画の一辺のチャンク数（リージョン間の最小距離） */
+    public static final int SECTION_SIZE = 8;
+    private static final int SECTION_SHIFT = 3;
+    
+    // 現在のスレッドがティック中のリージョン
+    private static final ThreadLocal<TickRegion> CURRENT_REGION = new ThreadLocal<>();
+    
+    private final World world;
+    private final Logger logger;
+    private final ExecutorService executor;
+    
+    // 区画ごとの所有リージョン（リージョンのティック中は読み取りのみ）
+    private final ChunkMap<TickRegion> sectionOwners = new ChunkMap<>();
+    
+    // 他のリージョンへの書き込み
+    private final ConcurrentLinkedQueue<Runnable> deferredTasks = new ConcurrentLinkedQueue<>();
+    
+    private int lastRegionCount;
+    
+    public TickRegionScheduler(World world, ExecutorService executor) {
+        this.world = world;
+        this.logger = new Logger("TickRegions-" + world.getName());
+        this.executor = executor;
+    }
+    
+    /**
+     * チャンクをリージョンに分けてティックします（ワールドのティックスレッド専用）
+     */
+    public void tick(List<Chunk> chunks, long currentTick) {
+        List<TickRegion> regions = buildRegions(chunks);
+        lastRegionCount = regions.size();
+        
+        if (regions.size() == 1) {
+            runRegion(regions.get(0), currentTick);
+        } else if (regions.size() > 1) {
+            List<Callable<Void>> tasks = new ArrayList<>(regions.size());
+            for (TickRegion region : regions) {
+                tasks.add(() -> {
+                    runRegion(region, currentTick);
+                    return null;
+                });
+            }
+            try {
+                executor.invokeAll(tasks);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        // リージョンをまたぐ書き込みを適用
+        Runnable task;
+        while ((task = deferredTasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                logger.error("リージョン間の処理でエラーが発生しました", e);
+            }
+        }
+    }
+    
+    private void runRegion(TickRegion region, long currentTick) {
+        CURRENT_REGION.set(region);
+        try {
+            region.tick(currentTick);
+        } catch (Exception e) {
+            logger.error("リージョンのティック処理でエラーが発生しました", e);
+        } finally {
+            CURRENT_REGION.remove();
+        }
+    }
+    
+    /**
+     * 区画の隣接関係からリージョンを作成します
+     */
+    private List<TickRegion> buildRegions(List<Chunk> chunks) {
+        sectionOwners.clear();
+        
+        // ティック対象のチャンクを含む区画
+        Map<Long, Integer> sectionIndex = new HashMap<>();
+        List<Long> sections = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            long key = sectionKey(chunk.getChunkX(), chunk.getChunkZ());
+            if (!sectionIndex.containsKey(key)) {
+                sectionIndex.put(key, sections.size());
+                sections.add(key);
+            }
+        }
+        
+        // 隣接する区画を結合
+        int[] parent = new int[sections.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (int i = 0; i < sections.size(); i++) {
+            long key = sections.get(i);
+            int sectionX = ChunkMap.keyX(key);
+            int sectionZ = ChunkMap.keyZ(key);
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    Integer neighbor = sectionIndex.get(ChunkMap.key(sectionX + dx, sectionZ + dz));
+                    if (neighbor != null) {
+                        union(parent, i, neighbor);
+                    }
+                }
+            }
+        }
+        
+        // 根ごとにリージョンを作成
+        TickRegion[] regionByRoot = new TickRegion[parent.length];
+        List<TickRegion> regions = new ArrayList<>();
+        for (int i = 0; i < sections.size(); i++) {
+            int root = find(parent, i);
+            TickRegion region = regionByRoot[root];
+            if (region == null) {
+                region = new TickRegion(this);
+                regionByRoot[root] = region;
+                regions.add(region);
+            }
+            sectionOwners.put(sections.get(i), region);
+        }
+        for (Chunk chunk : chunks) {
+            sectionOwners.get(sectionKey(chunk.getChunkX(), chunk.getChunkZ())).add(chunk);
+        }
+        return regions;
+    }
+    
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+    
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+    
+    private static long sectionKey(int chunkX, int chunkZ) {
+        return ChunkMap.key(chunkX >> SECTION_SHIFT, chunkZ >> SECTION_SHIFT);
+    }
+    
+    /**
+     * 現在のスレッドが所有していないチャンクへの処理であれば遅延させます
+     * リージョンのティック中でなければ何もせずfalseを返し、呼び出し側でそのまま処理します。
+     */
+    public boolean deferIfForeign(int chunkX, int chunkZ, Runnable task) {
+        TickRegion current = CURRENT_REGION.get();
+        if (current == null || current.getScheduler() != this) {
+            return false;
+        }
+        if (sectionOwners.get(sectionKey(chunkX, chunkZ)) == current) {
+            return false;
+        }
+        deferredTasks.add(task);
+        return true;
+    }
+    
+    /**
+     * 現在のスレッドがリージョンのティック中で、チャンクを他のリージョンが所有しているかを判定します
+     */
+    public boolean isOwnedByOtherRegion(int chunkX, int chunkZ) {
+        TickRegion current = CURRENT_REGION.get();
+        if (current == null || current.getScheduler() != this) {
+            return false;
+        }
+        TickRegion owner = sectionOwners.get(sectionKey(chunkX, chunkZ));
+        return owner != null && owner != current;
+    }
+    
+    /**
+     * 現在のスレッドがティック中のリージョンを取得します（リージョンのティック中でなければnull）
+     */
+    public static TickRegion getCurrentRegion() {
+        return CURRENT_REGION.get();
+    }
+    
+    World getWorld() {
+        return world;
+    }
+    
+    /**
+     * 直前のティックのリージョン数を取得します
+     */
+    public int getRegionCount() {
+        return lastRegionCount;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.minecraft.server.world;
+
+/**
+ * チャンクチケットの種類
+ */
+public enum TicketType {
+    /** プレイヤーの視界距離による読み込み（ティック対象にはしない） */
+    PLAYER_VIEW(true),
+    /** プレイヤーのシミュレーション距離によるティック */
+    PLAYER_SIMULATION(false),
+    /** スポーン地点周辺の常時読み込み */
+    SPAWN(false),
+    /** プラグインによる読み込み */
+    PLUGIN(false),
+    /** コマンドなどによる強制読み込み */
+    FORCED(false);
+    
+    private final boolean borderOnly;
+    
+    TicketType(boolean borderOnly) {
+        this.borderOnly = borderOnly;
+    }
+    
+    /**
+     * チャンクを読み込み状態にするだけで、レベルによらずティック対象にしないかどうかを確認します
+     */
+    public boolean isBorderOnly() {
+        return borderOnly;
+    }
+} 
\ No newline at end of file
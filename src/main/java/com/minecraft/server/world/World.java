@@ -1,11 +1,21 @@
 package com.minecraft.server.world;
 
 import com.minecraft.server.MinecraftServer;
+import com.minecraft.server.config.ServerConfig;
+import com.minecraft.server.player.Player;
 import com.minecraft.server.util.Logger;
+import io.netty.buffer.PooledByteBufAllocator;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * 個別のワールドを管理するクラス
@@ -18,11 +28,35 @@ public class World {
     private final Path worldPath;
     private final ChunkManager chunkManager;
     private final WorldGenerator worldGenerator;
+    private final BlockTickScheduler blockTickScheduler;
+    private final SpatialIndex<Player> playerIndex = new SpatialIndex<>();
+    
+    // ティックごとに公開するプレイヤーのチャンク位置（ワーカースレッドの読み込み優先度の計算用）
+    private volatile long[] playerChunks = new long[0];
+    private final EntityTracker entityTracker;
+    private final ChunkSender chunkSender;
+    
+    // ブロック変更の通知先と、通知待ちの変更を持つチャンク
+    private final List<BlockChangeListener> blockChangeListeners = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<Chunk> changedChunks = new ConcurrentLinkedQueue<>();
+    private final short[] changedPositions = new short[ChunkSection.VOLUME];
+    private final int[] changedBlockIds = new int[ChunkSection.VOLUME];
+    
+    // 次のティックの終わりに作成するスナップショットの要求
+    private final ConcurrentLinkedQueue<CompletableFuture<WorldSnapshot>> snapshotRequests = new ConcurrentLinkedQueue<>();
     
     private volatile boolean loaded = false;
+    
+    // 休止中はティックせず、チャンクを保持しない
+    private volatile boolean hibernating = false;
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+    private long idleTicks;
+    
     private final AtomicLong tickCount = new AtomicLong(0);
     private long lastSaveTime = 0;
     private static final long SAVE_INTERVAL = 6000; // 5分（20 TPS * 60 * 5）
+    private static final long AUTOSAVE_TICK_BUDGET_NANOS = 2_000_000L; // 1ティックあたり2ms
+    private static final int SPAWN_CHUNK_RADIUS = 10; // スポーン地点の周囲を常に読み込む半径
     
     public World(MinecraftServer server, String name) {
         this.server = server;
@@ -31,6 +65,9 @@ public class World {
         this.worldPath = Paths.get("worlds", name);
         this.chunkManager = new ChunkManager(this);
         this.worldGenerator = new WorldGenerator(this);
+        this.blockTickScheduler = new BlockTickScheduler(this);
+        this.entityTracker = new EntityTracker(this, PooledByteBufAllocator.DEFAULT);
+        this.chunkSender = new ChunkSender(this, PooledByteBufAllocator.DEFAULT);
     }
     
     /**
@@ -54,6 +91,13 @@ public class World {
             // ワールドジェネレーターを初期化
             worldGenerator.initialize();
             
+            // 前回保存されなかったブロックの変更をログから復元し、以降の変更を記録する
+            chunkManager.recoverLoggedChanges();
+            addBlockChangeListener(chunkManager.getChangeLog());
+            
+            // スポーン地点周辺のチャンクを常に読み込む
+            chunkManager.addTicket(TicketType.SPAWN, 0, 0, ChunkTicketManager.TICKING_LEVEL - SPAWN_CHUNK_RADIUS);
+            
             loaded = true;
             logger.info("ワールドの読み込みが完了しました: " + name);
             
@@ -106,6 +150,12 @@ public class World {
             // チャンクマネージャーをシャットダウン
             chunkManager.shutdown();
             
+            // 応答できなくなったスナップショットの要求を失敗させる
+            CompletableFuture<WorldSnapshot> request;
+            while ((request = snapshotRequests.poll()) != null) {
+                request.completeExceptionally(new IllegalStateException("World unloaded: " + name));
+            }
+            
             loaded = false;
             logger.info("ワールドのアンロードが完了しました: " + name);
             
@@ -122,16 +172,62 @@ public class World {
             return;
         }
         
+        // 休止中は再開の要求があるまでティックしない
+        if (wakeRequested.getAndSet(false)) {
+            idleTicks = 0;
+            if (hibernating) {
+                hibernating = false;
+                chunkManager.wake();
+                logger.info("ワールドの休止を解除しました: " + name);
+            }
+        }
+        if (hibernating) {
+            return;
+        }
+        
         long currentTick = tickCount.incrementAndGet();
         
+        // プレイヤーの位置に合わせてチャンクチケットを更新
+        ServerConfig config = server.getConfig();
+        List<Player> players = getPlayers();
+        chunkManager.updatePlayerTickets(players, config.getViewDistance(), config.getSimulationDistance());
+        publishPlayerChunks(players);
+        
         // チャンクのティック処理
         chunkManager.tick();
         
-        // 定期的にワールドを保存
-        if (currentTick - lastSaveTime >= SAVE_INTERVAL) {
-            save();
+        // このティックのブロック変更をセクションごとにまとめて通知し、ログへ書き込む
+        flushBlockChanges();
+        chunkManager.getChangeLog().commit(currentTick);
+        
+        // 表示距離内のチャンクを送信（変更はこのティックの内容まで反映済み）
+        chunkSender.tick();
+        
+        // 近くのプレイヤーへエンティティの出現・削除・移動を送信
+        entityTracker.tick();
+        
+        // 要求されたスナップショットを作成（同じティックの要求は1つのスナップショットを共有）
+        if (!snapshotRequests.isEmpty()) {
+            WorldSnapshot snapshot = snapshot();
+            CompletableFuture<WorldSnapshot> request;
+            while ((request = snapshotRequests.poll()) != null) {
+                request.complete(snapshot);
+            }
         }
         
+        // 定期的に変更されたチャンクを自動保存（複数ティックに分散）
+        // ログが大きくなった場合も保存して古いログを削除できるようにする
+        if (currentTick - lastSaveTime >= SAVE_INTERVAL || chunkManager.getChangeLog().needsCheckpoint()) {
+            if (chunkManager.startAutosave()) {
+                saveWorldMetadata();
+            }
+            lastSaveTime = currentTick;
+        }
+        chunkManager.tickAutosave(AUTOSAVE_TICK_BUDGET_NANOS);
+        
+        // プレイヤーも強制読み込みもないまま一定時間が過ぎたら休止
+        updateHibernation();
+        
         // ワールド固有のティック処理
         // - 天候の更新
         // - 時間の進行
@@ -139,6 +235,60 @@ public class World {
         // など
     }
     
+    /**
+     * 無人の状態が続いた時間を数え、設定した時間を超えたら休止します
+     * デフォルトワールドはログイン時のスポーン先のため休止しません。
+     */
+    private void updateHibernation() {
+        int delaySeconds = server.getConfig().getWorldHibernateDelay();
+        boolean idle = delaySeconds > 0
+                && playerIndex.size() == 0
+                && !chunkManager.getTicketManager().hasTicket(TicketType.FORCED)
+                && server.getWorldManager().getDefaultWorld() != this;
+        if (!idle) {
+            idleTicks = 0;
+            return;
+        }
+        if (++idleTicks >= delaySeconds * 20L) {
+            hibernate();
+        }
+    }
+    
+    /**
+     * 変更されたチャンクを保存してすべてのチャンクを解放し、ティックを停止します（ティックスレッド専用）
+     */
+    private void hibernate() {
+        int released = chunkManager.hibernate();
+        saveWorldMetadata();
+        hibernating = true;
+        idleTicks = 0;
+        logger.info("ワールドを休止しました: " + name + " (" + released + "個のチャンクを解放)");
+    }
+    
+    /**
+     * 休止中であれば次のティックで再開します（任意のスレッドから呼び出し可能）
+     * チャンクへのアクセスやプレイヤーの移動で自動的に呼び出され、無人の時間の計測もやり直します。
+     * 休止中はすべてのチャンクを解放しているため、再開後もチャンクは読み込みが完了するまで
+     * 未読み込みとして扱われます（確実に取得するには{@link #getChunkAsync(int, int)}を使用してください）。
+     */
+    public void wake() {
+        wakeRequested.set(true);
+    }
+    
+    /**
+     * 休止中かどうかを確認します
+     */
+    public boolean isHibernating() {
+        return hibernating;
+    }
+    
+    /**
+     * ティックが必要かどうかを確認します（休止中で再開の要求もない場合はfalse）
+     */
+    public boolean needsTick() {
+        return !hibernating || wakeRequested.get();
+    }
+    
     /**
      * ワールドディレクトリを作成します
      */
@@ -159,18 +309,20 @@ public class World {
     
     /**
      * ブロックを取得します
+     * 休止中のワールドではチャンクの読み込みを開始し、読み込みが完了するまでは空気を返します。
+     * リージョンのティック中は、他のリージョンが所有するチャンクも空気を返します。
      */
     public int getBlock(int x, int y, int z) {
         if (!loaded) {
             return 0; // 空気ブロック
         }
-        
         int chunkX = x >> 4;
         int chunkZ = z >> 4;
         int localX = x & 15;
         int localZ = z & 15;
+        wakeFor(chunkX, chunkZ);
         
-        Chunk chunk = chunkManager.getChunk(chunkX, chunkZ);
+        Chunk chunk = getReadableChunk(chunkX, chunkZ);
         if (chunk != null) {
             return chunk.getBlock(localX, y, localZ);
         }
@@ -180,6 +332,7 @@ public class World {
     
     /**
      * ブロックを設定します
+     * 休止中のワールドではチャンクを読み込み、読み込みが完了したティックで設定します。
      */
     public void setBlock(int x, int y, int z, int blockId) {
         if (!loaded) {
@@ -191,19 +344,240 @@ public class World {
         int localX = x & 15;
         int localZ = z & 15;
         
+        // 他のリージョンのチャンクへの書き込みはリージョンのティック完了後に適用
+        TickRegionScheduler regionScheduler = chunkManager.getRegionScheduler();
+        if (regionScheduler != null && regionScheduler.deferIfForeign(chunkX, chunkZ, () -> setBlock(x, y, z, blockId))) {
+            return;
+        }
+        
+        writeChunk(chunkX, chunkZ, chunk -> chunk.setBlock(localX, y, localZ, blockId));
+    }
+    
+    /**
+     * 複数のブロック変更をまとめて適用します
+     * 変更はチャンク・セクションごとにまとめて書き込まれ、読み込まれていないチャンクへの変更は無視されます。
+     * 休止中のワールドではチャンクを読み込み、読み込みが完了したティックで適用します。
+     */
+    public void applyEdit(BlockEditBatch batch) {
+        if (!loaded) {
+            return;
+        }
+        
+        TickRegionScheduler regionScheduler = chunkManager.getRegionScheduler();
+        for (BlockEditBatch.ChunkEdits edits : batch.getChunkEdits()) {
+            if (regionScheduler != null
+                    && regionScheduler.deferIfForeign(edits.chunkX, edits.chunkZ, () -> applyChunkEdits(edits))) {
+                continue;
+            }
+            applyChunkEdits(edits);
+        }
+    }
+    
+    private void applyChunkEdits(BlockEditBatch.ChunkEdits edits) {
+        writeChunk(edits.chunkX, edits.chunkZ, chunk -> applyChunkEdits(chunk, edits));
+    }
+    
+    private static void applyChunkEdits(Chunk chunk, BlockEditBatch.ChunkEdits edits) {
+        for (int sectionY = 0; sectionY < Chunk.SECTION_COUNT; sectionY++) {
+            BlockEditBatch.SectionEdits section = edits.sections[sectionY];
+            if (section != null) {
+                chunk.setBlocks(sectionY, section.positions, section.blockIds, section.size);
+            }
+        }
+    }
+    
+    /**
+     * 直方体の範囲を指定したブロックで埋めます（両端の座標を含む）
+     * 範囲が覆うセクションは丸ごと置き換えられ、読み込まれていないチャンクは無視されます。
+     * 休止中のワールドではチャンクを読み込み、読み込みが完了したティックで埋めます。
+     */
+    public void fillRegion(int x1, int y1, int z1, int x2, int y2, int z2, int blockId) {
+        if (!loaded) {
+            return;
+        }
+        
+        int minX = Math.min(x1, x2);
+        int maxX = Math.max(x1, x2);
+        int minY = Math.max(0, Math.min(y1, y2));
+        int maxY = Math.min(Chunk.HEIGHT - 1, Math.max(y1, y2));
+        int minZ = Math.min(z1, z2);
+        int maxZ = Math.max(z1, z2);
+        if (minY > maxY) {
+            return;
+        }
+        
+        TickRegionScheduler regionScheduler = chunkManager.getRegionScheduler();
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                int fromX = chunkX == minX >> 4 ? minX & 15 : 0;
+                int toX = chunkX == maxX >> 4 ? maxX & 15 : 15;
+                int fromZ = chunkZ == minZ >> 4 ? minZ & 15 : 0;
+                int toZ = chunkZ == maxZ >> 4 ? maxZ & 15 : 15;
+                int cx = chunkX;
+                int cz = chunkZ;
+                Runnable fill = () -> writeChunk(cx, cz,
+                        chunk -> chunk.fill(fromX, minY, fromZ, toX, maxY, toZ, blockId));
+                if (regionScheduler == null || !regionScheduler.deferIfForeign(chunkX, chunkZ, fill)) {
+                    fill.run();
+                }
+            }
+        }
+    }
+    
+    /**
+     * 読み込み済みのチャンクに書き込みます（読み込まれていないチャンクへの書き込みは無視します）
+     * 休止中のワールドはすべてのチャンクを解放しているため、再開を要求してチャンクを読み込み、
+     * 読み込みが完了したティックで書き込みます。
+     */
+    private void writeChunk(int chunkX, int chunkZ, Consumer<Chunk> write) {
+        if (hibernating) {
+            getChunkAsync(chunkX, chunkZ).whenComplete((chunk, error) -> {
+                if (error != null) {
+                    logger.warn("休止中のワールドへの書き込みに失敗しました: チャンク (" + chunkX + ", " + chunkZ + ") " + error.getMessage());
+                } else {
+                    write.accept(chunk);
+                }
+            });
+            return;
+        }
         Chunk chunk = chunkManager.getChunk(chunkX, chunkZ);
         if (chunk != null) {
-            chunk.setBlock(localX, y, localZ, blockId);
+            write.accept(chunk);
         }
     }
     
+    /**
+     * 読み込み済みチャンクの変更されないスナップショットを作成します（ティックスレッド専用）
+     * ブロックデータはコピーせずに共有し、ワールド側が次に書き込むセクションだけをコピーします。
+     */
+    public WorldSnapshot snapshot() {
+        ChunkMap<ChunkSnapshot> chunks = new ChunkMap<>();
+        chunkManager.forEachLoadedChunk(chunk ->
+                chunks.put(ChunkMap.key(chunk.getChunkX(), chunk.getChunkZ()), chunk.snapshot()));
+        return new WorldSnapshot(name, tickCount.get(), chunks);
+    }
+    
+    /**
+     * 次のティックの終わりに作成されるスナップショットを要求します（任意のスレッドから呼び出し可能）
+     */
+    public CompletableFuture<WorldSnapshot> requestSnapshot() {
+        CompletableFuture<WorldSnapshot> request = new CompletableFuture<>();
+        wake();
+        if (!loaded) {
+            request.completeExceptionally(new IllegalStateException("World not loaded: " + name));
+            return request;
+        }
+        snapshotRequests.offer(request);
+        // 要求の登録中にアンロードされた場合は応答されないため失敗させる
+        if (!loaded && snapshotRequests.remove(request)) {
+            request.completeExceptionally(new IllegalStateException("World not loaded: " + name));
+        }
+        return request;
+    }
+    
+    /**
+     * ブロック変更のリスナーを登録します
+     */
+    public void addBlockChangeListener(BlockChangeListener listener) {
+        blockChangeListeners.add(listener);
+    }
+    
+    /**
+     * ブロック変更のリスナーを解除します
+     */
+    public void removeBlockChangeListener(BlockChangeListener listener) {
+        blockChangeListeners.remove(listener);
+    }
+    
+    boolean hasBlockChangeListeners() {
+        return !blockChangeListeners.isEmpty();
+    }
+    
+    /**
+     * 通知待ちの変更を持つチャンクを登録します（チャンクごとに最初の変更時のみ呼ばれます）
+     */
+    void queueBlockChanges(Chunk chunk) {
+        changedChunks.offer(chunk);
+    }
+    
+    /**
+     * 記録されたブロック変更をリスナーへ通知します（ティックスレッド専用）
+     */
+    private void flushBlockChanges() {
+        Chunk chunk;
+        while ((chunk = changedChunks.poll()) != null) {
+            chunk.flushChanges(blockChangeListeners, changedPositions, changedBlockIds);
+        }
+    }
+    
+    /**
+     * ブロックの更新を予約します（ティックスレッド専用）
+     */
+    public boolean scheduleBlockTick(int x, int y, int z, int blockId, int delay) {
+        return scheduleBlockTick(x, y, z, blockId, delay, 0);
+    }
+    
+    /**
+     * 優先度を指定してブロックの更新を予約します（優先度は小さいほど先に実行、ティックスレッド専用）
+     */
+    public boolean scheduleBlockTick(int x, int y, int z, int blockId, int delay, int priority) {
+        return blockTickScheduler.schedule(x, y, z, blockId, delay, priority);
+    }
+    
     /**
      * チャンクを取得します
+     * 休止中のワールドではチャンクの読み込みを開始し、読み込みが完了するまではnullを返します。
+     * リージョンのティック中は、他のリージョンが所有するチャンクもnullを返します。
      */
     public Chunk getChunk(int chunkX, int chunkZ) {
+        wakeFor(chunkX, chunkZ);
+        return getReadableChunk(chunkX, chunkZ);
+    }
+    
+    /**
+     * 現在のスレッドから読み取れるチャンクを取得します
+     * 他のリージョンが所有するチャンクはそのスレッドがティック中に書き換えるため、読み込まれていないものとして扱います。
+     */
+    private Chunk getReadableChunk(int chunkX, int chunkZ) {
+        TickRegionScheduler regionScheduler = chunkManager.getRegionScheduler();
+        if (regionScheduler != null && regionScheduler.isOwnedByOtherRegion(chunkX, chunkZ)) {
+            return null;
+        }
         return chunkManager.getChunk(chunkX, chunkZ);
     }
     
+    /**
+     * 休止中であれば再開を要求し、アクセスされたチャンクの読み込みを開始します
+     */
+    private void wakeFor(int chunkX, int chunkZ) {
+        if (hibernating) {
+            wake();
+            chunkManager.getChunkAsync(chunkX, chunkZ);
+        }
+    }
+    
+    /**
+     * チャンクを非同期で取得します（未読み込みの場合は読み込み・生成します）
+     */
+    public CompletableFuture<Chunk> getChunkAsync(int chunkX, int chunkZ) {
+        wake();
+        return chunkManager.getChunkAsync(chunkX, chunkZ);
+    }
+    
+    /**
+     * スポーン地点周辺のチャンクがすべて読み込まれると完了するフューチャーを取得します（任意のスレッドから呼び出し可能）
+     * チャンクはティック中に登録されるため、ワールドのティックが動いている必要があります。
+     */
+    public CompletableFuture<Void> prepareSpawn() {
+        List<CompletableFuture<Chunk>> futures = new ArrayList<>();
+        for (int chunkX = -SPAWN_CHUNK_RADIUS; chunkX <= SPAWN_CHUNK_RADIUS; chunkX++) {
+            for (int chunkZ = -SPAWN_CHUNK_RADIUS; chunkZ <= SPAWN_CHUNK_RADIUS; chunkZ++) {
+                futures.add(getChunkAsync(chunkX, chunkZ));
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+    
     /**
      * チャンクを生成します
      */
@@ -211,6 +585,47 @@ public class World {
         return chunkManager.generateChunk(chunkX, chunkZ);
     }
     
+    /**
+     * このワールドにいるオンラインのプレイヤーを取得します（ティックスレッド専用）
+     */
+    public List<Player> getPlayers() {
+        List<Player> players = new ArrayList<>(playerIndex.size());
+        playerIndex.forEach(players::add);
+        return players;
+    }
+    
+    private void publishPlayerChunks(List<Player> players) {
+        long[] chunks = new long[players.size()];
+        for (int i = 0; i < chunks.length; i++) {
+            Player player = players.get(i);
+            chunks[i] = ChunkMap.key((int) Math.floor(player.getX()) >> 4, (int) Math.floor(player.getZ()) >> 4);
+        }
+        playerChunks = chunks;
+    }
+    
+    /**
+     * 直前のティック時点のプレイヤーのチャンク位置（{@link ChunkMap#key(int, int)}）を取得します
+     * どのスレッドからも呼び出せます。返した配列は変更しないでください。
+     */
+    long[] getPlayerChunks() {
+        return playerChunks;
+    }
+    
+    /**
+     * このワールドにいるプレイヤーの空間インデックスを取得します
+     * 近くのプレイヤーの検索（範囲・直方体・チャンク列・最寄り）に使用します。
+     */
+    public SpatialIndex<Player> getPlayerIndex() {
+        return playerIndex;
+    }
+    
+    /**
+     * エンティティの表示先を管理するトラッカーを取得します
+     */
+    public EntityTracker getEntityTracker() {
+        return entityTracker;
+    }
+    
     /**
      * ワールド名を取得します
      */
@@ -246,6 +661,13 @@ public class World {
         return chunkManager;
     }
     
+    /**
+     * ブロックの更新予約を管理するスケジューラーを取得します
+     */
+    public BlockTickScheduler getBlockTickScheduler() {
+        return blockTickScheduler;
+    }
+    
     /**
      * ワールドジェネレーターを取得します
      */
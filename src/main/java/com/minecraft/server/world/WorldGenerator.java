@@ -1,26 +1,362 @@
 package com.minecraft.server.world;
 
+import com.minecraft.server.config.ServerConfig;
 import com.minecraft.server.util.Logger;
 
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
- * ワールド生成を担当するクラス（スタブ）
+ * ワールド生成を担当するクラス
+ *
+ * 地形は密度関数（高さノイズ・起伏ノイズ・3次元の詳細ノイズ）で決まります。
+ * 密度関数はブロックごとではなく、4x8x4ブロックのセルの頂点だけで計算して
+ * チャンクごとの粗いグリッドに保持し、各ブロックの値はグリッドを三線形補間して求めます。
+ * グリッドの計算は列ごとにフォーク/ジョインプールへ分割して並列に行います。
  */
 public class WorldGenerator {
     
+    // ブロックID
+    private static final int STONE = 1;
+    private static final int GRASS = 2;
+    private static final int DIRT = 3;
+    private static final int BEDROCK = 7;
+    private static final int WATER = 9;
+    private static final int SAND = 12;
+    private static final int IRON_ORE = 15;
+    private static final int COAL_ORE = 16;
+    private static final int LOG = 17;
+    private static final int LEAVES = 18;
+    
+    private static final int SEA_LEVEL = 62;
+    private static final int DIRT_DEPTH = 3;
+    
+    // 装飾（鉱脈の数・大きさ・最大の高さ、1チャンクあたりの木の最大数）
+    private static final int COAL_VEINS = 20;
+    private static final int COAL_VEIN_SIZE = 8;
+    private static final int COAL_MAX_Y = 128;
+    private static final int IRON_VEINS = 10;
+    private static final int IRON_VEIN_SIZE = 6;
+    private static final int IRON_MAX_Y = 64;
+    private static final int MAX_TREES = 3;
+    
+    // 鉱脈をたどる方向（±X, ±Y, ±Z）
+    private static final int[] VEIN_STEP_X = {1, -1, 0, 0, 0, 0};
+    private static final int[] VEIN_STEP_Y = {0, 0, 1, -1, 0, 0};
+    private static final int[] VEIN_STEP_Z = {0, 0, 0, 0, 1, -1};
+    
+    // 密度グリッドのセルの大きさ
+    private static final int CELL_WIDTH = 4;
+    private static final int CELL_HEIGHT = 8;
+    private static final int GRID_WIDTH = 16 / CELL_WIDTH + 1;
+    private static final int GRID_HEIGHT = Chunk.HEIGHT / CELL_HEIGHT + 1;
+    private static final int GRID_COLUMNS = GRID_WIDTH * GRID_WIDTH;
+    
+    // これ以下の列数になるまでタスクを分割する
+    private static final int COLUMNS_PER_TASK = GRID_WIDTH;
+    
+    // ワーカースレッドごとに再利用するブロック配列（インデックスは y << 8 | z << 4 | x）
+    private static final ThreadLocal<int[]> BLOCK_BUFFER = ThreadLocal.withInitial(() -> new int[16 * 16 * Chunk.HEIGHT]);
+    
     private final World world;
     private final Logger logger;
     
+    private long seed;
+    private boolean flat;
+    private OctaveNoise heightNoise;
+    private OctaveNoise roughnessNoise;
+    private OctaveNoise detailNoise;
+    private ForkJoinPool noisePool;
+    
     public WorldGenerator(World world) {
         this.world = world;
         this.logger = new Logger("WorldGenerator-" + world.getName());
     }
     
     public void initialize() {
-        logger.info("ワールドジェネレーターを初期化しました");
+        ServerConfig config = world.getServer().getConfig();
+        seed = parseSeed(config.getLevelSeed(), world.getName());
+        flat = "flat".equalsIgnoreCase(config.getLevelType());
+        
+        Random random = new Random(seed);
+        heightNoise = new OctaveNoise(random, 6);
+        roughnessNoise = new OctaveNoise(random, 4);
+        detailNoise = new OctaveNoise(random, 4);
+        noisePool = world.getServer().getWorldManager().getNoisePool();
+        
+        logger.info("ワールドジェネレーターを初期化しました（シード: " + seed + ", タイプ: " + (flat ? "flat" : "default") + "）");
+    }
+    
+    /**
+     * シード文字列をシード値に変換します
+     * 数値でなければ文字列のハッシュ値を使用します。ワールドのメタデータにシードを
+     * 保存していないため、未指定の場合は再起動しても地形が変わらないようにワールド名から求めます。
+     */
+    private static long parseSeed(String levelSeed, String worldName) {
+        String value = levelSeed == null ? "" : levelSeed.trim();
+        if (value.isEmpty()) {
+            return worldName.hashCode();
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return value.hashCode();
+        }
     }
     
     public void generateChunk(Chunk chunk) {
-        // TODO: チャンクの地形生成
-        logger.debug("チャンクを生成しました: " + chunk.getChunkX() + ", " + chunk.getChunkZ());
+        int[] blocks = BLOCK_BUFFER.get();
+        if (flat) {
+            generateFlat(blocks);
+        } else {
+            generateTerrain(chunk.getChunkX(), chunk.getChunkZ(), blocks);
+        }
+        // チャンクごとのログは出さない（/pregenなどで大量に生成するとログが埋まるため、進捗は呼び出し側で出力する）
+        applyBlocks(chunk, blocks);
+    }
+    
+    /**
+     * 鉱脈と木を配置します
+     * 乱数はシードとチャンク座標から求めるため、同じチャンクは何度生成しても同じになります。
+     * 隣のチャンクの生成を待たないよう、装飾はチャンク内に収まる範囲にだけ配置します。
+     */
+    public void populateChunk(Chunk chunk) {
+        if (flat) {
+            return;
+        }
+        Random random = new Random(seed ^ (chunk.getChunkX() * 341873128712L + chunk.getChunkZ() * 132897987541L));
+        placeOres(chunk, random, COAL_ORE, COAL_VEINS, COAL_VEIN_SIZE, COAL_MAX_Y);
+        placeOres(chunk, random, IRON_ORE, IRON_VEINS, IRON_VEIN_SIZE, IRON_MAX_Y);
+        
+        int trees = random.nextInt(MAX_TREES + 1);
+        for (int i = 0; i < trees; i++) {
+            placeTree(chunk, random, 2 + random.nextInt(12), 2 + random.nextInt(12));
+        }
+    }
+    
+    /**
+     * 石を鉱石に置き換える鉱脈を配置します（ランダムウォークで隣接するブロックをたどる）
+     */
+    private static void placeOres(Chunk chunk, Random random, int oreId, int veins, int size, int maxY) {
+        for (int vein = 0; vein < veins; vein++) {
+            int x = random.nextInt(16);
+            int y = 1 + random.nextInt(maxY - 1);
+            int z = random.nextInt(16);
+            for (int i = 0; i < size; i++) {
+                if (chunk.getBlock(x, y, z) == STONE) {
+                    chunk.setBlock(x, y, z, oreId);
+                }
+                int direction = random.nextInt(6);
+                x += VEIN_STEP_X[direction];
+                y += VEIN_STEP_Y[direction];
+                z += VEIN_STEP_Z[direction];
+                if (x < 0 || x >= 16 || y < 1 || y >= maxY || z < 0 || z >= 16) {
+                    break;
+                }
+            }
+        }
+    }
+    
+    /**
+     * 草の上に木を配置します（葉が周囲2ブロックまで広がるため、列は端から2ブロック以上離す）
+     */
+    private static void placeTree(Chunk chunk, Random random, int x, int z) {
+        int ground = chunk.computeHeightmap()[(z << 4) | x] - 1;
+        if (ground < SEA_LEVEL || chunk.getBlock(x, ground, z) != GRASS) {
+            return;
+        }
+        int trunkHeight = 4 + random.nextInt(3);
+        int top = ground + trunkHeight;
+        if (top + 2 >= Chunk.HEIGHT) {
+            return;
+        }
+        
+        chunk.setBlock(x, ground, z, DIRT);
+        for (int y = top - 2; y <= top + 1; y++) {
+            int radius = y <= top - 1 ? 2 : 1;
+            for (int dx = -radius; dx <= radius; dx++) {
+                for (int dz = -radius; dz <= radius; dz++) {
+                    // 角は間引く
+                    if (Math.abs(dx) == radius && Math.abs(dz) == radius && (y == top + 1 || random.nextBoolean())) {
+                        continue;
+                    }
+                    if (chunk.getBlock(x + dx, y, z + dz) == ChunkSection.AIR) {
+                        chunk.setBlock(x + dx, y, z + dz, LEAVES);
+                    }
+                }
+            }
+        }
+        for (int y = ground + 1; y <= top; y++) {
+            chunk.setBlock(x, y, z, LOG);
+        }
+    }
+    
+    /**
+     * フラットワールドの地形を生成します
+     */
+    private void generateFlat(int[] blocks) {
+        Arrays.fill(blocks, ChunkSection.AIR);
+        for (int i = 0; i < 256; i++) {
+            blocks[i] = BEDROCK;
+            blocks[256 + i] = DIRT;
+            blocks[512 + i] = DIRT;
+            blocks[768 + i] = GRASS;
+        }
+    }
+    
+    /**
+     * ノイズから地形を生成します
+     */
+    private void generateTerrain(int chunkX, int chunkZ, int[] blocks) {
+        // セルの頂点で密度を計算（列ごとに並列）
+        double[] grid = new double[GRID_COLUMNS * GRID_HEIGHT];
+        noisePool.invoke(new NoiseColumnTask(chunkX * 16, chunkZ * 16, grid, 0, GRID_COLUMNS));
+        
+        // セル内は三線形補間
+        for (int cellX = 0; cellX < GRID_WIDTH - 1; cellX++) {
+            for (int cellZ = 0; cellZ < GRID_WIDTH - 1; cellZ++) {
+                int c00 = (cellX * GRID_WIDTH + cellZ) * GRID_HEIGHT;
+                int c01 = (cellX * GRID_WIDTH + cellZ + 1) * GRID_HEIGHT;
+                int c10 = ((cellX + 1) * GRID_WIDTH + cellZ) * GRID_HEIGHT;
+                int c11 = ((cellX + 1) * GRID_WIDTH + cellZ + 1) * GRID_HEIGHT;
+                
+                for (int cellY = 0; cellY < GRID_HEIGHT - 1; cellY++) {
+                    double d000 = grid[c00 + cellY];
+                    double d001 = grid[c01 + cellY];
+                    double d100 = grid[c10 + cellY];
+                    double d101 = grid[c11 + cellY];
+                    double d010 = grid[c00 + cellY + 1];
+                    double d011 = grid[c01 + cellY + 1];
+                    double d110 = grid[c10 + cellY + 1];
+                    double d111 = grid[c11 + cellY + 1];
+                    
+                    for (int dy = 0; dy < CELL_HEIGHT; dy++) {
+                        double ty = (double) dy / CELL_HEIGHT;
+                        double e00 = PerlinNoise.lerp(ty, d000, d010);
+                        double e01 = PerlinNoise.lerp(ty, d001, d011);
+                        double e10 = PerlinNoise.lerp(ty, d100, d110);
+                        double e11 = PerlinNoise.lerp(ty, d101, d111);
+                        int y = cellY * CELL_HEIGHT + dy;
+                        
+                        for (int dx = 0; dx < CELL_WIDTH; dx++) {
+                            double tx = (double) dx / CELL_WIDTH;
+                            double f0 = PerlinNoise.lerp(tx, e00, e10);
+                            double f1 = PerlinNoise.lerp(tx, e01, e11);
+                            int x = cellX * CELL_WIDTH + dx;
+                            
+                            for (int dz = 0; dz < CELL_WIDTH; dz++) {
+                                double density = PerlinNoise.lerp((double) dz / CELL_WIDTH, f0, f1);
+                                int z = cellZ * CELL_WIDTH + dz;
+                                blocks[(y << 8) | (z << 4) | x] = density > 0.0 ? STONE
+                                        : y <= SEA_LEVEL ? WATER : ChunkSection.AIR;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        
+        // 表層を草・土・砂に置き換え
+        for (int i = 0; i < 256; i++) {
+            int depth = -1;
+            for (int y = Chunk.HEIGHT - 1; y >= 0; y--) {
+                int index = (y << 8) | i;
+                if (blocks[index] != STONE) {
+                    depth = -1;
+                    continue;
+                }
+                depth++;
+                if (depth == 0) {
+                    blocks[index] = y >= SEA_LEVEL ? GRASS : y >= SEA_LEVEL - 4 ? SAND : DIRT;
+                } else if (depth <= DIRT_DEPTH) {
+                    blocks[index] = y >= SEA_LEVEL - 4 && y < SEA_LEVEL ? SAND : DIRT;
+                }
+            }
+            blocks[i] = BEDROCK;
+        }
+    }
+    
+    /**
+     * 指定した列の密度を計算します
+     */
+    private void sampleColumn(int worldX, int worldZ, double[] grid, int offset) {
+        double height = SEA_LEVEL + 4 + heightNoise.sample(worldX / 256.0, worldZ / 256.0) * 24.0;
+        double roughness = 0.5 + 0.5 * roughnessNoise.sample(worldX / 128.0, worldZ / 128.0);
+        double squash = 10.0 + 30.0 * roughness;
+        
+        for (int cellY = 0; cellY < GRID_HEIGHT; cellY++) {
+            int y = cellY * CELL_HEIGHT;
+            double detail = detailNoise.sample(worldX / 64.0, y / 32.0, worldZ / 64.0);
+            grid[offset + cellY] = (height - y) / squash + detail;
+        }
+    }
+    
+    /**
+     * ブロック配列からチャンクのセクションを作成します
+     * 1種類のブロックだけのセクションは単一値セクション、空気のみのセクションはnullにします。
+     */
+    private static void applyBlocks(Chunk chunk, int[] blocks) {
+        for (int sectionY = 0; sectionY < Chunk.SECTION_COUNT; sectionY++) {
+            int base = sectionY * ChunkSection.VOLUME;
+            int first = blocks[base];
+            boolean uniform = true;
+            for (int i = 1; i < ChunkSection.VOLUME; i++) {
+                if (blocks[base + i] != first) {
+                    uniform = false;
+                    break;
+                }
+            }
+            
+            if (uniform) {
+                chunk.setSection(sectionY, first == ChunkSection.AIR ? null : new ChunkSection(first));
+                continue;
+            }
+            
+            ChunkSection section = new ChunkSection();
+            for (int i = 0; i < ChunkSection.VOLUME; i++) {
+                int id = blocks[base + i];
+                if (id != ChunkSection.AIR) {
+                    section.set(i, id);
+                }
+            }
+            chunk.setSection(sectionY, section);
+        }
+    }
+    
+    /**
+     * 密度グリッドの列を分割して計算するタスク
+     */
+    private final class NoiseColumnTask extends RecursiveAction {
+        
+        private final int originX;
+        private final int originZ;
+        private final double[] grid;
+        private final int from;
+        private final int to;
+        
+        NoiseColumnTask(int originX, int originZ, double[] grid, int from, int to) {
+            this.originX = originX;
+            this.originZ = originZ;
+            this.grid = grid;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= COLUMNS_PER_TASK) {
+                for (int column = from; column < to; column++) {
+                    int cellX = column / GRID_WIDTH;
+                    int cellZ = column % GRID_WIDTH;
+                    sampleColumn(originX + cellX * CELL_WIDTH, originZ + cellZ * CELL_WIDTH, grid, column * GRID_HEIGHT);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new NoiseColumnTask(originX, originZ, grid, from, middle),
+                    new NoiseColumnTask(originX, originZ, grid, middle, to));
+        }
     }
 } 
\ No newline at end of file
@@ -1,38 +1,118 @@
 package com.minecraft.server.world;
 
 import com.minecraft.server.MinecraftServer;
+import com.minecraft.server.network.BlockChangeBroadcaster;
 import com.minecraft.server.util.Logger;
+import io.netty.buffer.PooledByteBufAllocator;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * ワールド管理を担当するクラス
+ *
+ * 各ワールドのティック処理は専用のスレッドプールで並列に実行し、すべての
+ * ワールドのティックが終わるまで待ってから次の処理（プレイヤーのティックなど）へ進みます。
+ * ティック中のワールドから別のワールドへの操作（テレポートなど）は
+ * {@link #runAfterWorldTick(Runnable)}でキューに入れ、全ワールドのティック完了後に実行します。
+ *
+ * プレイヤーのいない状態が続いたワールドは休止し（{@link World#isHibernating()}）、
+ * 再開が要求されるまでティックしません。
  */
 public class WorldManager {
     
     private final MinecraftServer server;
     private final Logger logger;
     private final Map<String, World> worlds = new ConcurrentHashMap<>();
-    private World defaultWorld;
+    private volatile World defaultWorld;
+    
+    // すべてのワールドで共有するチャンク読み込み・生成用ワーカープール
+    private final ThreadPoolExecutor chunkWorkerPool;
+    
+    // 地形生成のノイズ計算を分割して実行するフォーク/ジョインプール
+    private final ForkJoinPool noisePool;
+    
+    // ワールドのティック処理を並列に実行するプール
+    private final ExecutorService worldTickPool;
+    
+    // 1つのワールド内のリージョンを並列にティックするプール
+    private final ExecutorService regionTickPool;
+    
+    // ワールドのティック完了後に実行するワールド間の処理
+    private final ConcurrentLinkedQueue<Runnable> crossWorldTasks = new ConcurrentLinkedQueue<>();
     
     public WorldManager(MinecraftServer server) {
         this.server = server;
         this.logger = new Logger("WorldManager");
+        this.chunkWorkerPool = ChunkPipeline.createWorkerPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        this.noisePool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("WorldGen-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        AtomicInteger tickThreadCounter = new AtomicInteger();
+        this.worldTickPool = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+            Thread thread = new Thread(runnable, "WorldTick-" + tickThreadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger regionThreadCounter = new AtomicInteger();
+        this.regionTickPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "RegionTick-" + regionThreadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
     
     /**
      * ワールドマネージャーを初期化します
+     * デフォルトワールドと{@code additional-worlds}のワールドを指定したエグゼキューターで並列に読み込み、
+     * すべての読み込みが終わると完了するフューチャーを返します（値はデフォルトワールド）。
+     * 追加ワールドの読み込みに失敗してもエラーを記録するだけで、起動は続けます。
      */
-    public void initialize() {
+    public CompletableFuture<World> initialize(Executor executor) {
         logger.info("ワールドマネージャーを初期化中...");
         
-        // デフォルトワールドを作成
         String defaultWorldName = server.getConfig().getLevelName();
-        defaultWorld = createWorld(defaultWorldName);
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : server.getConfig().getAdditionalWorlds().split(",")) {
+            if (!name.isBlank() && !name.trim().equals(defaultWorldName)) {
+                names.add(name.trim());
+            }
+        }
         
-        logger.info("ワールドマネージャーの初期化が完了しました");
-        logger.info("デフォルトワールド: " + defaultWorldName);
+        // ワールドごとにディレクトリ・チャンクマネージャーが独立しているため並列に読み込める
+        CompletableFuture<World> defaultFuture = CompletableFuture.supplyAsync(() -> createWorld(defaultWorldName), executor);
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        futures.add(defaultFuture);
+        for (String name : names) {
+            futures.add(CompletableFuture.runAsync(() -> createWorld(name), executor).exceptionally(e -> {
+                logger.error("ワールド " + name + " の読み込みに失敗しました", e);
+                return null;
+            }));
+        }
+        
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            defaultWorld = defaultFuture.join();
+            logger.info("ワールドマネージャーの初期化が完了しました");
+            logger.info("デフォルトワールド: " + defaultWorldName + " (読み込んだワールド数: " + worlds.size() + ")");
+            return defaultWorld;
+        });
     }
     
     /**
@@ -45,6 +125,8 @@ public class WorldManager {
         }
         
         World world = new World(server, name);
+        world.load();
+        world.addBlockChangeListener(new BlockChangeBroadcaster(world, PooledByteBufAllocator.DEFAULT));
         worlds.put(name, world);
         
         logger.info("ワールドを作成しました: " + name);
@@ -108,6 +190,10 @@ public class WorldManager {
         }
         
         worlds.clear();
+        chunkWorkerPool.shutdown();
+        noisePool.shutdown();
+        worldTickPool.shutdown();
+        regionTickPool.shutdown();
         logger.info("すべてのワールドのアンロードが完了しました");
     }
     
@@ -115,15 +201,63 @@ public class WorldManager {
      * ワールドのティック処理を行います
      */
     public void tick() {
+        // 休止中のワールドはティックしない
+        List<World> active = new ArrayList<>(worlds.size());
         for (World world : worlds.values()) {
+            if (world.needsTick()) {
+                active.add(world);
+            }
+        }
+        
+        if (active.size() <= 1) {
+            // ワールドが1つだけならスレッドを切り替えずに実行
+            for (World world : active) {
+                tickWorld(world);
+            }
+        } else {
+            List<Callable<Void>> tasks = new ArrayList<>(active.size());
+            for (World world : active) {
+                tasks.add(() -> {
+                    tickWorld(world);
+                    return null;
+                });
+            }
             try {
-                world.tick();
+                // すべてのワールドのティックが終わるまで待機
+                worldTickPool.invokeAll(tasks);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        
+        // ワールド間の処理を実行
+        Runnable task;
+        while ((task = crossWorldTasks.poll()) != null) {
+            try {
+                task.run();
             } catch (Exception e) {
-                logger.error("ワールド " + world.getName() + " のティック処理でエラーが発生しました", e);
+                logger.error("ワールド間の処理でエラーが発生しました", e);
             }
         }
     }
     
+    private void tickWorld(World world) {
+        try {
+            world.tick();
+        } catch (Exception e) {
+            logger.error("ワールド " + world.getName() + " のティック処理でエラーが発生しました", e);
+        }
+    }
+    
+    /**
+     * すべてのワールドのティック完了後に処理を実行します（任意のスレッドから呼び出し可能）
+     * ティック中のワールドから別のワールドの状態を変更する場合に使用します。
+     */
+    public void runAfterWorldTick(Runnable task) {
+        crossWorldTasks.add(task);
+    }
+    
     /**
      * ワールド数を取得します
      */
@@ -138,6 +272,27 @@ public class WorldManager {
         return worlds.keySet().toArray(new String[0]);
     }
     
+    /**
+     * チャンクワーカープールを取得します
+     */
+    public ThreadPoolExecutor getChunkWorkerPool() {
+        return chunkWorkerPool;
+    }
+    
+    /**
+     * リージョン単位のティック処理用のプールを取得します
+     */
+    public ExecutorService getRegionTickPool() {
+        return regionTickPool;
+    }
+    
+    /**
+     * 地形生成用のフォーク/ジョインプールを取得します
+     */
+    public ForkJoinPool getNoisePool() {
+        return noisePool;
+    }
+    
     /**
      * サーバーインスタンスを取得します
      */
@@ -0,0 +1,77 @@
+package com.minecraft.server.world;
+
+import java.util.function.Consumer;
+
+/**
+ * ある時点のワールドの読み込み済みチャンクを保持する変更されないビュー
+ *
+ * {@link World#snapshot()}または{@link World#requestSnapshot()}で作成します。
+ * 作成はチャンクごとにセクションの参照をコピーするだけで、ブロックデータは
+ * ワールドと共有します。HTTPサーバー、バックアップ、マップ描画などが
+ * ティックスレッドと競合せずに任意のスレッドから読み取れます。
+ */
+public final class WorldSnapshot {
+    
+    private final String worldName;
+    private final long tickCount;
+    private final ChunkMap<ChunkSnapshot> chunks;
+    
+    WorldSnapshot(String worldName, long tickCount, ChunkMap<ChunkSnapshot> chunks) {
+        this.worldName = worldName;
+        this.tickCount = tickCount;
+        this.chunks = chunks;
+    }
+    
+    /**
+     * ブロックを取得します（スナップショットに含まれないチャンクは空気）
+     */
+    public int getBlock(int x, int y, int z) {
+        ChunkSnapshot chunk = chunks.get(x >> 4, z >> 4);
+        if (chunk == null) {
+            return ChunkSection.AIR;
+        }
+        return chunk.getBlock(x & 15, y, z & 15);
+    }
+    
+    /**
+     * チャンクのスナップショットを取得します（含まれない場合はnull）
+     */
+    public ChunkSnapshot getChunk(int chunkX, int chunkZ) {
+        return chunks.get(chunkX, chunkZ);
+    }
+    
+    /**
+     * チャンクがスナップショットに含まれているかどうかを確認します
+     */
+    public boolean hasChunk(int chunkX, int chunkZ) {
+        return chunks.get(chunkX, chunkZ) != null;
+    }
+    
+    /**
+     * すべてのチャンクに対して処理を行います
+     */
+    public void forEachChunk(Consumer<ChunkSnapshot> action) {
+        chunks.forEach(action);
+    }
+    
+    /**
+     * 含まれるチャンクの数を取得します
+     */
+    public int getChunkCount() {
+        return chunks.size();
+    }
+    
+    /**
+     * ワールド名を取得します
+     */
+    public String getWorldName() {
+        return worldName;
+    }
+    
+    /**
+     * スナップショット作成時のワールドのティック数を取得します
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+} 
\ No newline at end of file
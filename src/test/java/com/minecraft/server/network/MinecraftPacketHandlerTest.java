@@ -0,0 +1,227 @@
+package com.minecraft.server.network;
+
+import com.minecraft.server.MinecraftServer;
+import com.minecraft.server.player.Player;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * オンラインモードのログイン（鍵交換・セッションの検証・暗号化・プレイヤーの追加）を
+ * 実際のパイプラインで1往復させるテスト
+ */
+class MinecraftPacketHandlerTest {
+    
+    private static final SocketAddress CLIENT_ADDRESS = new InetSocketAddress(InetAddress.getLoopbackAddress(), 50000);
+    private static final UUID PLAYER_UUID = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+    private static final String PLAYER_NAME = "Notch";
+    
+    private MinecraftServer server;
+    private KeyPair keyPair;
+    private String authenticatedName;
+    private String authenticatedHash;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new MinecraftServer();
+        keyPair = EncryptionUtils.generateKeyPair();
+        Field field = NetworkManager.class.getDeclaredField("keyPair");
+        field.setAccessible(true);
+        field.set(server.getNetworkManager(), keyPair);
+        
+        // セッションサーバーの代わりに、渡された値を記録して認証済みのプロフィールを返す
+        server.getNetworkManager().setSessionAuthenticator((username, serverHash, address) -> {
+            authenticatedName = username;
+            authenticatedHash = serverHash;
+            return CompletableFuture.completedFuture(new GameProfile(PLAYER_UUID, username));
+        });
+    }
+    
+    @AfterEach
+    void tearDown() {
+        server.getPlayerManager().disconnectAllPlayers();
+    }
+    
+    @Test
+    void onlineLoginExchangesKeysAndAddsPlayer() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                ch.pipeline().addLast(NetworkManager.FRAME_DECODER, new VarIntFrameDecoder());
+                ch.pipeline().addLast(NetworkManager.FRAME_ENCODER, VarIntFrameEncoder.INSTANCE);
+                ch.pipeline().addLast(NetworkManager.PACKET_HANDLER, new MinecraftPacketHandler(server));
+            }
+        }) {
+            @Override
+            protected SocketAddress remoteAddress0() {
+                return CLIENT_ADDRESS;
+            }
+        };
+        
+        // ハンドシェイクとログイン開始
+        ByteBuf handshake = Unpooled.buffer();
+        ProtocolUtils.writeVarInt(handshake, 0x00);
+        ProtocolUtils.writeVarInt(handshake, 763);
+        ProtocolUtils.writeString(handshake, "localhost");
+        handshake.writeShort(25565);
+        ProtocolUtils.writeVarInt(handshake, 2);
+        channel.writeInbound(frame(handshake));
+        ByteBuf loginStart = Unpooled.buffer();
+        ProtocolUtils.writeVarInt(loginStart, 0x00);
+        ProtocolUtils.writeString(loginStart, PLAYER_NAME);
+        channel.writeInbound(frame(loginStart));
+        
+        // 暗号化要求: サーバーの公開鍵と検証トークン
+        ByteBuf request = unframe(channel.readOutbound());
+        assertEquals(0x01, ProtocolUtils.readVarInt(request));
+        assertEquals("", ProtocolUtils.readString(request));
+        byte[] encodedKey = readByteArray(request);
+        byte[] verifyToken = readByteArray(request);
+        request.release();
+        PublicKey publicKey = KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(encodedKey));
+        assertEquals(keyPair.getPublic(), publicKey);
+        
+        // 暗号化応答: 共有鍵と検証トークンをサーバーの公開鍵で暗号化して返す
+        byte[] sharedSecret = new byte[16];
+        new SecureRandom().nextBytes(sharedSecret);
+        Cipher rsa = Cipher.getInstance("RSA/ECB/PKCS1Padding");
+        rsa.init(Cipher.ENCRYPT_MODE, publicKey);
+        byte[] encryptedSecret = rsa.doFinal(sharedSecret);
+        byte[] encryptedToken = rsa.doFinal(verifyToken);
+        ByteBuf response = Unpooled.buffer();
+        ProtocolUtils.writeVarInt(response, 0x01);
+        ProtocolUtils.writeVarInt(response, encryptedSecret.length);
+        response.writeBytes(encryptedSecret);
+        ProtocolUtils.writeVarInt(response, encryptedToken.length);
+        response.writeBytes(encryptedToken);
+        channel.writeInbound(frame(response));
+        channel.runPendingTasks();
+        
+        // セッションの検証にはクライアントと同じ方法で計算したサーバーハッシュが渡される
+        MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+        sha1.update("".getBytes(StandardCharsets.ISO_8859_1));
+        sha1.update(sharedSecret);
+        sha1.update(encodedKey);
+        assertEquals(PLAYER_NAME, authenticatedName);
+        assertEquals(new BigInteger(sha1.digest()).toString(16), authenticatedHash);
+        
+        // 以降の応答は共有鍵で暗号化され、圧縮の通知の後は圧縮される
+        SecretKey sharedKey = EncryptionUtils.createSharedKey(sharedSecret);
+        EmbeddedChannel client = new EmbeddedChannel();
+        client.pipeline().addLast(NetworkManager.DECRYPTOR, new PacketDecryptor(EncryptionUtils.createCipher(Cipher.DECRYPT_MODE, sharedKey)));
+        client.pipeline().addLast(NetworkManager.FRAME_DECODER, new VarIntFrameDecoder());
+        
+        ByteBuf setCompression = receive(channel, client);
+        assertEquals(0x03, ProtocolUtils.readVarInt(setCompression));
+        int threshold = ProtocolUtils.readVarInt(setCompression);
+        assertEquals(server.getConfig().getNetworkCompressionThreshold(), threshold);
+        setCompression.release();
+        client.pipeline().addAfter(NetworkManager.FRAME_DECODER, NetworkManager.DECOMPRESSOR, new PacketDecompressor(threshold));
+        
+        ByteBuf loginSuccess = receive(channel, client);
+        assertEquals(0x02, ProtocolUtils.readVarInt(loginSuccess));
+        assertEquals(PLAYER_UUID, new UUID(loginSuccess.readLong(), loginSuccess.readLong()));
+        assertEquals(PLAYER_NAME, ProtocolUtils.readString(loginSuccess));
+        loginSuccess.release();
+        
+        // ログインしたプレイヤーがこの接続とともに追加される
+        Player player = server.getPlayerManager().getPlayer(PLAYER_UUID);
+        assertNotNull(player);
+        assertTrue(player.isConnected());
+        assertSame(channel, player.getChannel());
+        
+        // 切断するとプレイヤーは削除される
+        channel.close();
+        assertEquals(0, server.getPlayerManager().getOnlinePlayerCount());
+        client.finishAndReleaseAll();
+    }
+    
+    @Test
+    void encryptorAndDecryptorRoundTripInPlace() throws Exception {
+        SecretKey key = EncryptionUtils.createSharedKey(new byte[16]);
+        EmbeddedChannel encrypt = new EmbeddedChannel(new PacketEncryptor(EncryptionUtils.createCipher(Cipher.ENCRYPT_MODE, key)));
+        EmbeddedChannel decrypt = new EmbeddedChannel(new PacketDecryptor(EncryptionUtils.createCipher(Cipher.DECRYPT_MODE, key)));
+        byte[] plain = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+        
+        // 他から参照されていないバッファはコピーせずにその場で暗号化・復号する
+        ByteBuf buffer = Unpooled.directBuffer().writeBytes(plain);
+        encrypt.writeOutbound(buffer);
+        ByteBuf encrypted = encrypt.readOutbound();
+        assertSame(buffer, encrypted);
+        byte[] cipherText = new byte[encrypted.readableBytes()];
+        encrypted.getBytes(encrypted.readerIndex(), cipherText);
+        assertFalse(Arrays.equals(plain, cipherText));
+        
+        decrypt.writeInbound(encrypted);
+        ByteBuf decrypted = decrypt.readInbound();
+        assertSame(buffer, decrypted);
+        byte[] result = new byte[decrypted.readableBytes()];
+        decrypted.readBytes(result);
+        decrypted.release();
+        assertArrayEquals(plain, result);
+    }
+    
+    /**
+     * サーバーが送信したデータをクライアント側のパイプラインに通して1つのパケットを受け取ります
+     */
+    private static ByteBuf receive(EmbeddedChannel server, EmbeddedChannel client) {
+        ByteBuf packet = client.readInbound();
+        while (packet == null) {
+            ByteBuf data = server.readOutbound();
+            assertNotNull(data, "packet was not sent");
+            client.writeInbound(data);
+            packet = client.readInbound();
+        }
+        return packet;
+    }
+    
+    private static ByteBuf frame(ByteBuf packet) {
+        ByteBuf frame = Unpooled.buffer();
+        ProtocolUtils.writeVarInt(frame, packet.readableBytes());
+        frame.writeBytes(packet);
+        packet.release();
+        return frame;
+    }
+    
+    private static ByteBuf unframe(ByteBuf frame) {
+        int length = ProtocolUtils.readVarInt(frame);
+        assertEquals(length, frame.readableBytes());
+        return frame;
+    }
+    
+    private static byte[] readByteArray(ByteBuf buffer) {
+        byte[] bytes = new byte[ProtocolUtils.readVarInt(buffer)];
+        buffer.readBytes(bytes);
+        return bytes;
+    }
+} 
\ No newline at end of file